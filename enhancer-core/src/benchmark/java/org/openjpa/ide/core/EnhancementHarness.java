@@ -0,0 +1,323 @@
+package org.openjpa.ide.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.openjpa.ide.core.openjpa.ClassResult;
+import org.openjpa.ide.core.openjpa.EnhanceRequest;
+import org.openjpa.ide.core.openjpa.EnhanceResponse;
+import org.openjpa.ide.core.openjpa.EnhancerDaemon;
+import org.openjpa.ide.core.openjpa.EnhancerDaemonMain;
+import org.openjpa.ide.core.openjpa.ModuleEnhancer;
+import org.openjpa.ide.core.util.ClassFileInfo;
+import org.openjpa.ide.core.util.ClassFileScanner;
+import org.openjpa.ide.core.util.FileExtensionScanner;
+
+/**
+ * End-to-end enhancement harness over a synthetic multi-module project (see {@link SyntheticProject}),
+ * running without an IDE.<br/>
+ * <br/>
+ * Drives the same steps as the IDE plugin for every module: discovery of metadata files and annotated classes
+ * in the output directory, metadata parsing, planning ({@link EnhancementPlanner}) and enhancement of the planned
+ * classes ({@link ModuleEnhancer} or {@link EnhancerDaemon}), using the enhancer core directly
+ * (the IDE uses VFS and its file index for discovery).
+ * Reports wall time and peak heap per phase and enhanced classes per second.<br/>
+ * <br/>
+ * Options: --modules M, --classes K (per module), --mode inprocess|parallel|daemon, --workers N (parallel mode),
+ * --runs R, --openjpa &lt;jar&gt; (defaults to system property {@value SyntheticClassPath#OPENJPA_JAR_PROPERTY}).
+ */
+public class EnhancementHarness {
+
+    private static final Set<String> METADATA_EXTENSIONS = Collections.singleton("xml");
+
+    private static final Set<String> CLASS_EXTENSIONS = Collections.singleton("class");
+
+    /**
+     * JPA annotations marking classes to enhance (same as the plugin's JPA persistence api)
+     */
+    private static final Set<String> ANNOTATION_NAMES = new HashSet<String>(Arrays.asList(
+            "javax.persistence.Entity", "javax.persistence.MappedSuperclass", "javax.persistence.Embeddable"));
+
+    private static final long MB = 1024L * 1024L;
+
+    private static final String USAGE = "usage: EnhancementHarness [--modules M] [--classes K]"
+            + " [--mode inprocess|parallel|daemon] [--workers N] [--runs R] [--openjpa <jar>]";
+
+    private enum Mode {
+        INPROCESS, PARALLEL, DAEMON
+    }
+
+    private int moduleCount = 10;
+
+    private int classesPerModule = 100;
+
+    private Mode mode = Mode.INPROCESS;
+
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+
+    private int runCount = 3;
+
+    private File openJpaJar = System.getProperty(SyntheticClassPath.OPENJPA_JAR_PROPERTY) == null
+            ? null : new File(System.getProperty(SyntheticClassPath.OPENJPA_JAR_PROPERTY));
+
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public static void main(final String[] args) throws Exception {
+        final EnhancementHarness harness = new EnhancementHarness();
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value of option " + args[i] + '\n' + USAGE);
+            }
+            final String value = args[i + 1];
+            if ("--modules".equals(args[i])) {
+                harness.moduleCount = Integer.parseInt(value);
+            } else if ("--classes".equals(args[i])) {
+                harness.classesPerModule = Integer.parseInt(value);
+            } else if ("--mode".equals(args[i])) {
+                harness.mode = Mode.valueOf(value.toUpperCase());
+            } else if ("--workers".equals(args[i])) {
+                harness.workerCount = Integer.parseInt(value);
+            } else if ("--runs".equals(args[i])) {
+                harness.runCount = Integer.parseInt(value);
+            } else if ("--openjpa".equals(args[i])) {
+                harness.openJpaJar = new File(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i] + '\n' + USAGE);
+            }
+        }
+        if (harness.openJpaJar == null || !harness.openJpaJar.isFile()) {
+            throw new IllegalStateException("OpenJpa jar not found, use --openjpa <path to openjpa-all.jar>");
+        }
+        harness.run();
+    }
+
+    //
+    // Helper methods
+    //
+
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    private void run() throws Exception {
+        final Path root = Files.createTempDirectory("enhancement-harness");
+        final List<URL> classPath = Collections.singletonList(this.openJpaJar.toURI().toURL());
+        final EnhancerDaemon daemon = this.mode == Mode.DAEMON ? startDaemon() : null;
+        try {
+            final long start = System.nanoTime();
+            final SyntheticProject project = SyntheticProject.generate(root.resolve("pristine"), this.moduleCount,
+                    this.classesPerModule, this.openJpaJar);
+            System.out.println("generated " + this.moduleCount + " modules x " + this.classesPerModule + " classes in "
+                    + (System.nanoTime() - start) / 1000000L + " ms, mode " + this.mode
+                    + (this.mode == Mode.PARALLEL ? " (" + this.workerCount + " workers)" : ""));
+
+            for (int run = 1; run <= this.runCount; ++run) {
+                final Path runDirectory = root.resolve("run" + run);
+                final List<Path> outputDirectories = project.copyOutputDirectories(runDirectory);
+                System.out.println("run " + run);
+                this.runOnce(outputDirectories, classPath, daemon);
+                SyntheticProject.delete(runDirectory);
+            }
+        } finally {
+            if (daemon != null) {
+                daemon.shutdown();
+            }
+            SyntheticProject.delete(root);
+        }
+    }
+
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    private void runOnce(final List<Path> outputDirectories, final List<URL> classPath, final EnhancerDaemon daemon)
+            throws Exception {
+
+        //
+        // discovery
+
+        Phase phase = Phase.start();
+        final Map<Path, List<Path>> metadataFiles = new LinkedHashMap<Path, List<Path>>();
+        final Map<Path, EnhancementPlanner> planners = new LinkedHashMap<Path, EnhancementPlanner>();
+        int annotatedCount = 0;
+        for (final Path outputDirectory : outputDirectories) {
+            metadataFiles.put(outputDirectory, FileExtensionScanner.findFilesByExtensions(outputDirectory, METADATA_EXTENSIONS));
+            // full build: everything is changed
+            final EnhancementPlanner planner = new EnhancementPlanner(toPath(outputDirectory), null);
+            for (final Path classFile : FileExtensionScanner.findFilesByExtensions(outputDirectory, CLASS_EXTENSIONS)) {
+                if (isAnnotated(classFile)) {
+                    planner.addAnnotatedClassFile(toPath(classFile));
+                    ++annotatedCount;
+                }
+            }
+            planners.put(outputDirectory, planner);
+        }
+        phase.report("discovery", annotatedCount + " annotated classes");
+
+        //
+        // parse
+
+        phase = Phase.start();
+        int mappedCount = 0;
+        for (final Map.Entry<Path, List<Path>> entry : metadataFiles.entrySet()) {
+            final EnhancementPlanner planner = planners.get(entry.getKey());
+            for (final Path metadataFile : entry.getValue()) {
+                final Set<String> classNames = MetadataParser.parseQualifiedClassNames(metadataFile);
+                planner.addMetadataFile(toPath(metadataFile), classNames);
+                mappedCount += classNames.size();
+            }
+        }
+        final List<EnhanceRequest> requests = new ArrayList<EnhanceRequest>(planners.size());
+        final List<String> urls = new ArrayList<String>(classPath.size());
+        for (final URL url : classPath) {
+            urls.add(url.toExternalForm());
+        }
+        for (final Map.Entry<Path, EnhancementPlanner> entry : planners.entrySet()) {
+            final ModulePlan plan = entry.getValue().plan();
+            if (!plan.isEmpty()) {
+                // the plugin's default settings
+                requests.add(new EnhanceRequest(urls, entry.getKey().toUri().toURL().toExternalForm(),
+                        true, true, true, plan.getClassFiles()));
+            }
+        }
+        phase.report("parse", mappedCount + " mapped classes");
+
+        //
+        // enhance
+
+        phase = Phase.start();
+        final int[] counts;
+        if (this.mode == Mode.DAEMON) {
+            counts = new int[3];
+            for (final EnhanceRequest request : requests) {
+                add(counts, daemon.enhance(request));
+            }
+        } else {
+            counts = this.enhanceInProcess(requests);
+        }
+        final double seconds = phase.elapsedNanos() / 1e9;
+        phase.report("enhance", counts[0] + " enhanced, " + counts[1] + " unchanged, " + counts[2] + " failed, "
+                + Math.round(counts[0] / seconds) + " classes/s");
+    }
+
+    private int[] enhanceInProcess(final List<EnhanceRequest> requests) throws Exception {
+        // shared library loader kept warm, like the IDE's pooled loaders
+        final ClassLoaderPool pool = new ClassLoaderPool(1);
+        final ModuleEnhancer enhancer = new ModuleEnhancer(pool);
+        final int workers = this.mode == Mode.PARALLEL ? Math.max(1, this.workerCount) : 1;
+        final ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            final List<Future<EnhanceResponse>> results = new ArrayList<Future<EnhanceResponse>>();
+            for (final EnhanceRequest request : requests) {
+                results.add(executor.submit(new Callable<EnhanceResponse>() {
+                    @Override
+                    public EnhanceResponse call() throws Exception {
+                        return enhancer.enhance(request);
+                    }
+                }));
+            }
+            final int[] counts = new int[3];
+            for (final Future<EnhanceResponse> result : results) {
+                add(counts, result.get());
+            }
+            return counts;
+        } finally {
+            executor.shutdown();
+            pool.invalidate();
+        }
+    }
+
+    /**
+     * Start a daemon running the core classes of this VM's class path.
+     */
+    private static EnhancerDaemon startDaemon() throws Exception {
+        final String classPath = new File(EnhancerDaemonMain.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI()).getPath();
+        return EnhancerDaemon.start(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                Collections.<String>emptyList(), classPath);
+    }
+
+    private static boolean isAnnotated(final Path classFile) throws IOException {
+        final InputStream in = Files.newInputStream(classFile);
+        try {
+            final ClassFileInfo info = ClassFileScanner.scan(in);
+            for (final String annotation : info.getAnnotations()) {
+                if (ANNOTATION_NAMES.contains(annotation)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void add(final int[] counts, final EnhanceResponse response) {
+        counts[0] += response.count(ClassResult.ENHANCED);
+        counts[1] += response.count(ClassResult.UNCHANGED);
+        counts[2] += response.count(ClassResult.FAILED);
+    }
+
+    /**
+     * Paths as the IDE reports them (forward slashes), see {@link EnhancementPlanner#toClassFile(String, String)}.
+     */
+    @SuppressWarnings("MagicCharacter")
+    private static String toPath(final Path path) {
+        return path.toString().replace(File.separatorChar, '/');
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Wall time and peak heap (sum of the heap pools' peaks) of a phase.
+     */
+    private static class Phase {
+
+        private final long start;
+
+        private Phase(final long start) {
+            this.start = start;
+        }
+
+        static Phase start() {
+            for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+            return new Phase(System.nanoTime());
+        }
+
+        long elapsedNanos() {
+            return System.nanoTime() - this.start;
+        }
+
+        @SuppressWarnings("UseOfSystemOutOrSystemErr")
+        void report(final String name, final String details) {
+            final long elapsedMillis = this.elapsedNanos() / 1000000L;
+            long peakHeap = 0;
+            for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peakHeap += pool.getPeakUsage().getUsed();
+                }
+            }
+            System.out.println(String.format("  %-10s %8d ms  peak heap %5d MB  %s", name, elapsedMillis, peakHeap / MB, details));
+        }
+
+    }
+
+}
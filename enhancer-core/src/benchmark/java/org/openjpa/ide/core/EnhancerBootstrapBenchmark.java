@@ -0,0 +1,183 @@
+package org.openjpa.ide.core;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjpa.ide.core.openjpa.OpenJpaEnhancerInvoker;
+
+/**
+ * Benchmarks the fixed per module cost of creating an enhancer ClassLoader and bootstrapping OpenJpa's PCEnhancer
+ * and OpenJPAConfigurationImpl in it (as the IDE's in-process enhancer proxy does),
+ * on a synthetic classpath of N jars (see {@link SyntheticClassPath}).
+ * <ul>
+ * <li>cold: first bootstrap in a fresh JVM</li>
+ * <li>newLoader: new loader per module, JVM warmed up</li>
+ * <li>pooledLoader: shared pooled loader plus a module loader, as done by the IDE since loaders are pooled</li>
+ * <li>retainedMetaspace: metaspace retained per bootstrapped loader (aux counter)</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class EnhancerBootstrapBenchmark {
+
+    private static final String CONFIG_CLASS_FQ = "org.apache.openjpa.conf.OpenJPAConfigurationImpl";
+
+    private static final int RETAINED_LOADER_COUNT = 10;
+
+    @Param({"10", "100"})
+    private int jarCount;
+
+    private List<URL> classPath;
+
+    private ClassLoaderPool pool;
+
+    @Setup(Level.Trial)
+    public void createClassPath() throws IOException {
+        this.classPath = SyntheticClassPath.create(this.jarCount);
+        this.pool = new ClassLoaderPool(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void closePool() {
+        this.pool.invalidate();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public Object cold() throws Exception {
+        return this.bootstrapInNewLoader();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public Object newLoader() throws Exception {
+        return this.bootstrapInNewLoader();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object pooledLoader() throws Exception {
+        final URLClassLoader parent = this.pool.acquire(this.classPath);
+        try {
+            // the module output directory is not needed for bootstrapping
+            final URLClassLoader moduleClassLoader = new URLClassLoader(new URL[0], parent);
+            try {
+                return bootstrap(moduleClassLoader);
+            } finally {
+                moduleClassLoader.close();
+            }
+        } finally {
+            this.pool.release(parent);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public List<URLClassLoader> retainedMetaspace(final MetaspaceCounters counters) throws Exception {
+        final long before = usedMetaspace();
+        final List<URLClassLoader> loaders = new ArrayList<URLClassLoader>(RETAINED_LOADER_COUNT);
+        for (int i = 0; i < RETAINED_LOADER_COUNT; ++i) {
+            final URLClassLoader loader = new URLClassLoader(this.classPath.toArray(new URL[this.classPath.size()]));
+            bootstrap(loader);
+            loaders.add(loader);
+        }
+        counters.metaspaceBytesPerLoader = (usedMetaspace() - before) / RETAINED_LOADER_COUNT;
+
+        for (final URLClassLoader loader : loaders) {
+            loader.close();
+        }
+        return loaders;
+    }
+
+    //
+    // Helper methods
+    //
+
+    private Object bootstrapInNewLoader() throws Exception {
+        final URLClassLoader loader = new URLClassLoader(this.classPath.toArray(new URL[this.classPath.size()]));
+        try {
+            return bootstrap(loader);
+        } finally {
+            loader.close();
+        }
+    }
+
+    /**
+     * Load the enhancer classes and create a configuration, like an enhancer run does before enhancing.
+     */
+    private static Object bootstrap(final ClassLoader loader)
+            throws ClassNotFoundException, IllegalAccessException, InstantiationException, NoSuchMethodException,
+            InvocationTargetException {
+        new OpenJpaEnhancerInvoker(loader);
+        final Class<?> configClass = Class.forName(CONFIG_CLASS_FQ, true, loader);
+        final Object config = configClass.newInstance();
+        configClass.getMethod("setSpecification", String.class).invoke(config, "jpa");
+        return config;
+    }
+
+    @SuppressWarnings("CallToSystemGC")
+    private static long usedMetaspace() {
+        System.gc();
+        long used = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if ("Metaspace".equals(pool.getName()) || pool.getName().contains("Perm Gen")) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Reported next to the timings of {@link #retainedMetaspace(MetaspaceCounters)}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MetaspaceCounters {
+
+        public long metaspaceBytesPerLoader;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.metaspaceBytesPerLoader = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.openjpa.ide.core;
+
+import java.io.ByteArrayInputStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link MetadataParser#parseQualifiedClassNames(java.io.InputStream)} on synthetic mapping files
+ * (see {@link SyntheticMetadata}).<br/>
+ * <br/>
+ * Reports throughput and latency percentiles (sample time), run with '-prof gc' for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+public class MetadataParserBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int classCount;
+
+    @Param({"JPA", "JDO", "ORM"})
+    private SyntheticMetadata.Format format;
+
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void generate() throws XMLStreamException {
+        this.content = SyntheticMetadata.generate(this.format, this.classCount);
+
+        // make sure the parser sees all classes, otherwise numbers are meaningless
+        final Set<String> classNames = this.parse();
+        if (classNames.size() != this.classCount || !classNames.contains(SyntheticMetadata.className(this.classCount - 1))) {
+            throw new IllegalStateException("Parsed " + classNames.size() + " of " + this.classCount + " classes");
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Set<String> throughput() throws XMLStreamException {
+        return this.parse();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Set<String> latency() throws XMLStreamException {
+        return this.parse();
+    }
+
+    //
+    // Helper methods
+    //
+
+    private Set<String> parse() throws XMLStreamException {
+        return MetadataParser.parseQualifiedClassNames(new ByteArrayInputStream(this.content));
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.openjpa.ide.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Generates a synthetic module classpath for benchmarks: a number of library jars followed by the OpenJpa jar
+ * (system property {@link #OPENJPA_JAR_PROPERTY}, set by the benchmark profile).<br/>
+ * <br/>
+ * The OpenJpa jar comes last, so every enhancer class lookup has to pass all other jars like in
+ * projects with many dependencies.
+ */
+public abstract class SyntheticClassPath {
+
+    public static final String OPENJPA_JAR_PROPERTY = "benchmark.openjpa.jar";
+
+    private static final int ENTRIES_PER_JAR = 50;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private SyntheticClassPath() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Create the classpath in a new temporary directory (deleted on exit).
+     *
+     * @param jarCount number of library jars in front of the OpenJpa jar
+     * @return classpath urls, OpenJpa jar last
+     * @throws IOException .
+     */
+    public static List<URL> create(final int jarCount) throws IOException {
+        final String openJpaJar = System.getProperty(OPENJPA_JAR_PROPERTY);
+        if (openJpaJar == null || !new File(openJpaJar).isFile()) {
+            throw new IllegalStateException("OpenJpa jar not found, set -D" + OPENJPA_JAR_PROPERTY + "=<path to openjpa-all.jar>");
+        }
+
+        final File directory = File.createTempFile("benchmark-classpath", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Can't create " + directory);
+        }
+        directory.deleteOnExit();
+
+        final List<URL> urls = new ArrayList<URL>(jarCount + 1);
+        for (int i = 0; i < jarCount; ++i) {
+            final File jar = new File(directory, "lib" + i + ".jar");
+            writeJar(jar, i);
+            jar.deleteOnExit();
+            urls.add(jar.toURI().toURL());
+        }
+        urls.add(new File(openJpaJar).toURI().toURL());
+        return urls;
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static void writeJar(final File jar, final int index) throws IOException {
+        final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (int i = 0; i < ENTRIES_PER_JAR; ++i) {
+                out.putNextEntry(new JarEntry("org/example/lib" + index + "/Resource" + i + ".txt"));
+                out.write(("resource " + i).getBytes(UTF_8));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+}
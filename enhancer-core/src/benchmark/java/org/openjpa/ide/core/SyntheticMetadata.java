@@ -0,0 +1,114 @@
+package org.openjpa.ide.core;
+
+import java.nio.charset.Charset;
+
+/**
+ * Generates synthetic persistence metadata files for benchmarks.<br/>
+ * <br/>
+ * Classes are spread over packages of {@link #CLASSES_PER_PACKAGE} classes, every class maps a few attributes,
+ * so the parser has to skip nested elements as in real mapping files.
+ */
+public abstract class SyntheticMetadata {
+
+    public static final int CLASSES_PER_PACKAGE = 100;
+
+    private static final int FIELDS_PER_CLASS = 4;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private SyntheticMetadata() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Supported metadata file formats.
+     */
+    public enum Format {
+        /**
+         * JPA orm file, root element 'entity-mappings'
+         */
+        JPA,
+        /**
+         * JDO '.jdo' file, root element 'jdo'
+         */
+        JDO,
+        /**
+         * JDO '.orm' file, root element 'orm'
+         */
+        ORM
+    }
+
+    /**
+     * Generate a metadata file.
+     *
+     * @param format     the file format
+     * @param classCount number of mapped classes
+     * @return the file's (utf-8 encoded) content
+     */
+    public static byte[] generate(final Format format, final int classCount) {
+        final StringBuilder sb = new StringBuilder(classCount * 256);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        if (format == Format.JPA) {
+            appendJpa(sb, classCount);
+        } else {
+            appendJdo(sb, format == Format.JDO ? "jdo" : "orm", classCount);
+        }
+        return sb.toString().getBytes(UTF_8);
+    }
+
+    /**
+     * @param index class index
+     * @return fully qualified name of the generated class
+     */
+    public static String className(final int index) {
+        return packageName(index) + ".Entity" + index;
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static String packageName(final int index) {
+        return "org.example.model.p" + index / CLASSES_PER_PACKAGE;
+    }
+
+    private static void appendJpa(final StringBuilder sb, final int classCount) {
+        sb.append("<entity-mappings xmlns=\"http://java.sun.com/xml/ns/persistence/orm\" version=\"2.0\">\n");
+        sb.append("  <description>synthetic mapping</description>\n");
+        for (int i = 0; i < classCount; ++i) {
+            // mostly entities, some mapped super classes and embeddables
+            final String element = i % 10 == 0 ? "mapped-superclass" : i % 10 == 1 ? "embeddable" : "entity";
+            sb.append("  <").append(element).append(" class=\"").append(className(i)).append("\">\n");
+            sb.append("    <attributes>\n");
+            for (int f = 0; f < FIELDS_PER_CLASS; ++f) {
+                sb.append("      <basic name=\"field").append(f).append("\"><column name=\"FIELD_").append(f)
+                        .append("\"/></basic>\n");
+            }
+            sb.append("    </attributes>\n");
+            sb.append("  </").append(element).append(">\n");
+        }
+        sb.append("</entity-mappings>\n");
+    }
+
+    private static void appendJdo(final StringBuilder sb, final String rootElement, final int classCount) {
+        sb.append('<').append(rootElement).append(">\n");
+        for (int i = 0; i < classCount; ++i) {
+            if (i % CLASSES_PER_PACKAGE == 0) {
+                if (i > 0) {
+                    sb.append("  </package>\n");
+                }
+                sb.append("  <package name=\"").append(packageName(i)).append("\">\n");
+            }
+            sb.append("    <class name=\"Entity").append(i).append("\" identity-type=\"datastore\">\n");
+            for (int f = 0; f < FIELDS_PER_CLASS; ++f) {
+                sb.append("      <field name=\"field").append(f).append("\" persistence-modifier=\"persistent\"/>\n");
+            }
+            sb.append("    </class>\n");
+        }
+        if (classCount > 0) {
+            sb.append("  </package>\n");
+        }
+        sb.append("</").append(rootElement).append(">\n");
+    }
+
+}
@@ -0,0 +1,221 @@
+package org.openjpa.ide.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Generates a synthetic multi-module project for the {@link EnhancementHarness}: every module's output directory
+ * contains compiled (unenhanced) JPA classes and a 'META-INF/orm.xml' listing them.<br/>
+ * <br/>
+ * Each module has one mapped superclass, an embeddable per ten classes and entities for the rest.
+ * Entities extend the mapped superclass and embed one of the embeddables.
+ */
+public class SyntheticProject {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int CLASSES_PER_EMBEDDABLE = 10;
+
+    private final Path root;
+
+    private final List<Path> outputDirectories;
+
+    private SyntheticProject(final Path root, final List<Path> outputDirectories) {
+        this.root = root;
+        this.outputDirectories = outputDirectories;
+    }
+
+    /**
+     * Generate and compile the project.
+     *
+     * @param root            directory to generate to (module output directories are 'module&lt;i&gt;/classes')
+     * @param moduleCount     number of modules
+     * @param classesPerModule number of persistent classes per module (at least 2)
+     * @param openJpaJar      OpenJpa jar, containing the javax.persistence annotations
+     * @return the project
+     * @throws IOException if generating or compiling fails
+     */
+    public static SyntheticProject generate(final Path root,
+                                            final int moduleCount,
+                                            final int classesPerModule,
+                                            final File openJpaJar) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No java compiler available, run with a JDK");
+        }
+
+        final List<Path> outputDirectories = new ArrayList<Path>(moduleCount);
+        for (int m = 0; m < moduleCount; ++m) {
+            final Path moduleDirectory = root.resolve("module" + m);
+            final Path sourceDirectory = moduleDirectory.resolve("src");
+            final Path outputDirectory = moduleDirectory.resolve("classes");
+            Files.createDirectories(outputDirectory.resolve("META-INF"));
+
+            final String packageName = "org.example.module" + m;
+            final List<String> classNames = writeSources(sourceDirectory, packageName, Math.max(2, classesPerModule));
+            writeOrmXml(outputDirectory.resolve("META-INF").resolve("orm.xml"), classNames);
+
+            final List<String> arguments = new ArrayList<String>(Arrays.asList(
+                    "-nowarn", "-proc:none", "-cp", openJpaJar.getPath(), "-d", outputDirectory.toString()));
+            for (final String className : classNames) {
+                arguments.add(sourceDirectory.resolve(className.replace('.', File.separatorChar) + ".java").toString());
+            }
+            if (compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])) != 0) {
+                throw new IOException("Compiling module " + m + " failed");
+            }
+            outputDirectories.add(outputDirectory);
+        }
+        return new SyntheticProject(root, outputDirectories);
+    }
+
+    public Path getRoot() {
+        return this.root;
+    }
+
+    public List<Path> getOutputDirectories() {
+        return new ArrayList<Path>(this.outputDirectories);
+    }
+
+    /**
+     * Copy all module output directories, so every run starts with unenhanced classes.
+     *
+     * @param target directory to copy to
+     * @return output directories of the copy
+     * @throws IOException .
+     */
+    public List<Path> copyOutputDirectories(final Path target) throws IOException {
+        final List<Path> copies = new ArrayList<Path>(this.outputDirectories.size());
+        for (final Path outputDirectory : this.outputDirectories) {
+            final Path copy = target.resolve(this.root.relativize(outputDirectory));
+            copyTree(outputDirectory, copy);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * Delete a directory tree.
+     *
+     * @param directory .
+     * @throws IOException .
+     */
+    public static void delete(final Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static List<String> writeSources(final Path sourceDirectory, final String packageName, final int classCount)
+            throws IOException {
+        final Path packageDirectory = sourceDirectory.resolve(packageName.replace('.', File.separatorChar));
+        Files.createDirectories(packageDirectory);
+
+        final List<String> classNames = new ArrayList<String>(classCount);
+        final int embeddableCount = Math.max(1, classCount / CLASSES_PER_EMBEDDABLE);
+
+        write(packageDirectory.resolve("BaseEntity.java"), "package " + packageName + ";\n\n"
+                + "@javax.persistence.MappedSuperclass\n"
+                + "public abstract class BaseEntity {\n"
+                + "    @javax.persistence.Id @javax.persistence.GeneratedValue private long id;\n"
+                + "    @javax.persistence.Version private int version;\n"
+                + "    public long getId() { return this.id; }\n"
+                + "}\n");
+        classNames.add(packageName + ".BaseEntity");
+
+        for (int e = 0; e < embeddableCount && classNames.size() < classCount; ++e) {
+            write(packageDirectory.resolve("Address" + e + ".java"), "package " + packageName + ";\n\n"
+                    + "@javax.persistence.Embeddable\n"
+                    + "public class Address" + e + " {\n"
+                    + "    private String street;\n"
+                    + "    private String city;\n"
+                    + "    public String getCity() { return this.city; }\n"
+                    + "}\n");
+            classNames.add(packageName + ".Address" + e);
+        }
+
+        for (int i = 0; classNames.size() < classCount; ++i) {
+            write(packageDirectory.resolve("Entity" + i + ".java"), "package " + packageName + ";\n\n"
+                    + "@javax.persistence.Entity\n"
+                    + "public class Entity" + i + " extends BaseEntity {\n"
+                    + "    private String name;\n"
+                    + "    private int count;\n"
+                    + "    @javax.persistence.Embedded private Address" + (i % embeddableCount) + " address;\n"
+                    + "    public String getName() { return this.name; }\n"
+                    + "    public void setName(final String name) { this.name = name; }\n"
+                    + "}\n");
+            classNames.add(packageName + ".Entity" + i);
+        }
+        return classNames;
+    }
+
+    private static void writeOrmXml(final Path file, final List<String> classNames) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<entity-mappings xmlns=\"http://java.sun.com/xml/ns/persistence/orm\" version=\"2.0\">\n");
+        for (final String className : classNames) {
+            final String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            final String element = simpleName.startsWith("Base") ? "mapped-superclass"
+                    : simpleName.startsWith("Address") ? "embeddable" : "entity";
+            sb.append("  <").append(element).append(" class=\"").append(className).append("\"/>\n");
+        }
+        sb.append("</entity-mappings>\n");
+        write(file, sb.toString());
+    }
+
+    private static void write(final Path file, final String content) throws IOException {
+        final Writer writer = Files.newBufferedWriter(file, UTF_8);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void copyTree(final Path source, final Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, target.resolve(source.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
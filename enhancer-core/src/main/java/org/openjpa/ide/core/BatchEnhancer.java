@@ -0,0 +1,183 @@
+package org.openjpa.ide.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enhances the classes of a module in batches of a limited size, isolating failing classes.<br/>
+ * <br/>
+ * A failing batch is split in halves which are enhanced again, until the failing classes are enhanced on their
+ * own. All other classes are still enhanced, the failing ones are reported per class file. Classes enhanced by a
+ * failed run are expected to be skipped by following runs (see {@link Batch#enhance(List)}).<br/>
+ * <br/>
+ * Each batch (including its split runs) is a checkpoint: a {@link Checkpoint} is notified of its enhanced classes
+ * and may abort the remaining batches (e.g. on cancellation).
+ */
+public class BatchEnhancer {
+
+    private final int batchSize;
+
+    /**
+     * @param batchSize maximum number of classes per enhancer run (0 or less for all classes in one run)
+     */
+    public BatchEnhancer(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Enhance all classes in batches.
+     *
+     * @param classFiles class files to enhance
+     * @param batch      runs the enhancer
+     * @param <X>        exception aborting the whole enhancement (e.g. enhancer not found)
+     * @return number of enhanced classes and the failing classes
+     * @throws X if a batch aborts the enhancement
+     */
+    public <X extends Exception> Result enhance(final List<String> classFiles, final Batch<X> batch) throws X {
+        return this.enhance(classFiles, batch, (Checkpoint<X>) null);
+    }
+
+    /**
+     * Enhance all classes in batches, notifying a checkpoint after each batch.
+     *
+     * @param classFiles class files to enhance
+     * @param batch      runs the enhancer
+     * @param checkpoint notified after each batch, null for none
+     * @param <X>        exception aborting the whole enhancement (e.g. enhancer not found)
+     * @return number of enhanced classes and the failing classes
+     * @throws X if a batch or the checkpoint aborts the enhancement
+     */
+    public <X extends Exception> Result enhance(final List<String> classFiles,
+                                                final Batch<X> batch,
+                                                final Checkpoint<X> checkpoint) throws X {
+        final Result result = new Result();
+        final int size = this.batchSize > 0 ? this.batchSize : Math.max(1, classFiles.size());
+        for (int from = 0; from < classFiles.size(); from += size) {
+            final int to = Math.min(classFiles.size(), from + size);
+            final List<String> batchClassFiles = classFiles.subList(from, to);
+            this.enhance(batchClassFiles, batch, result);
+            if (checkpoint != null) {
+                final List<String> enhancedClassFiles = new ArrayList<String>(batchClassFiles.size());
+                for (final String classFile : batchClassFiles) {
+                    if (!result.failures.containsKey(classFile)) {
+                        enhancedClassFiles.add(classFile);
+                    }
+                }
+                checkpoint.reached(enhancedClassFiles, to, classFiles.size());
+            }
+        }
+        return result;
+    }
+
+    //
+    // Helper methods
+    //
+
+    @SuppressWarnings("unchecked")
+    private <X extends Exception> void enhance(final List<String> classFiles, final Batch<X> batch, final Result result)
+            throws X {
+        final Throwable failure;
+        ++result.batches;
+        try {
+            result.enhanced += batch.enhance(new ArrayList<String>(classFiles));
+            return;
+        } catch (InvocationTargetException e) {
+            failure = e.getCause() == null ? e : e.getCause();
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (Exception e) {
+            // not caused by the enhanced classes
+            throw (X) e;
+        }
+
+        if (classFiles.size() == 1) {
+            result.failures.put(classFiles.get(0), String.valueOf(failure));
+        } else {
+            final int half = classFiles.size() / 2;
+            this.enhance(classFiles.subList(0, half), batch, result);
+            this.enhance(classFiles.subList(half, classFiles.size()), batch, result);
+        }
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * A single enhancer run.
+     *
+     * @param <X> exception aborting the whole enhancement
+     */
+    public interface Batch<X extends Exception> {
+
+        /**
+         * Enhance the given classes, classes already enhanced (e.g. by a failed run of a larger batch) should be
+         * skipped and not be counted.
+         *
+         * @param classFiles class files of the batch
+         * @return number of enhanced classes
+         * @throws InvocationTargetException if the enhancer fails, the batch is split (as for runtime exceptions)
+         * @throws X                         if the whole enhancement must be aborted
+         */
+        int enhance(List<String> classFiles) throws InvocationTargetException, X;
+
+    }
+
+    /**
+     * Notified after each batch, outside of the enhancer run (exceptions are not taken as enhancer failures).
+     *
+     * @param <X> exception aborting the whole enhancement
+     */
+    public interface Checkpoint<X extends Exception> {
+
+        /**
+         * A batch completed.
+         *
+         * @param enhancedClassFiles class files of the batch that did not fail
+         * @param completed          number of class files of all completed batches
+         * @param total              number of class files to enhance
+         * @throws X if the remaining batches must not be enhanced
+         */
+        void reached(List<String> enhancedClassFiles, int completed, int total) throws X;
+
+    }
+
+    /**
+     * Outcome of a batched enhancement.
+     */
+    public static class Result {
+
+        private int enhanced;
+
+        private int batches;
+
+        private final Map<String, String> failures = new LinkedHashMap<String, String>();
+
+        /**
+         * @return number of enhanced classes
+         */
+        public int getEnhanced() {
+            return this.enhanced;
+        }
+
+        /**
+         * @return number of enhancer runs, including the runs of split batches
+         */
+        public int getBatches() {
+            return this.batches;
+        }
+
+        /**
+         * @return failure message per failing class file
+         */
+        public Map<String, String> getFailures() {
+            return Collections.unmodifiableMap(this.failures);
+        }
+
+    }
+
+}
@@ -0,0 +1,176 @@
+package org.openjpa.ide.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool of reference counted ClassLoaders, shared by all modules with the same (normalized) classpath.<br/>
+ * <br/>
+ * Loaders are keyed by {@link #fingerprint(java.util.Collection)} of their url list without duplicates.
+ * Every {@link #acquire(java.util.Collection)} has to be paired with a {@link #release(java.net.URLClassLoader)},
+ * the loader is closed (releasing its jar handles) as soon as it's no longer referenced, unless the pool
+ * keeps a number of idle loaders warm for later use.<br/>
+ * <br/>
+ * {@link #invalidate()} removes all loaders from the pool (e.g. on module dependency changes), loaders in use
+ * are closed on their last release.<br/>
+ * <br/>
+ * Only depends on the JDK, so it's usable outside of the IDE (see
+ * {@link org.openjpa.ide.core.openjpa.EnhancerDaemonMain}).
+ */
+public class ClassLoaderPool {
+
+    private final Map<String, PooledClassLoader> pooled = new HashMap<String, PooledClassLoader>();
+
+    /**
+     * Unreferenced loaders kept open, least recently released first
+     */
+    private final Map<String, PooledClassLoader> idle = new LinkedHashMap<String, PooledClassLoader>();
+
+    private final int maxIdle;
+
+    /**
+     * Create a pool closing loaders as soon as they're no longer referenced.
+     */
+    public ClassLoaderPool() {
+        this(0);
+    }
+
+    /**
+     * @param maxIdle number of unreferenced loaders to keep open for reuse
+     */
+    public ClassLoaderPool(final int maxIdle) {
+        this.maxIdle = Math.max(0, maxIdle);
+    }
+
+    /**
+     * Get a pooled ClassLoader for the classpath, creating it if none exists.
+     *
+     * @param urls the classpath
+     * @return loader which has to be released after use
+     */
+    public synchronized URLClassLoader acquire(final Collection<URL> urls) {
+        final List<URL> normalized = new ArrayList<URL>(new LinkedHashSet<URL>(urls));
+        final String key = fingerprint(normalized);
+
+        PooledClassLoader loader = this.pooled.get(key);
+        if (loader == null) {
+            loader = new PooledClassLoader(key, normalized.toArray(new URL[normalized.size()]));
+            this.pooled.put(key, loader);
+        }
+        this.idle.remove(key);
+        ++loader.references;
+        return loader;
+    }
+
+    /**
+     * Release a loader acquired before, closing it if it's no longer referenced (and not kept idle).
+     *
+     * @param classLoader loader returned by {@link #acquire(java.util.Collection)}
+     */
+    public synchronized void release(final URLClassLoader classLoader) {
+        final PooledClassLoader loader = (PooledClassLoader) classLoader;
+        if (loader.references <= 0) {
+            throw new IllegalStateException("ClassLoader released more often than acquired: " + loader.key);
+        }
+        --loader.references;
+        if (loader.references == 0) {
+            if (this.pooled.get(loader.key) != loader) {
+                // invalidated meanwhile
+                close(loader);
+            } else if (this.maxIdle > 0) {
+                this.idle.put(loader.key, loader);
+                this.evictIdle(this.maxIdle);
+            } else {
+                this.pooled.remove(loader.key);
+                close(loader);
+            }
+        }
+    }
+
+    /**
+     * Remove all loaders from the pool, loaders in use are closed on their last release.
+     */
+    public synchronized void invalidate() {
+        this.evictIdle(0);
+        this.pooled.clear();
+    }
+
+    /**
+     * Creates a fingerprint of a classpath, which changes as soon as an entry is added, removed,
+     * reordered or an archive is replaced (size or modification time differ).<br/>
+     * <br/>
+     * Directories (e.g. module output folders) only contribute their path, as their content
+     * changes with every build.
+     *
+     * @param urls the classpath
+     * @return .
+     */
+    @SuppressWarnings("MagicCharacter")
+    public static String fingerprint(final Collection<URL> urls) {
+        final StringBuilder sb = new StringBuilder();
+        for (final URL url : urls) {
+            sb.append(url.toExternalForm());
+            if ("file".equals(url.getProtocol())) {
+                final File file = new File(url.getPath());
+                if (file.isFile()) {
+                    sb.append('@').append(file.length()).append(':').append(file.lastModified());
+                }
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    //
+    // Helper methods
+    //
+
+    private void evictIdle(final int keep) {
+        final Iterator<PooledClassLoader> iterator = this.idle.values().iterator();
+        while (this.idle.size() > keep && iterator.hasNext()) {
+            final PooledClassLoader loader = iterator.next();
+            iterator.remove();
+            this.pooled.remove(loader.key);
+            close(loader);
+        }
+    }
+
+    private static void close(final URLClassLoader loader) {
+        try {
+            loader.close();
+        } catch (IOException ignored) {
+            // nothing left to release
+        }
+    }
+
+    //
+    // Helper classes
+    //
+
+    private static class PooledClassLoader extends URLClassLoader {
+
+        private final String key;
+
+        /**
+         * Guarded by the pool
+         */
+        private int references = 0;
+
+        private PooledClassLoader(final String key, final URL[] urls) {
+            super(urls);
+            this.key = key;
+        }
+
+    }
+
+}
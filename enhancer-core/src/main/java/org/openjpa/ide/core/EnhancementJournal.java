@@ -0,0 +1,137 @@
+package org.openjpa.ide.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persisted checkpoints of a running enhancement, so a cancelled or crashed build resumes where it stopped.<br/>
+ * <br/>
+ * Every completed batch appends its enhanced class files with their length and modification time after enhancement.
+ * A following build skips class files still unchanged since ({@link #isCompleted(String)}) and clears the journal
+ * once it completed ({@link #delete()}). The journal is bound to a fingerprint of the enhancer configuration, a
+ * journal written with another configuration is ignored. A truncated last record (e.g. after a crash while
+ * appending) is ignored as well. The file is a {@link RecordLog}.
+ */
+public class EnhancementJournal {
+
+    private static final int MAGIC = 0x4f4a434a;
+
+    private static final int VERSION = 1;
+
+    private final RecordLog log;
+
+    /**
+     * Length and modification time after enhancement per class file
+     */
+    private final Map<String, long[]> completed = new HashMap<String, long[]>();
+
+    private EnhancementJournal(final File file, final String fingerprint) {
+        this.log = new RecordLog(file, MAGIC, VERSION, fingerprint);
+    }
+
+    /**
+     * Open a journal.
+     *
+     * @param file        the journal file (doesn't need to exist)
+     * @param fingerprint enhancer configuration, checkpoints of other configurations are ignored
+     * @return the journal, empty if the file doesn't exist, can't be read or belongs to another configuration
+     */
+    public static EnhancementJournal open(final File file, final String fingerprint) {
+        final EnhancementJournal journal = new EnhancementJournal(file, fingerprint);
+        try {
+            for (final Record record : journal.log.read(new RecordLog.RecordReader<Record>() {
+                @Override
+                public Record read(final ByteBuffer buffer) {
+                    return new Record(RecordLog.readString(buffer), new long[]{buffer.getLong(), buffer.getLong()});
+                }
+            })) {
+                journal.completed.put(record.classFile, record.stamp);
+            }
+        } catch (IOException ignored) {
+            // unreadable -> start empty, rewritten on the next checkpoint
+            journal.completed.clear();
+        }
+        return journal;
+    }
+
+    /**
+     * Check if a class file was enhanced by an earlier (interrupted) build and did not change since.
+     *
+     * @param classFile the class file
+     * @return true if it doesn't need to be enhanced again
+     */
+    public synchronized boolean isCompleted(final String classFile) {
+        final long[] stamp = this.completed.get(classFile);
+        if (stamp == null) {
+            return false;
+        }
+        final File file = new File(classFile);
+        return file.length() == stamp[0] && file.lastModified() == stamp[1];
+    }
+
+    /**
+     * @return number of class files enhanced by the journaled build(s)
+     */
+    public synchronized int size() {
+        return this.completed.size();
+    }
+
+    /**
+     * Record enhanced class files (a checkpoint), their current length and modification time are persisted.
+     *
+     * @param classFiles the enhanced class files
+     * @throws IOException if the journal can't be written
+     */
+    public synchronized void complete(final Collection<String> classFiles) throws IOException {
+        if (classFiles.isEmpty()) {
+            return;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(classFiles.size() * 128);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        for (final String classFile : classFiles) {
+            final File file = new File(classFile);
+            final long[] stamp = {file.length(), file.lastModified()};
+            RecordLog.writeString(out, classFile);
+            out.writeLong(stamp[0]);
+            out.writeLong(stamp[1]);
+            this.completed.put(classFile, stamp);
+        }
+        out.flush();
+        // drops an invalid tail (or a journal of another configuration)
+        this.log.append(bytes.toByteArray(), classFiles.size());
+    }
+
+    /**
+     * Remove all checkpoints, e.g. after the build completed.
+     *
+     * @throws IOException if the journal file can't be deleted
+     */
+    public synchronized void delete() throws IOException {
+        this.completed.clear();
+        this.log.delete();
+    }
+
+    //
+    // Helper classes
+    //
+
+    private static final class Record {
+
+        private final String classFile;
+
+        private final long[] stamp;
+
+        private Record(final String classFile, final long[] stamp) {
+            this.classFile = classFile;
+            this.stamp = stamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,310 @@
+package org.openjpa.ide.core;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per phase timings and counters of an enhancement run, recorded per module.<br/>
+ * <br/>
+ * Phases of parallel modules are recorded concurrently, so phase totals are summed per module durations and may
+ * exceed the run's wall time. Reported as a one line summary ({@link #toSummary()}) and as a JSON document
+ * ({@link #toJson()}).
+ */
+public class EnhancementMetrics {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * Measured phases, in execution order.
+     */
+    public enum Phase {
+
+        /**
+         * walking output directories for metadata and class files
+         */
+        SCAN("scan"),
+
+        /**
+         * parsing metadata files
+         */
+        PARSE("parse"),
+
+        /**
+         * searching annotated classes (index, PSI or class files)
+         */
+        ANNOTATION_SEARCH("annotationSearch"),
+
+        /**
+         * creating the enhancer's ClassLoader and loading the enhancer into it
+         */
+        CLASS_LOADER("classLoader"),
+
+        /**
+         * running the enhancer
+         */
+        ENHANCE("enhance");
+
+        private final String key;
+
+        Phase(final String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return this.key;
+        }
+
+    }
+
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    private final long startNanos = System.nanoTime();
+
+    private long wallNanos = -1L;
+
+    private int enhancedClasses = 0;
+
+    private final Map<String, Map<Phase, Counters>> modules = new LinkedHashMap<String, Map<Phase, Counters>>();
+
+    /**
+     * @return start time to pass to {@link #record(String, Phase, long, int, int, long)}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a phase of a module, a phase may be recorded several times per module (e.g. per output directory).
+     *
+     * @param module     module name
+     * @param phase      the phase
+     * @param startNanos phase start, see {@link #start()}
+     * @param files      number of files handled
+     * @param classes    number of classes handled
+     * @param bytes      number of bytes read
+     */
+    public void record(final String module,
+                       final Phase phase,
+                       final long startNanos,
+                       final int files,
+                       final int classes,
+                       final long bytes) {
+        final long nanos = System.nanoTime() - startNanos;
+        synchronized (this.modules) {
+            Map<Phase, Counters> phases = this.modules.get(module);
+            if (phases == null) {
+                phases = new EnumMap<Phase, Counters>(Phase.class);
+                this.modules.put(module, phases);
+            }
+            Counters counters = phases.get(phase);
+            if (counters == null) {
+                counters = new Counters();
+                phases.put(phase, counters);
+            }
+            counters.add(nanos, files, classes, bytes);
+        }
+    }
+
+    /**
+     * End the run.
+     *
+     * @param enhancedClasses number of classes enhanced by the run
+     */
+    public void stop(final int enhancedClasses) {
+        synchronized (this.modules) {
+            this.wallNanos = System.nanoTime() - this.startNanos;
+            this.enhancedClasses = enhancedClasses;
+        }
+    }
+
+    /**
+     * @return summed counters per phase over all modules
+     */
+    public Map<Phase, Counters> getPhaseTotals() {
+        final Map<Phase, Counters> totals = new EnumMap<Phase, Counters>(Phase.class);
+        synchronized (this.modules) {
+            for (final Map<Phase, Counters> phases : this.modules.values()) {
+                for (final Map.Entry<Phase, Counters> entry : phases.entrySet()) {
+                    Counters total = totals.get(entry.getKey());
+                    if (total == null) {
+                        total = new Counters();
+                        totals.put(entry.getKey(), total);
+                    }
+                    total.add(entry.getValue());
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * @return one line per run, e.g. "scan 12 ms (40 files), parse 3 ms (2 files, 10 KB, 120 classes), ..."
+     */
+    @SuppressWarnings("FeatureEnvy")
+    public String toSummary() {
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<Phase, Counters> entry : this.getPhaseTotals().entrySet()) {
+            final Counters counters = entry.getValue();
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey().getKey()).append(' ').append(counters.getMillis()).append(" ms");
+            final StringBuilder details = new StringBuilder();
+            appendCount(details, counters.files, "files");
+            appendCount(details, counters.classes, "classes");
+            if (counters.bytes > 0L) {
+                appendCount(details, (int) (counters.bytes / 1024L), "KB");
+            }
+            if (details.length() > 0) {
+                sb.append(" (").append(details).append(')');
+            }
+        }
+        synchronized (this.modules) {
+            if (this.wallNanos >= 0L) {
+                sb.append("; total ").append(this.wallNanos / NANOS_PER_MILLI).append(" ms for ")
+                        .append(this.modules.size()).append(" modules");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the run as JSON document (phase totals and counters per module and phase)
+     */
+    @SuppressWarnings({"FeatureEnvy", "MagicCharacter"})
+    public String toJson() {
+        final StringBuilder sb = new StringBuilder(1024);
+        synchronized (this.modules) {
+            sb.append("{\n  \"startedAt\": ").append(this.startedAtMillis)
+                    .append(",\n  \"wallMillis\": ").append(this.wallNanos < 0L ? -1L : this.wallNanos / NANOS_PER_MILLI)
+                    .append(",\n  \"enhancedClasses\": ").append(this.enhancedClasses)
+                    .append(",\n  \"phases\": ");
+            appendPhases(sb, this.getPhaseTotals(), "  ");
+            sb.append(",\n  \"modules\": {");
+            boolean first = true;
+            for (final Map.Entry<String, Map<Phase, Counters>> entry : this.modules.entrySet()) {
+                sb.append(first ? "\n" : ",\n").append("    ");
+                appendString(sb, entry.getKey());
+                sb.append(": ");
+                appendPhases(sb, entry.getValue(), "    ");
+                first = false;
+            }
+            sb.append(first ? "}" : "\n  }").append("\n}\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "EnhancementMetrics{" + this.toSummary() + '}';
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static void appendCount(final StringBuilder sb, final int count, final String unit) {
+        if (count > 0) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(count).append(' ').append(unit);
+        }
+    }
+
+    private static void appendPhases(final StringBuilder sb, final Map<Phase, Counters> phases, final String indent) {
+        sb.append('{');
+        boolean first = true;
+        for (final Map.Entry<Phase, Counters> entry : phases.entrySet()) {
+            final Counters counters = entry.getValue();
+            sb.append(first ? "\n" : ",\n").append(indent).append("  \"").append(entry.getKey().getKey())
+                    .append("\": {\"millis\": ").append(counters.getMillis())
+                    .append(", \"count\": ").append(counters.count)
+                    .append(", \"files\": ").append(counters.files)
+                    .append(", \"classes\": ").append(counters.classes)
+                    .append(", \"bytes\": ").append(counters.bytes)
+                    .append('}');
+            first = false;
+        }
+        sb.append(first ? "}" : '\n' + indent + '}');
+    }
+
+    @SuppressWarnings("MagicCharacter")
+    private static void appendString(final StringBuilder sb, final String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Counters of a phase.
+     */
+    public static class Counters {
+
+        private long nanos;
+
+        private int count;
+
+        private int files;
+
+        private int classes;
+
+        private long bytes;
+
+        public long getMillis() {
+            return this.nanos / NANOS_PER_MILLI;
+        }
+
+        /**
+         * @return number of times the phase was recorded
+         */
+        public int getCount() {
+            return this.count;
+        }
+
+        public int getFiles() {
+            return this.files;
+        }
+
+        public int getClasses() {
+            return this.classes;
+        }
+
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        private void add(final long nanos, final int files, final int classes, final long bytes) {
+            this.nanos += nanos;
+            ++this.count;
+            this.files += files;
+            this.classes += classes;
+            this.bytes += bytes;
+        }
+
+        private void add(final Counters counters) {
+            this.nanos += counters.nanos;
+            this.count += counters.count;
+            this.files += counters.files;
+            this.classes += counters.classes;
+            this.bytes += counters.bytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.openjpa.ide.core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Determines the class files to enhance in a module's output directories.<br/>
+ * <br/>
+ * Classes are either configured in metadata files (by class name, see {@link MetadataParser}) or found by their
+ * persistence annotations (by class file). Configured classes are resolved against all output directories (e.g.
+ * production and test output), in the first one if the class file doesn't exist in any. If the changed files are
+ * known, classes are only planned if their class file changed, or if the metadata file configuring them changed.
+ */
+public class EnhancementPlanner {
+
+    private final List<String> outputDirectories;
+
+    private final Set<String> changedFiles;
+
+    private final List<String> metadataFiles = new ArrayList<String>();
+
+    private final Set<String> classFiles = new LinkedHashSet<String>();
+
+    /**
+     * @param outputDirectory module output directory path
+     * @param changedFiles    paths of changed metadata and class files (null to plan all classes)
+     */
+    public EnhancementPlanner(final String outputDirectory, final Set<String> changedFiles) {
+        this(Collections.singletonList(outputDirectory), changedFiles);
+    }
+
+    /**
+     * @param outputDirectories module output directory paths (at least one)
+     * @param changedFiles      paths of changed metadata and class files (null to plan all classes)
+     */
+    public EnhancementPlanner(final List<String> outputDirectories, final Set<String> changedFiles) {
+        if (outputDirectories.isEmpty()) {
+            throw new IllegalArgumentException("no output directory");
+        }
+        this.outputDirectories = new ArrayList<String>(outputDirectories);
+        this.changedFiles = changedFiles;
+    }
+
+    /**
+     * Add a metadata file and the classes it configures.
+     *
+     * @param metadataFile path of the metadata file
+     * @param classNames   qualified names of the configured classes
+     */
+    public void addMetadataFile(final String metadataFile, final Collection<String> classNames) {
+        this.metadataFiles.add(metadataFile);
+        // changed metadata affects all configured classes, otherwise only changed classes are enhanced
+        final boolean metadataChanged = this.isChanged(metadataFile);
+        for (final String className : classNames) {
+            for (final String classFile : this.resolve(className)) {
+                if (metadataChanged || this.isChanged(classFile)) {
+                    this.classFiles.add(classFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add an annotated class file, annotated classes are always enhanced.
+     *
+     * @param classFile full path of the class file
+     */
+    public void addAnnotatedClassFile(final String classFile) {
+        this.classFiles.add(classFile);
+    }
+
+    /**
+     * @return the plan of all added metadata and class files
+     */
+    public ModulePlan plan() {
+        return new ModulePlan(this.outputDirectories, this.metadataFiles, new ArrayList<String>(this.classFiles));
+    }
+
+    /**
+     * Convert a qualified class name to its class file path.
+     *
+     * @param outputDirectory output directory path
+     * @param className       qualified (binary) class name
+     * @return full path of the class file
+     */
+    @SuppressWarnings("MagicCharacter")
+    public static String toClassFile(final String outputDirectory, final String className) {
+        return outputDirectory + '/' + className.replace('.', '/') + ".class";
+    }
+
+    //
+    // Helper methods
+    //
+
+    /**
+     * Resolve a configured class against the output directories.
+     *
+     * @return its existing class files, the one in the first output directory if none exists
+     */
+    private List<String> resolve(final String className) {
+        if (this.outputDirectories.size() == 1) {
+            return Collections.singletonList(toClassFile(this.outputDirectories.get(0), className));
+        }
+        final List<String> resolved = new ArrayList<String>(1);
+        for (final String outputDirectory : this.outputDirectories) {
+            final String classFile = toClassFile(outputDirectory, className);
+            if (new File(classFile).isFile()) {
+                resolved.add(classFile);
+            }
+        }
+        return resolved.isEmpty()
+                ? Collections.singletonList(toClassFile(this.outputDirectories.get(0), className))
+                : resolved;
+    }
+
+    private boolean isChanged(final String file) {
+        return this.changedFiles == null || this.changedFiles.contains(file);
+    }
+
+}
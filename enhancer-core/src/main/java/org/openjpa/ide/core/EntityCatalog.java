@@ -0,0 +1,412 @@
+package org.openjpa.ide.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persisted catalog of the files taking part in enhancement, so discovery and validity states survive IDE restarts.<br/>
+ * <br/>
+ * An entry describes an annotated class file, a class file configured by a metadata file or a metadata file, keyed
+ * by module and output relative path. It holds the file's length, modification time and content digest, so an
+ * unchanged file is neither read nor parsed again, for metadata files the parsed class names and for class files
+ * the classes they depend on (super class and embedded types, the edges of the entity dependency graph).<br/>
+ * <br/>
+ * The catalog file is a compact binary log of entries ({@link RecordLog}): it is read at once on {@link #load(File)},
+ * {@link #save()} only appends the entries changed since, later entries replacing earlier ones. It is rewritten once
+ * replaced entries outweigh the current ones, dropping entries of removed modules and files if a {@link Locator} is
+ * given. A missing, foreign or truncated file (e.g. after a crash while appending) is loaded as far as it is valid.
+ */
+public class EntityCatalog {
+
+    private static final int MAGIC = 0x4f4a4343;
+
+    private static final int VERSION = 4;
+
+    private static final int TEST_OUTPUT_FLAG = 0x80;
+
+    private final RecordLog log;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * Entries changed since loaded or saved, in change order
+     */
+    private final Map<String, Entry> changed = new LinkedHashMap<String, Entry>();
+
+    private EntityCatalog(final File file) {
+        this.log = new RecordLog(file, MAGIC, VERSION, "");
+    }
+
+    /**
+     * Load a catalog.
+     *
+     * @param file the catalog file (doesn't need to exist)
+     * @return the catalog, empty if the file doesn't exist or can't be read
+     */
+    public static EntityCatalog load(final File file) {
+        final EntityCatalog catalog = new EntityCatalog(file);
+        try {
+            for (final Entry entry : catalog.log.read(new RecordLog.RecordReader<Entry>() {
+                @Override
+                public Entry read(final ByteBuffer buffer) {
+                    return readEntry(buffer);
+                }
+            })) {
+                catalog.entries.put(getKey(entry.module, entry.testOutput, entry.path), entry);
+            }
+        } catch (IOException ignored) {
+            // unreadable -> start empty, rewritten on save
+            catalog.entries.clear();
+        }
+        return catalog;
+    }
+
+    /**
+     * Get an entry.
+     *
+     * @param module     module name
+     * @param testOutput true for the module's test output directory
+     * @param path       output directory relative path (e.g. 'org/example/Entity.class')
+     * @return the entry, null if not cataloged
+     */
+    public Entry get(final String module, final boolean testOutput, final String path) {
+        return this.entries.get(getKey(module, testOutput, path));
+    }
+
+    /**
+     * Add or replace an entry, persisted on the next {@link #save()}.
+     *
+     * @param entry the entry
+     */
+    public void put(final Entry entry) {
+        final String key = getKey(entry.module, entry.testOutput, entry.path);
+        if (!entry.equals(this.entries.put(key, entry))) {
+            synchronized (this.changed) {
+                this.changed.put(key, entry);
+            }
+        }
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Persist the entries changed since loaded or last saved, without removing stale entries.
+     *
+     * @throws IOException if the file can't be written, changed entries are kept for the next try
+     */
+    public void save() throws IOException {
+        this.save(null);
+    }
+
+    /**
+     * Persist the entries changed since loaded or last saved.<br/>
+     * <br/>
+     * If the file is rewritten, entries of modules or files that don't exist anymore are removed.
+     *
+     * @param locator locates the cataloged files, null to keep all entries
+     * @throws IOException if the file can't be written, changed entries are kept for the next try
+     */
+    public synchronized void save(final Locator locator) throws IOException {
+        final List<Entry> toWrite;
+        synchronized (this.changed) {
+            if (this.changed.isEmpty()) {
+                return;
+            }
+            toWrite = new ArrayList<Entry>(this.changed.values());
+        }
+
+        if (this.log.isEmpty() || this.log.getRecordCount() + toWrite.size() > 2 * this.entries.size()) {
+            if (locator != null) {
+                this.removeStale(locator);
+            }
+            final List<Entry> all = new ArrayList<Entry>(this.entries.values());
+            this.log.rewrite(toBytes(all), all.size());
+        } else {
+            this.log.append(toBytes(toWrite), toWrite.size());
+        }
+
+        synchronized (this.changed) {
+            for (final Entry entry : toWrite) {
+                final String key = getKey(entry.module, entry.testOutput, entry.path);
+                if (this.changed.get(key) == entry) {
+                    this.changed.remove(key);
+                }
+            }
+        }
+    }
+
+    //
+    // Helper methods
+    //
+
+    private void removeStale(final Locator locator) {
+        final Map<String, File> outputDirectories = new HashMap<String, File>();
+        for (final Iterator<Map.Entry<String, Entry>> it = this.entries.entrySet().iterator(); it.hasNext(); ) {
+            final Entry entry = it.next().getValue();
+            final String directoryKey = getKey(entry.module, entry.testOutput, "");
+            final File outputDirectory;
+            if (outputDirectories.containsKey(directoryKey)) {
+                outputDirectory = outputDirectories.get(directoryKey);
+            } else {
+                outputDirectory = locator.getOutputDirectory(entry.module, entry.testOutput);
+                outputDirectories.put(directoryKey, outputDirectory);
+            }
+            if (outputDirectory == null || !new File(outputDirectory, entry.path).isFile()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static byte[] toBytes(final List<Entry> entries) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 128);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        for (final Entry entry : entries) {
+            out.writeByte(entry.kind.ordinal() | (entry.testOutput ? TEST_OUTPUT_FLAG : 0));
+            RecordLog.writeString(out, entry.module);
+            RecordLog.writeString(out, entry.path);
+            RecordLog.writeString(out, entry.metadataFile);
+            out.writeLong(entry.length);
+            out.writeLong(entry.lastModified);
+            out.writeByte(entry.digest.length);
+            out.write(entry.digest);
+            RecordLog.writeStrings(out, entry.classNames);
+            RecordLog.writeStrings(out, entry.dependencies);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Entry readEntry(final ByteBuffer buffer) {
+        final int flags = buffer.get() & 0xff;
+        final Kind[] kinds = Kind.values();
+        final int kindOrdinal = flags & ~TEST_OUTPUT_FLAG;
+        if (kindOrdinal >= kinds.length) {
+            throw new IllegalArgumentException("invalid kind " + kindOrdinal);
+        }
+        final String module = RecordLog.readString(buffer);
+        final String path = RecordLog.readString(buffer);
+        final String metadataFile = RecordLog.readString(buffer);
+        final long length = buffer.getLong();
+        final long lastModified = buffer.getLong();
+        final byte[] digest = new byte[buffer.get() & 0xff];
+        buffer.get(digest);
+        final List<String> classNames = RecordLog.readStrings(buffer);
+        final List<String> dependencies = RecordLog.readStrings(buffer);
+        return new Entry(module, (flags & TEST_OUTPUT_FLAG) != 0, path, kinds[kindOrdinal], metadataFile,
+                length, lastModified, digest, classNames, dependencies);
+    }
+
+    @SuppressWarnings("MagicCharacter")
+    private static String getKey(final String module, final boolean testOutput, final String path) {
+        return module + (testOutput ? ":test:" : ':') + path;
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Locates the output directories of cataloged files, to remove entries of removed modules and files.
+     */
+    public interface Locator {
+
+        /**
+         * @param module     module name
+         * @param testOutput true for the module's test output directory
+         * @return the output directory, null if the module doesn't exist anymore (or has no such output)
+         */
+        File getOutputDirectory(String module, boolean testOutput);
+
+    }
+
+    /**
+     * What a cataloged file is.
+     */
+    public enum Kind {
+
+        /**
+         * class file of a persistence annotated class
+         */
+        ANNOTATED,
+
+        /**
+         * class file of a class configured by a metadata file
+         */
+        XML,
+
+        /**
+         * metadata file
+         */
+        METADATA
+
+    }
+
+    /**
+     * A cataloged file.
+     */
+    public static final class Entry {
+
+        private final String module;
+
+        private final boolean testOutput;
+
+        private final String path;
+
+        private final Kind kind;
+
+        private final String metadataFile;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final byte[] digest;
+
+        private final List<String> classNames;
+
+        private final List<String> dependencies;
+
+        /**
+         * @param module       module name
+         * @param testOutput   true for the module's test output directory
+         * @param path         output directory relative path
+         * @param kind         what the file is
+         * @param metadataFile output directory relative path of the configuring metadata file ({@link Kind#XML} only)
+         * @param length       file length
+         * @param lastModified file modification time
+         * @param digest       content digest
+         * @param classNames   class names configured by a metadata file (null if unknown or no metadata file)
+         * @param dependencies classes a class file depends on (null if unknown or no class file)
+         */
+        public Entry(final String module,
+                     final boolean testOutput,
+                     final String path,
+                     final Kind kind,
+                     final String metadataFile,
+                     final long length,
+                     final long lastModified,
+                     final byte[] digest,
+                     final List<String> classNames,
+                     final List<String> dependencies) {
+            this.module = module;
+            this.testOutput = testOutput;
+            this.path = path;
+            this.kind = kind;
+            this.metadataFile = metadataFile == null ? "" : metadataFile;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.digest = digest.clone();
+            this.classNames = classNames == null ? null : Collections.unmodifiableList(new ArrayList<String>(classNames));
+            this.dependencies = dependencies == null ? null : Collections.unmodifiableList(new ArrayList<String>(dependencies));
+        }
+
+        public String getModule() {
+            return this.module;
+        }
+
+        public boolean isTestOutput() {
+            return this.testOutput;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        public String getMetadataFile() {
+            return this.metadataFile;
+        }
+
+        public long getLength() {
+            return this.length;
+        }
+
+        public long getLastModified() {
+            return this.lastModified;
+        }
+
+        public byte[] getDigest() {
+            return this.digest.clone();
+        }
+
+        /**
+         * @return class names configured by a metadata file, null if unknown
+         */
+        public List<String> getClassNames() {
+            return this.classNames;
+        }
+
+        /**
+         * @return super class and embedded types of a class file, null if unknown
+         */
+        public List<String> getDependencies() {
+            return this.dependencies;
+        }
+
+        /**
+         * @param currentLength       the file's current length
+         * @param currentLastModified the file's current modification time
+         * @return true if the file didn't change since cataloged
+         */
+        public boolean isUnchanged(final long currentLength, final long currentLastModified) {
+            return this.length == currentLength && this.lastModified == currentLastModified;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry other = (Entry) o;
+            return this.testOutput == other.testOutput
+                    && this.length == other.length
+                    && this.lastModified == other.lastModified
+                    && this.kind == other.kind
+                    && this.module.equals(other.module)
+                    && this.path.equals(other.path)
+                    && this.metadataFile.equals(other.metadataFile)
+                    && Arrays.equals(this.digest, other.digest)
+                    && (this.classNames == null ? other.classNames == null : this.classNames.equals(other.classNames))
+                    && (this.dependencies == null ? other.dependencies == null : this.dependencies.equals(other.dependencies));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.module.hashCode();
+            result = 31 * result + this.path.hashCode();
+            result = 31 * result + (int) (this.lastModified ^ (this.lastModified >>> 32));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return this.module + (this.testOutput ? " (test): " : ": ") + this.path + " [" + this.kind + ']';
+        }
+
+    }
+
+}
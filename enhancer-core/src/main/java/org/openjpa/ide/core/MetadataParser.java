@@ -0,0 +1,148 @@
+package org.openjpa.ide.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Utility methods for parsing persistence metadata files (Hibernate and JPA).<br/>
+ * <br/>
+ * This does not include JPA 'persistence.xml' files (see {@link #parseQualifiedClassNames(java.nio.file.Path)}).<br/>
+ * <br/>
+ * Files are parsed streaming (StAX) in a single pass, only the element path to the current element is kept in memory,
+ * so memory usage does not depend on the file size.
+ */
+public final class MetadataParser {
+
+    private static final Set<String> JDO_METADATA_ROOT_NODES = new HashSet<String>(Arrays.asList("jdo", "orm"));
+
+    private static final String JDO_PACKAGE_NODE = "package";
+
+    private static final String JDO_CLASS_NODE = "class";
+
+    private static final String JDO_NAME_ATTRIBUTE = "name";
+
+    private static final String JPA_ROOT_NODE = "entity-mappings";
+
+    private static final Set<String> JPA_METADATA_ROOT_NODES = new HashSet<String>(Arrays.asList("entity", "mapped-superclass", "embeddable"));
+
+    private static final String JPA_CLASS_ATTRIBUTE = "class";
+
+    /**
+     * Configured factories are thread safe for creating readers
+     */
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private MetadataParser() {
+        // no instantiation allowed
+    }
+
+    //
+    // Utility methods
+    //
+
+    /**
+     * Get qualified class names from metadata file (either JDO '.jdo' and '.orm' or JPA '.xml' orm file (not 'persistence.xml'!)).
+     *
+     * @param file the metadata file.
+     * @return Unique collection of class names configured in metadata file
+     * @throws IOException        .
+     * @throws XMLStreamException .
+     */
+    public static Set<String> parseQualifiedClassNames(final Path file) throws IOException, XMLStreamException {
+        final InputStream in = Files.newInputStream(file);
+        try {
+            return parseQualifiedClassNames(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Get qualified class names from metadata file content (either JDO '.jdo' and '.orm' or JPA '.xml' orm file (not 'persistence.xml'!)).<br/>
+     * The encoding is taken from the xml declaration, the stream is not closed.
+     *
+     * @param in the metadata file's content
+     * @return Unique collection of class names configured in metadata file
+     * @throws XMLStreamException .
+     */
+    public static Set<String> parseQualifiedClassNames(final InputStream in) throws XMLStreamException {
+
+        //
+        // parse metadata files (intentionally kept simple - no patterns)
+
+        final Set<String> qualifiedClassNamesJdo = new LinkedHashSet<String>();
+        final Set<String> qualifiedClassNamesJpa = new LinkedHashSet<String>();
+
+        // local names of the current element's ancestors, innermost first
+        final Deque<String> path = new ArrayDeque<String>();
+        // only set within package elements of JDO root elements
+        String packageName = null;
+
+        final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+        try {
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    final String name = reader.getLocalName();
+                    final String parent = path.peekFirst();
+
+                    if (JDO_PACKAGE_NODE.equals(name) && JDO_METADATA_ROOT_NODES.contains(parent)) {
+                        // JDO: //jdo/package/@name
+                        packageName = reader.getAttributeValue(null, JDO_NAME_ATTRIBUTE);
+                    } else if (JDO_CLASS_NODE.equals(name) && JDO_PACKAGE_NODE.equals(parent) && packageName != null) {
+                        // JDO: //jdo/package/class/@name
+                        final String className = reader.getAttributeValue(null, JDO_NAME_ATTRIBUTE);
+                        if (className != null) {
+                            qualifiedClassNamesJdo.add(packageName + '.' + className);
+                        }
+                    } else if (JPA_METADATA_ROOT_NODES.contains(name) && path.size() == 1 && JPA_ROOT_NODE.equals(parent)) {
+                        // JPA: /entity-mappings/entity/@class
+                        final String className = reader.getAttributeValue(null, JPA_CLASS_ATTRIBUTE);
+                        if (className != null) {
+                            qualifiedClassNamesJpa.add(className);
+                        }
+                    }
+                    path.addFirst(name);
+
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    final String name = path.removeFirst();
+                    if (JDO_PACKAGE_NODE.equals(name)) {
+                        packageName = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return qualifiedClassNamesJdo.isEmpty() ? qualifiedClassNamesJpa : qualifiedClassNamesJdo;
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        // never resolve DTDs or external entities (no network access, no expansion)
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+}
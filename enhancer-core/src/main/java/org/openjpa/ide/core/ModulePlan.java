@@ -0,0 +1,64 @@
+package org.openjpa.ide.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What to enhance in a module's output directories, created by {@link EnhancementPlanner}.
+ */
+public class ModulePlan {
+
+    private final List<String> outputDirectories;
+
+    private final List<String> metadataFiles;
+
+    private final List<String> classFiles;
+
+    ModulePlan(final List<String> outputDirectories, final List<String> metadataFiles, final List<String> classFiles) {
+        this.outputDirectories = Collections.unmodifiableList(new ArrayList<String>(outputDirectories));
+        this.metadataFiles = Collections.unmodifiableList(new ArrayList<String>(metadataFiles));
+        this.classFiles = Collections.unmodifiableList(new ArrayList<String>(classFiles));
+    }
+
+    /**
+     * @return module (production) output directory path, the first of {@link #getOutputDirectories()}
+     */
+    public String getOutputDirectory() {
+        return this.outputDirectories.get(0);
+    }
+
+    /**
+     * @return module output directory paths
+     */
+    public List<String> getOutputDirectories() {
+        return this.outputDirectories;
+    }
+
+    /**
+     * @return paths of all metadata files of the module (changed or not, the enhancer needs the complete mapping)
+     */
+    public List<String> getMetadataFiles() {
+        return this.metadataFiles;
+    }
+
+    /**
+     * @return full paths of the class files to enhance, without duplicates
+     */
+    public List<String> getClassFiles() {
+        return this.classFiles;
+    }
+
+    /**
+     * @return true if there's no class to enhance (never run the enhancer then, it would enhance all classes it can find)
+     */
+    public boolean isEmpty() {
+        return this.classFiles.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ModulePlan{" + this.outputDirectories + ", " + this.classFiles.size() + " classes}";
+    }
+
+}
@@ -0,0 +1,260 @@
+package org.openjpa.ide.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary log file of records, appended to and rewritten as a whole (see {@link EntityCatalog} and
+ * {@link EnhancementJournal}).<br/>
+ * <br/>
+ * The file starts with a header (magic number, format version and a header string, e.g. a configuration the records
+ * depend on), followed by the records. A file with another header is read as empty and replaced by the next write.
+ * A truncated or corrupt record (e.g. after a crash while appending) ends the valid part of the file, it is
+ * overwritten by the next append.<br/>
+ * <br/>
+ * The file is read into memory at once and never memory mapped, so it can be truncated, replaced or deleted
+ * right after reading (a mapped file would be locked on Windows until the mapping is garbage collected).
+ */
+final class RecordLog {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+
+    private final int magic;
+
+    private final int version;
+
+    private final String header;
+
+    /**
+     * Length of the valid part of the file (0 if it has to be rewritten)
+     */
+    private long validLength = 0L;
+
+    /**
+     * Number of records in the valid part of the file
+     */
+    private int recordCount = 0;
+
+    /**
+     * @param file    the log file (doesn't need to exist)
+     * @param magic   magic number identifying the file type
+     * @param version format version
+     * @param header  header string, records written with another header are ignored
+     */
+    RecordLog(final File file, final int magic, final int version, final String header) {
+        this.file = file;
+        this.magic = magic;
+        this.version = version;
+        this.header = header;
+    }
+
+    /**
+     * Read the valid records of the file.
+     *
+     * @param reader reads a single record
+     * @param <R>    record type
+     * @return the records in file order, empty if the file doesn't exist or has another header
+     * @throws IOException if the file can't be read
+     */
+    <R> List<R> read(final RecordReader<R> reader) throws IOException {
+        this.validLength = 0L;
+        this.recordCount = 0;
+        final List<R> records = new ArrayList<R>();
+        if (!this.file.isFile()) {
+            return records;
+        }
+
+        final byte[] bytes;
+        final RandomAccessFile in = new RandomAccessFile(this.file, "r");
+        try {
+            bytes = new byte[(int) Math.min(in.length(), Integer.MAX_VALUE)];
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != this.magic || buffer.getInt() != this.version || !this.header.equals(readString(buffer))) {
+                // foreign file, older format or other header -> rewritten on the next write
+                return records;
+            }
+            this.validLength = buffer.position();
+            while (buffer.hasRemaining()) {
+                records.add(reader.read(buffer));
+                this.validLength = buffer.position();
+                ++this.recordCount;
+            }
+        } catch (BufferUnderflowException ignored) {
+            // truncated header or last record, overwritten by the next write
+        } catch (IllegalArgumentException ignored) {
+            // corrupt record, overwritten by the next append
+        }
+        return records;
+    }
+
+    /**
+     * Append records, the header is written first if the file has no valid header.
+     *
+     * @param records     the serialized records
+     * @param recordCount number of records
+     * @throws IOException if the file can't be written
+     */
+    void append(final byte[] records, final int recordCount) throws IOException {
+        if (this.validLength == 0L) {
+            this.rewrite(records, recordCount);
+            return;
+        }
+        final RandomAccessFile out = new RandomAccessFile(this.file, "rw");
+        try {
+            // drop an invalid tail
+            out.setLength(this.validLength);
+            out.seek(this.validLength);
+            out.write(records);
+            this.validLength = out.length();
+        } finally {
+            out.close();
+        }
+        this.recordCount += recordCount;
+    }
+
+    /**
+     * Replace the file by the header and the given records.
+     *
+     * @param records     the serialized records
+     * @param recordCount number of records
+     * @throws IOException if the file can't be written
+     */
+    void rewrite(final byte[] records, final int recordCount) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.length + 64);
+        final DataOutputStream headerOut = new DataOutputStream(bytes);
+        headerOut.writeInt(this.magic);
+        headerOut.writeInt(this.version);
+        writeString(headerOut, this.header);
+        headerOut.flush();
+        bytes.write(records);
+
+        final File directory = this.file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can't create directory " + directory);
+        }
+        final File tmpFile = new File(this.file.getPath() + ".tmp");
+        final OutputStream out = new FileOutputStream(tmpFile);
+        try {
+            bytes.writeTo(out);
+        } finally {
+            out.close();
+        }
+        if (!tmpFile.renameTo(this.file) && !(this.file.delete() && tmpFile.renameTo(this.file))) {
+            throw new IOException("can't replace " + this.file);
+        }
+        this.validLength = bytes.size();
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * Delete the file.
+     *
+     * @throws IOException if the file exists and can't be deleted
+     */
+    void delete() throws IOException {
+        this.validLength = 0L;
+        this.recordCount = 0;
+        if (this.file.exists() && !this.file.delete()) {
+            throw new IOException("can't delete " + this.file);
+        }
+    }
+
+    /**
+     * @return true if the file has no valid header (the next write rewrites it)
+     */
+    boolean isEmpty() {
+        return this.validLength == 0L;
+    }
+
+    /**
+     * @return number of records in the valid part of the file (including replaced ones)
+     */
+    int getRecordCount() {
+        return this.recordCount;
+    }
+
+    //
+    // Utility methods
+    //
+
+    static void writeString(final DataOutputStream out, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(UTF_8);
+        if (bytes.length > 0xffff) {
+            throw new IOException("string too long: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Write a string list, null is written as count -1.
+     */
+    static void writeStrings(final DataOutputStream out, final List<String> strings) throws IOException {
+        if (strings == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(strings.size());
+            for (final String s : strings) {
+                writeString(out, s);
+            }
+        }
+    }
+
+    static List<String> readStrings(final ByteBuffer buffer) {
+        final int count = buffer.getInt();
+        if (count < 0) {
+            return null;
+        }
+        final List<String> strings = new ArrayList<String>(Math.min(count, buffer.remaining() / 2));
+        for (int i = 0; i < count; ++i) {
+            strings.add(readString(buffer));
+        }
+        return strings;
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Reads a single record.
+     *
+     * @param <R> record type
+     */
+    interface RecordReader<R> {
+
+        /**
+         * @param buffer positioned at the record
+         * @return the record
+         * @throws BufferUnderflowException if the record is truncated
+         * @throws IllegalArgumentException if the record is corrupt
+         */
+        R read(ByteBuffer buffer);
+
+    }
+
+}
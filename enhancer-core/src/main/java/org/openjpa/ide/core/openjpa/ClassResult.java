@@ -0,0 +1,23 @@
+package org.openjpa.ide.core.openjpa;
+
+/**
+ * Per class result of an enhancement batch, see {@link EnhanceResponse}.
+ */
+public enum ClassResult {
+
+    /**
+     * enhanced by this batch
+     */
+    ENHANCED,
+
+    /**
+     * already enhanced before, or nothing to enhance (e.g. a managed interface)
+     */
+    UNCHANGED,
+
+    /**
+     * not enhanced, the enhancer failed
+     */
+    FAILED
+
+}
@@ -0,0 +1,97 @@
+package org.openjpa.ide.core.openjpa;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Enhancement batch of a module, see {@link ModuleEnhancer}.
+ */
+public class EnhanceRequest {
+
+    private final List<String> classPath;
+
+    private final String outputDirectory;
+
+    private final boolean addDefaultConstructor;
+
+    private final boolean enforcePropertyRestrictions;
+
+    private final boolean tmpClassLoader;
+
+    private final List<String> classFiles;
+
+    /**
+     * @param classPath                   OpenJpa and library urls (external form), shared with other modules
+     * @param outputDirectory             module output directory url (external form)
+     * @param addDefaultConstructor       .
+     * @param enforcePropertyRestrictions .
+     * @param tmpClassLoader              load classes to enhance through a temporary ClassLoader
+     * @param classFiles                  full paths of the class files to enhance
+     */
+    public EnhanceRequest(final List<String> classPath,
+                          final String outputDirectory,
+                          final boolean addDefaultConstructor,
+                          final boolean enforcePropertyRestrictions,
+                          final boolean tmpClassLoader,
+                          final List<String> classFiles) {
+        this.classPath = Collections.unmodifiableList(new ArrayList<String>(classPath));
+        this.outputDirectory = outputDirectory;
+        this.addDefaultConstructor = addDefaultConstructor;
+        this.enforcePropertyRestrictions = enforcePropertyRestrictions;
+        this.tmpClassLoader = tmpClassLoader;
+        this.classFiles = Collections.unmodifiableList(new ArrayList<String>(classFiles));
+    }
+
+    public List<String> getClassPath() {
+        return this.classPath;
+    }
+
+    public String getOutputDirectory() {
+        return this.outputDirectory;
+    }
+
+    public boolean isAddDefaultConstructor() {
+        return this.addDefaultConstructor;
+    }
+
+    public boolean isEnforcePropertyRestrictions() {
+        return this.enforcePropertyRestrictions;
+    }
+
+    public boolean isTmpClassLoader() {
+        return this.tmpClassLoader;
+    }
+
+    public List<String> getClassFiles() {
+        return this.classFiles;
+    }
+
+    //
+    // Serialization, see EnhancerDaemonProtocol
+    //
+
+    void write(final DataOutputStream out) throws IOException {
+        EnhancerDaemonProtocol.writeStrings(out, this.classPath);
+        out.writeUTF(this.outputDirectory);
+        out.writeBoolean(this.addDefaultConstructor);
+        out.writeBoolean(this.enforcePropertyRestrictions);
+        out.writeBoolean(this.tmpClassLoader);
+        EnhancerDaemonProtocol.writeStrings(out, this.classFiles);
+    }
+
+    static EnhanceRequest read(final DataInputStream in) throws IOException {
+        final List<String> classPath = EnhancerDaemonProtocol.readStrings(in);
+        final String outputDirectory = in.readUTF();
+        final boolean addDefaultConstructor = in.readBoolean();
+        final boolean enforcePropertyRestrictions = in.readBoolean();
+        final boolean tmpClassLoader = in.readBoolean();
+        final List<String> classFiles = EnhancerDaemonProtocol.readStrings(in);
+        return new EnhanceRequest(classPath, outputDirectory, addDefaultConstructor, enforcePropertyRestrictions,
+                tmpClassLoader, classFiles);
+    }
+
+}
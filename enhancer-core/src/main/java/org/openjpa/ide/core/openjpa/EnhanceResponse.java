@@ -0,0 +1,100 @@
+package org.openjpa.ide.core.openjpa;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of an enhancement batch, see {@link ModuleEnhancer}.
+ */
+public class EnhanceResponse {
+
+    private final Map<String, ClassResult> results;
+
+    private final String message;
+
+    /**
+     * @param results results per class file path, in request order
+     * @param message error reported by the enhancer (null if none)
+     */
+    public EnhanceResponse(final Map<String, ClassResult> results, final String message) {
+        this.results = Collections.unmodifiableMap(new LinkedHashMap<String, ClassResult>(results));
+        this.message = message == null ? "" : message;
+    }
+
+    /**
+     * @return results per class file path, in request order
+     */
+    public Map<String, ClassResult> getResults() {
+        return this.results;
+    }
+
+    /**
+     * @return error reported by the enhancer (empty if none)
+     */
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+     * @param classResult the result to count
+     * @return number of classes with the given result
+     */
+    public int count(final ClassResult classResult) {
+        int count = 0;
+        for (final ClassResult result : this.results.values()) {
+            if (result == classResult) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param classResult the result to filter by
+     * @return class files with the given result, in request order
+     */
+    public List<String> getClassFiles(final ClassResult classResult) {
+        final List<String> classFiles = new ArrayList<String>();
+        for (final Map.Entry<String, ClassResult> entry : this.results.entrySet()) {
+            if (entry.getValue() == classResult) {
+                classFiles.add(entry.getKey());
+            }
+        }
+        return classFiles;
+    }
+
+    //
+    // Serialization, see EnhancerDaemonProtocol
+    //
+
+    void write(final DataOutputStream out) throws IOException {
+        out.writeInt(this.results.size());
+        for (final Map.Entry<String, ClassResult> entry : this.results.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeByte(entry.getValue().ordinal());
+        }
+        out.writeUTF(EnhancerDaemonProtocol.truncate(this.message));
+    }
+
+    static EnhanceResponse read(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final Map<String, ClassResult> results = new LinkedHashMap<String, ClassResult>(size);
+        final ClassResult[] classResults = ClassResult.values();
+        for (int i = 0; i < size; ++i) {
+            final String classFile = in.readUTF();
+            final int ordinal = in.readUnsignedByte();
+            if (ordinal >= classResults.length) {
+                throw new IOException("invalid class result " + ordinal);
+            }
+            results.put(classFile, classResults[ordinal]);
+        }
+        return new EnhanceResponse(results, in.readUTF());
+    }
+
+}
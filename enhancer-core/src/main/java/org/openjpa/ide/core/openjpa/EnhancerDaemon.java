@@ -0,0 +1,146 @@
+package org.openjpa.ide.core.openjpa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handle on a running {@link EnhancerDaemonMain} process.<br/>
+ * <br/>
+ * Every request uses its own loopback connection, so batches can be enhanced in parallel.
+ * The daemon exits by itself when the starting VM goes away (end of its standard input).
+ */
+public class EnhancerDaemon {
+
+    private static final String DAEMON_THREAD_NAME = "openjpa-enhancer-daemon-output";
+
+    private final Process process;
+
+    private final int port;
+
+    private final String token;
+
+    private EnhancerDaemon(final Process process, final int port, final String token) {
+        this.process = process;
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * Start a daemon process and wait for its announcement.
+     *
+     * @param javaExecutable java launcher to run the daemon with
+     * @param vmOptions      VM options (e.g. "-Xmx512m"), one per element
+     * @param classPath      class path containing the enhancer core classes (OpenJpa is provided per request)
+     * @return the started daemon
+     * @throws IOException if the process can't be started or doesn't announce itself
+     */
+    public static EnhancerDaemon start(final String javaExecutable,
+                                       final List<String> vmOptions,
+                                       final String classPath) throws IOException {
+        final List<String> command = new ArrayList<String>();
+        command.add(javaExecutable);
+        command.addAll(vmOptions);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(EnhancerDaemonMain.class.getName());
+
+        final ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        final Process started = processBuilder.start();
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(started.getInputStream(), Charset.defaultCharset()));
+        final String banner = reader.readLine();
+        final String[] parts = banner == null ? new String[0] : banner.trim().split(" ");
+        if (parts.length != 3 || !EnhancerDaemonProtocol.BANNER.equals(parts[0])) {
+            started.destroy();
+            throw new IOException("Enhancer daemon failed to start: " + banner);
+        }
+
+        // keep draining the output, the daemon would block on a full pipe otherwise
+        final Thread drain = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (reader.readLine() != null) {
+                        // enhancer output is not reported
+                    }
+                } catch (IOException ignored) {
+                    // daemon stopped
+                }
+            }
+        }, DAEMON_THREAD_NAME);
+        drain.setDaemon(true);
+        drain.start();
+
+        return new EnhancerDaemon(started, Integer.parseInt(parts[1]), parts[2]);
+    }
+
+    /**
+     * @return true if the process is still running
+     */
+    public boolean isAlive() {
+        try {
+            this.process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException ignored) {
+            return true;
+        }
+    }
+
+    /**
+     * Enhance a batch in the daemon.
+     *
+     * @param request the batch
+     * @return per class results
+     * @throws IOException if the daemon can't be reached, or reports an error
+     */
+    public EnhanceResponse enhance(final EnhanceRequest request) throws IOException {
+        final Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port);
+        try {
+            final DataOutputStream out = this.open(socket, EnhancerDaemonProtocol.COMMAND_ENHANCE);
+            request.write(out);
+            out.flush();
+
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final int status = in.readUnsignedByte();
+            if (status != EnhancerDaemonProtocol.STATUS_OK) {
+                throw new IOException("Enhancer daemon error: " + in.readUTF());
+            }
+            return EnhanceResponse.read(in);
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Stop the daemon.
+     */
+    public void shutdown() {
+        // destroyed right away, the daemon holds no state to be saved (it also exits by itself once the end of its
+        // standard input is reached, when the starting VM goes away)
+        this.process.destroy();
+    }
+
+    //
+    // Helper methods
+    //
+
+    private DataOutputStream open(final Socket socket, final int command) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeInt(EnhancerDaemonProtocol.MAGIC);
+        out.writeUTF(this.token);
+        out.writeByte(command);
+        return out;
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.openjpa.ide.core.openjpa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+
+import org.openjpa.ide.core.ClassLoaderPool;
+
+/**
+ * Long running enhancer process, started by {@link EnhancerDaemon}.<br/>
+ * <br/>
+ * Keeps OpenJpa and library classes loaded (and JIT compiled) between builds, instead of loading them
+ * into the IDE for every module. Listens on a random loopback port, which is announced together with an
+ * access token on standard output. The process exits as soon as its standard input is closed, so it never
+ * outlives the IDE.<br/>
+ * <br/>
+ * Only depends on the JDK and the enhancer core classes, the IDE's classes are not on its classpath.
+ */
+public final class EnhancerDaemonMain {
+
+    /**
+     * shared loaders kept open while unused, covers the distinct dependency sets of a typical project
+     */
+    private static final int MAX_IDLE_CLASS_LOADERS = 8;
+
+    private static final int TOKEN_LENGTH = 16;
+
+    private final ModuleEnhancer enhancer = new ModuleEnhancer(new ClassLoaderPool(MAX_IDLE_CLASS_LOADERS));
+
+    private final String token;
+
+    private EnhancerDaemonMain(final String token) {
+        this.token = token;
+    }
+
+    /**
+     * Start the daemon.
+     *
+     * @param args ignored
+     * @throws IOException if the server socket can't be opened
+     */
+    @SuppressWarnings({"InfiniteLoopStatement", "UseOfSystemOutOrSystemErr", "MagicCharacter"})
+    public static void main(final String[] args) throws IOException {
+        final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final EnhancerDaemonMain daemon = new EnhancerDaemonMain(newToken());
+
+        startDaemonThread("enhancer-daemon-parent-watch", new Runnable() {
+            @Override
+            public void run() {
+                exitOnEndOfInput(System.in);
+            }
+        });
+
+        System.out.println(EnhancerDaemonProtocol.BANNER + ' ' + serverSocket.getLocalPort() + ' ' + daemon.token);
+        System.out.flush();
+
+        while (true) {
+            final Socket socket = serverSocket.accept();
+            startDaemonThread("enhancer-daemon-connection", new Runnable() {
+                @Override
+                public void run() {
+                    daemon.serve(socket);
+                }
+            });
+        }
+    }
+
+    //
+    // Helper methods
+    //
+
+    private void serve(final Socket socket) {
+        try {
+            try {
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                if (in.readInt() != EnhancerDaemonProtocol.MAGIC || !this.token.equals(in.readUTF())) {
+                    // not our client
+                    return;
+                }
+
+                final int command = in.readUnsignedByte();
+                if (command == EnhancerDaemonProtocol.COMMAND_SHUTDOWN) {
+                    out.writeByte(EnhancerDaemonProtocol.STATUS_OK);
+                    out.flush();
+                    System.exit(0);
+                } else if (command == EnhancerDaemonProtocol.COMMAND_ENHANCE) {
+                    final EnhanceRequest request = EnhanceRequest.read(in);
+                    EnhanceResponse response = null;
+                    String error = null;
+                    try {
+                        response = this.enhancer.enhance(request);
+                    } catch (Throwable t) {
+                        error = ModuleEnhancer.getStackTrace(t);
+                    }
+                    if (response != null) {
+                        out.writeByte(EnhancerDaemonProtocol.STATUS_OK);
+                        response.write(out);
+                    } else {
+                        out.writeByte(EnhancerDaemonProtocol.STATUS_ERROR);
+                        out.writeUTF(EnhancerDaemonProtocol.truncate(error));
+                    }
+                } else {
+                    out.writeByte(EnhancerDaemonProtocol.STATUS_ERROR);
+                    out.writeUTF("unknown command " + command);
+                }
+                out.flush();
+            } finally {
+                socket.close();
+            }
+        } catch (IOException ignored) {
+            // client went away, nothing to report to
+        }
+    }
+
+    private static void exitOnEndOfInput(final InputStream in) {
+        final byte[] buffer = new byte[256];
+        try {
+            while (in.read(buffer) >= 0) {
+                // only waiting for the end
+            }
+        } catch (IOException ignored) {
+            // parent gone as well
+        }
+        System.exit(0);
+    }
+
+    private static void startDaemonThread(final String name, final Runnable runnable) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private static String newToken() {
+        final byte[] bytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.openjpa.ide.core.openjpa;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire format between {@link EnhancerDaemon} and {@link EnhancerDaemonMain} (one request per connection).<br/>
+ * <br/>
+ * The daemon announces itself with a single line {@code <BANNER> <port> <token>} on its standard output,
+ * every connection starts with the {@link #MAGIC} and the token, followed by a command and its
+ * {@link EnhanceRequest}. Answers are a status followed by an {@link EnhanceResponse} or an error message.
+ */
+final class EnhancerDaemonProtocol {
+
+    static final String BANNER = "OPENJPA-ENHANCER-DAEMON";
+
+    static final int MAGIC = 0x4f4a4544;
+
+    static final int COMMAND_ENHANCE = 1;
+
+    static final int COMMAND_SHUTDOWN = 2;
+
+    static final int STATUS_OK = 0;
+
+    static final int STATUS_ERROR = 1;
+
+    /**
+     * modified utf8 strings are limited to 64k bytes, keep messages well below
+     */
+    private static final int MAX_MESSAGE_LENGTH = 16 * 1024;
+
+    private EnhancerDaemonProtocol() {
+        // no instantiation allowed
+    }
+
+    //
+    // Helper methods
+    //
+
+    static String truncate(final String message) {
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) + "..." : message;
+    }
+
+    static void writeStrings(final DataOutputStream out, final List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (final String string : strings) {
+            out.writeUTF(string);
+        }
+    }
+
+    static List<String> readStrings(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final List<String> strings = new ArrayList<String>(size);
+        for (int i = 0; i < size; ++i) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.openjpa.ide.core.openjpa;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjpa.ide.core.ClassLoaderPool;
+
+/**
+ * Enhances the classes of a module in the current VM, used by {@link EnhancerDaemonMain} and by tools
+ * running the enhancer outside of the IDE.<br/>
+ * <br/>
+ * OpenJpa and library classes are loaded through shared loaders of the given pool, only the module output
+ * gets its own loader per batch.
+ */
+public class ModuleEnhancer {
+
+    private final ClassLoaderPool sharedLoaders;
+
+    /**
+     * @param sharedLoaders pool of OpenJpa and library class loaders
+     */
+    public ModuleEnhancer(final ClassLoaderPool sharedLoaders) {
+        this.sharedLoaders = sharedLoaders;
+    }
+
+    /**
+     * Enhance a batch.<br/>
+     * <br/>
+     * Classes implementing PersistenceCapable before are skipped ({@link ClassResult#UNCHANGED}). Classes
+     * implementing it after a successful run are {@link ClassResult#ENHANCED}, the others had nothing to enhance
+     * (e.g. managed interfaces or persistence aware classes, which don't implement it) and are
+     * {@link ClassResult#UNCHANGED} as well. Only if the enhancer fails (reports failure or throws), classes
+     * not enhanced are {@link ClassResult#FAILED}.
+     *
+     * @param request the batch
+     * @return per class results and the enhancer's error message (if any)
+     * @throws IOException            .
+     * @throws ClassNotFoundException if OpenJpa is not on the request's class path
+     * @throws IllegalAccessException .
+     * @throws InstantiationException .
+     * @throws NoSuchMethodException  .
+     */
+    @SuppressWarnings("FeatureEnvy")
+    public EnhanceResponse enhance(final EnhanceRequest request)
+            throws IOException, ClassNotFoundException, IllegalAccessException, InstantiationException, NoSuchMethodException {
+
+        final Map<String, ClassResult> results = new LinkedHashMap<String, ClassResult>();
+        final List<String> toEnhance = new ArrayList<String>();
+        for (final String classFile : request.getClassFiles()) {
+            if (OpenJpaEnhancerInvoker.isEnhanced(classFile)) {
+                results.put(classFile, ClassResult.UNCHANGED);
+            } else {
+                toEnhance.add(classFile);
+            }
+        }
+        if (toEnhance.isEmpty()) {
+            return new EnhanceResponse(results, null);
+        }
+
+        final List<URL> classPath = new ArrayList<URL>(request.getClassPath().size());
+        for (final String url : request.getClassPath()) {
+            classPath.add(new URL(url));
+        }
+
+        String message = null;
+        final URLClassLoader parent = this.sharedLoaders.acquire(classPath);
+        try {
+            final URLClassLoader moduleClassLoader =
+                    new URLClassLoader(new URL[]{new URL(request.getOutputDirectory())}, parent);
+            try {
+                final OpenJpaEnhancerInvoker invoker = new OpenJpaEnhancerInvoker(moduleClassLoader);
+                final boolean done = invoker.run(toEnhance, request.isAddDefaultConstructor(),
+                        request.isEnforcePropertyRestrictions(), request.isTmpClassLoader());
+                if (!done) {
+                    message = "Enhancer reported failure";
+                }
+            } catch (InvocationTargetException e) {
+                message = getStackTrace(e.getCause() == null ? e : e.getCause());
+            } finally {
+                moduleClassLoader.close();
+            }
+        } finally {
+            this.sharedLoaders.release(parent);
+        }
+
+        for (final String classFile : toEnhance) {
+            if (OpenJpaEnhancerInvoker.isEnhanced(classFile)) {
+                results.put(classFile, ClassResult.ENHANCED);
+            } else {
+                // the enhancer's status tells apart failures from classes with nothing to enhance
+                results.put(classFile, message == null ? ClassResult.UNCHANGED : ClassResult.FAILED);
+            }
+        }
+        return new EnhanceResponse(results, message);
+    }
+
+    //
+    // Helper methods
+    //
+
+    static String getStackTrace(final Throwable t) {
+        final StringWriter stringWriter = new StringWriter();
+        t.printStackTrace(new PrintWriter(stringWriter));
+        return stringWriter.toString();
+    }
+
+}
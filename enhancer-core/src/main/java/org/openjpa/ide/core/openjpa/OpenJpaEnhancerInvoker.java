@@ -0,0 +1,162 @@
+package org.openjpa.ide.core.openjpa;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjpa.ide.core.util.ClassFileScanner;
+import org.openjpa.ide.core.util.MethodHandleCache;
+import org.openjpa.ide.core.util.ResolvedMethod;
+
+/**
+ * Reflective invocation of OpenJpa's PCEnhancer inside a provided {@link ClassLoader}.<br/>
+ * <br/>
+ * Only depends on the JDK (and {@link ClassFileScanner}), so it's shared by the IDE's in-process enhancer proxy
+ * and the out-of-process {@link EnhancerDaemonMain}.
+ */
+public class OpenJpaEnhancerInvoker {
+
+    public static final String ENHANCER_CLASS_FQ = "org.apache.openjpa.enhance.PCEnhancer";
+
+    public static final String PERSISTENCE_CAPABLE_CLASS_FQ = "org.apache.openjpa.enhance.PersistenceCapable";
+
+    private static final String OPTION_ADD_DEFAULT_CONSTRUCTOR = "addDefaultConstructor";
+
+    private static final String OPTION_ENFORCE_PROPERTY_RESTRICTION = "enforcePropertyRestrictions";
+
+    private static final String OPTION_USE_TMP_CLASSLOADER = "tcl";
+
+    private final ClassLoader classLoader;
+
+    private final ResolvedMethod newOptions;
+
+    private final ResolvedMethod setOption;
+
+    private final ResolvedMethod newConfig;
+
+    private final ResolvedMethod setSpecification;
+
+    private final ResolvedMethod runEnhancer;
+
+    /**
+     * Loads the enhancer classes and resolves all methods used (once per enhancer ClassLoader,
+     * see {@link MethodHandleCache}).
+     *
+     * @param classLoader loader containing OpenJpa and the classes to enhance
+     * @throws ClassNotFoundException if OpenJpa is not available
+     * @throws NoSuchMethodException  if the OpenJpa version is not supported (message names the missing signature)
+     */
+    public OpenJpaEnhancerInvoker(final ClassLoader classLoader) throws ClassNotFoundException, NoSuchMethodException {
+        this.classLoader = classLoader;
+        final Class<?> enhancerClass = Class.forName(ENHANCER_CLASS_FQ, true, classLoader);
+        final Class<?> optionsClass = Class.forName("org.apache.openjpa.lib.util.Options", true, classLoader);
+        final Class<?> configParamClass = Class.forName("org.apache.openjpa.conf.OpenJPAConfiguration", true, classLoader);
+        final Class<?> configClass = Class.forName("org.apache.openjpa.conf.OpenJPAConfigurationImpl", true, classLoader);
+
+        this.newOptions = MethodHandleCache.findConstructor(optionsClass);
+        this.setOption = MethodHandleCache.findVirtual(optionsClass, "setProperty", void.class, String.class, boolean.class);
+        this.newConfig = MethodHandleCache.findConstructor(configClass);
+        this.setSpecification = findSetSpecification(configClass);
+        this.runEnhancer = MethodHandleCache.findStatic(enhancerClass, "run", boolean.class,
+                configParamClass, String[].class, optionsClass);
+    }
+
+    /**
+     * Run the enhancer, the invoker's ClassLoader is used as thread context ClassLoader meanwhile.
+     *
+     * @param classFiles                  full paths of the class files to enhance (never empty, the enhancer would
+     *                                    enhance all classes it can find otherwise)
+     * @param addDefaultConstructor       .
+     * @param enforcePropertyRestrictions .
+     * @param tmpClassLoader              load classes to enhance through a temporary ClassLoader
+     * @return true if the enhancer reports success
+     * @throws InvocationTargetException if OpenJpa fails (the cause is OpenJpa's exception)
+     */
+    public boolean run(final Collection<String> classFiles,
+                       final boolean addDefaultConstructor,
+                       final boolean enforcePropertyRestrictions,
+                       final boolean tmpClassLoader) throws InvocationTargetException {
+
+        final Object options = this.createOptions(addDefaultConstructor, enforcePropertyRestrictions, tmpClassLoader);
+        final Object jpaConfig = this.createConfig();
+        final String[] args = classFiles.toArray(new String[classFiles.size()]);
+
+        // module classes may only be visible to the invoker's loader, not to the loader of the enhancer classes
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        currentThread.setContextClassLoader(this.classLoader);
+        try {
+            return (Boolean) this.runEnhancer.invoke(jpaConfig, args, options);
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * Checks if a class file already implements {@link #PERSISTENCE_CAPABLE_CLASS_FQ} (e.g. enhanced by an earlier run),
+     * by reading its class file header only (see {@link ClassFileScanner}).
+     *
+     * @param classFile full path of the class file
+     * @return true if enhanced, false if not or the file can't be read
+     */
+    public static boolean isEnhanced(final String classFile) {
+        try {
+            return ClassFileScanner.implementsInterface(new File(classFile), PERSISTENCE_CAPABLE_CLASS_FQ);
+        } catch (IOException ignored) {
+            return false;
+        }
+    }
+
+    /**
+     * Filters out already enhanced classes, see {@link #isEnhanced(String)}.<br/>
+     * Unreadable class files are kept, so the enhancer reports the error.
+     *
+     * @param classFiles full paths of class files
+     * @return class files still to enhance
+     */
+    public static List<String> getUnenhancedClasses(final Collection<String> classFiles) {
+        final List<String> unenhanced = new ArrayList<String>(classFiles.size());
+        for (final String classFile : classFiles) {
+            if (!isEnhanced(classFile)) {
+                unenhanced.add(classFile);
+            }
+        }
+        return unenhanced;
+    }
+
+    //
+    // Helper methods
+    //
+
+    /**
+     * 'setSpecification' returns a boolean since OpenJpa 2.0 (void before).
+     */
+    private static ResolvedMethod findSetSpecification(final Class<?> configClass) throws NoSuchMethodException {
+        try {
+            return MethodHandleCache.findVirtual(configClass, "setSpecification", boolean.class, String.class);
+        } catch (NoSuchMethodException ignored) {
+            return MethodHandleCache.findVirtual(configClass, "setSpecification", void.class, String.class);
+        }
+    }
+
+    private Object createOptions(final boolean addDefaultConstructor,
+                                 final boolean enforcePropertyRestrictions,
+                                 final boolean tmpClassLoader) throws InvocationTargetException {
+
+        final Object options = this.newOptions.invoke();
+        this.setOption.invoke(options, OPTION_ADD_DEFAULT_CONSTRUCTOR, addDefaultConstructor);
+        this.setOption.invoke(options, OPTION_ENFORCE_PROPERTY_RESTRICTION, enforcePropertyRestrictions);
+        this.setOption.invoke(options, OPTION_USE_TMP_CLASSLOADER, tmpClassLoader);
+        return options;
+    }
+
+    private Object createConfig() throws InvocationTargetException {
+        final Object config = this.newConfig.invoke();
+        this.setSpecification.invoke(config, "jpa");
+        return config;
+    }
+
+}
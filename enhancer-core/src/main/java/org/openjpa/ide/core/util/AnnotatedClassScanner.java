@@ -0,0 +1,95 @@
+package org.openjpa.ide.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Finds annotated classes by reading the class level annotations of all class files in a directory tree
+ * (see {@link ClassFileScanner#scan(java.io.InputStream)}).<br/>
+ * <br/>
+ * Needs neither an IDE index nor sources, so it works while indexes are rebuilt and finds classes compiled from
+ * any language (or generated by annotation processors). Sub directories are walked and their class files read in
+ * parallel ({@link DirectoryWalker}).
+ */
+public abstract class AnnotatedClassScanner {
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private AnnotatedClassScanner() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Find classes annotated with any of the given annotations (symbolic links are not followed).<br/>
+     * Unreadable directories, entries (e.g. deleted while walking) and unreadable or invalid class files are skipped.
+     *
+     * @param rootDir         the directory to start with (e.g. a module output directory)
+     * @param annotationNames fully qualified annotation names (e.g. 'javax.persistence.Entity')
+     * @return class files by (binary) class name, sorted by class name
+     */
+    public static Map<String, Path> findAnnotatedClasses(final Path rootDir, final Collection<String> annotationNames) {
+        if (annotationNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Set<String> searched = new HashSet<String>(annotationNames);
+        final Map<String, Path> found = new TreeMap<String, Path>();
+        for (final Map.Entry<String, Path> annotatedClass : DirectoryWalker.walk(rootDir,
+                new DirectoryWalker.FileVisitor<Map.Entry<String, Path>>() {
+                    @Override
+                    public boolean accept(final String fileName) {
+                        return true;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Path> visit(final Path file) {
+                        if (!file.getFileName().toString().endsWith(CLASS_FILE_SUFFIX)) {
+                            return null;
+                        }
+                        final String className = scan(file, searched);
+                        return className == null ? null : new AbstractMap.SimpleImmutableEntry<String, Path>(className, file);
+                    }
+                })) {
+            found.put(annotatedClass.getKey(), annotatedClass.getValue());
+        }
+        return found;
+    }
+
+    //
+    // Helper methods
+    //
+
+    /**
+     * @return the class name if the class has any of the annotations, null otherwise
+     */
+    private static String scan(final Path classFile, final Set<String> annotationNames) {
+        try {
+            final InputStream in = new BufferedInputStream(Files.newInputStream(classFile), BUFFER_SIZE);
+            try {
+                final ClassFileInfo classFileInfo = ClassFileScanner.scan(in);
+                for (final String annotation : classFileInfo.getAnnotations()) {
+                    if (annotationNames.contains(annotation)) {
+                        return classFileInfo.getName();
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException ignored) {
+            // unreadable (e.g. being written by the compiler) or no valid class file, skip
+        }
+        return null;
+    }
+
+}
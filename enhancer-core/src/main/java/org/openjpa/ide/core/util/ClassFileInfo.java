@@ -0,0 +1,89 @@
+package org.openjpa.ide.core.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class level information read from a class file (see {@link ClassFileScanner#scan(java.io.InputStream)}).<br/>
+ * <br/>
+ * All names are fully qualified binary names (e.g. 'org.example.Outer$Inner').
+ */
+public final class ClassFileInfo {
+
+    private final String name;
+
+    private final String superName;
+
+    private final List<String> interfaces;
+
+    private final List<String> annotations;
+
+    private final List<String> fieldTypes;
+
+    private final List<String> embeddedTypes;
+
+    ClassFileInfo(final String name,
+                  final String superName,
+                  final List<String> interfaces,
+                  final List<String> annotations,
+                  final Collection<String> fieldTypes,
+                  final Collection<String> embeddedTypes) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = Collections.unmodifiableList(new ArrayList<String>(interfaces));
+        this.annotations = Collections.unmodifiableList(new ArrayList<String>(annotations));
+        this.fieldTypes = Collections.unmodifiableList(new ArrayList<String>(fieldTypes));
+        this.embeddedTypes = Collections.unmodifiableList(new ArrayList<String>(embeddedTypes));
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return super class name, null for 'java.lang.Object' (and module infos)
+     */
+    public String getSuperName() {
+        return this.superName;
+    }
+
+    public List<String> getInterfaces() {
+        return this.interfaces;
+    }
+
+    /**
+     * @return class level annotation types (runtime visible and invisible)
+     */
+    public List<String> getAnnotations() {
+        return this.annotations;
+    }
+
+    /**
+     * @return distinct class types of the declared fields, including array element types and type arguments
+     *         (e.g. 'org.example.Address' of a 'List&lt;Address&gt;' field)
+     */
+    public List<String> getFieldTypes() {
+        return this.fieldTypes;
+    }
+
+    /**
+     * Types the class may embed: the types of fields annotated as embedded (of element collections their type
+     * arguments) and the declared types of other persistent fields, which are embedded if the type is an
+     * embeddable.<br/>
+     * Relation fields (e.g. '@ManyToOne'), transient and static fields are left out, as they only reference
+     * their type.
+     *
+     * @return distinct class types of possibly embedding fields
+     */
+    public List<String> getEmbeddedTypes() {
+        return this.embeddedTypes;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
@@ -0,0 +1,522 @@
+package org.openjpa.ide.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Minimal class file reader working on the raw class file format.<br/>
+ * <br/>
+ * Classes are never loaded. {@link #implementsInterface(java.io.File, String)} only reads the constant pool and the
+ * class header (access flags, this class, super class and interfaces table), everything following the interfaces
+ * table is skipped. {@link #scan(java.io.InputStream)} additionally reads the class level annotations and the field
+ * types and annotations, skipping methods.<br/>
+ * This is orders of magnitudes cheaper than loading a class or parsing it with a byte code library.
+ */
+public abstract class ClassFileScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    //
+    // constant pool tags
+    //
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    //
+    // attribute names
+    //
+
+    private static final String ATTRIBUTE_RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String ATTRIBUTE_RUNTIME_INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+    private static final String ATTRIBUTE_SIGNATURE = "Signature";
+
+    //
+    // field access flags
+    //
+
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_TRANSIENT = 0x0080;
+
+    //
+    // field annotations
+    //
+
+    /**
+     * Fields embedding their type (collections: their type arguments)
+     */
+    private static final Set<String> EMBEDDING_ANNOTATIONS = new HashSet<String>(Arrays.asList(
+            "javax.persistence.Embedded",
+            "javax.persistence.EmbeddedId",
+            "javax.persistence.ElementCollection",
+            "javax.jdo.annotations.Embedded"));
+
+    /**
+     * Fields referencing (or not persisting) their type, they never embed it
+     */
+    private static final Set<String> NON_EMBEDDING_ANNOTATIONS = new HashSet<String>(Arrays.asList(
+            "javax.persistence.OneToOne",
+            "javax.persistence.ManyToOne",
+            "javax.persistence.OneToMany",
+            "javax.persistence.ManyToMany",
+            "javax.persistence.Transient",
+            "javax.jdo.annotations.NotPersistent"));
+
+    private ClassFileScanner() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Check if a class file directly implements an interface.
+     *
+     * @param classFile     the class file
+     * @param interfaceName fully qualified interface name (e.g. 'org.apache.openjpa.enhance.PersistenceCapable')
+     * @return true if the interface is part of the class' interfaces table
+     * @throws IOException if the file can't be read or is no valid class file
+     */
+    public static boolean implementsInterface(final File classFile, final String interfaceName) throws IOException {
+        final InputStream in = new BufferedInputStream(new FileInputStream(classFile), BUFFER_SIZE);
+        try {
+            return implementsInterface(in, interfaceName);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Check if a class file directly implements an interface.
+     *
+     * @param classFile     class file content
+     * @param interfaceName fully qualified interface name (e.g. 'org.apache.openjpa.enhance.PersistenceCapable')
+     * @return true if the interface is part of the class' interfaces table
+     * @throws IOException if the content is no valid class file
+     */
+    public static boolean implementsInterface(final InputStream classFile, final String interfaceName) throws IOException {
+        final byte[] internalName = toInternalName(interfaceName).getBytes(UTF_8);
+        final DataInputStream in = new DataInputStream(classFile);
+        final ConstantPool constantPool = readHeader(in);
+        final int interfacesCount = in.readUnsignedShort();
+        for (int i = 0; i < interfacesCount; ++i) {
+            if (Arrays.equals(internalName, constantPool.getClassNameBytes(in.readUnsignedShort()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the names of all interfaces a class directly implements.
+     *
+     * @param classFile class file content
+     * @return fully qualified interface names
+     * @throws IOException if the content is no valid class file
+     */
+    public static String[] readInterfaces(final InputStream classFile) throws IOException {
+        final DataInputStream in = new DataInputStream(classFile);
+        final ConstantPool constantPool = readHeader(in);
+        final String[] interfaces = new String[in.readUnsignedShort()];
+        for (int i = 0; i < interfaces.length; ++i) {
+            interfaces[i] = toQualifiedName(constantPool.getClassName(in.readUnsignedShort()));
+        }
+        return interfaces;
+    }
+
+    /**
+     * Read class name, super class, interfaces, class level annotations (visible and invisible at runtime),
+     * field types and the types embedded by the fields.
+     *
+     * @param classFile class file content
+     * @return .
+     * @throws IOException if the content is no valid class file
+     */
+    public static ClassFileInfo scan(final InputStream classFile) throws IOException {
+        final DataInputStream in = new DataInputStream(classFile);
+        final ConstantPool constantPool = readConstantPool(in);
+
+        // access flags
+        in.readUnsignedShort();
+        final String name = toQualifiedName(constantPool.getClassName(in.readUnsignedShort()));
+        final int superClassIndex = in.readUnsignedShort();
+        final String superName = superClassIndex == 0 ? null : toQualifiedName(constantPool.getClassName(superClassIndex));
+
+        final String[] interfaces = new String[in.readUnsignedShort()];
+        for (int i = 0; i < interfaces.length; ++i) {
+            interfaces[i] = toQualifiedName(constantPool.getClassName(in.readUnsignedShort()));
+        }
+
+        final Set<String> fieldTypes = new LinkedHashSet<String>();
+        final Set<String> embeddedTypes = new LinkedHashSet<String>();
+        readFieldTypes(in, constantPool, fieldTypes, embeddedTypes);
+        // methods
+        skipMembers(in);
+
+        final List<String> annotations = new ArrayList<String>();
+        final int attributesCount = in.readUnsignedShort();
+        for (int i = 0; i < attributesCount; ++i) {
+            final String attributeName = constantPool.getUtf8(in.readUnsignedShort());
+            final int length = in.readInt();
+            if (ATTRIBUTE_RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)
+                    || ATTRIBUTE_RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
+                final int annotationsCount = in.readUnsignedShort();
+                for (int j = 0; j < annotationsCount; ++j) {
+                    annotations.add(descriptorToQualifiedName(constantPool.getUtf8(in.readUnsignedShort())));
+                    skipAnnotationElements(in);
+                }
+            } else {
+                ConstantPool.skipFully(in, length);
+            }
+        }
+
+        return new ClassFileInfo(name, superName, Arrays.asList(interfaces), annotations, fieldTypes, embeddedTypes);
+    }
+
+    //
+    // Helper methods
+    //
+
+    /**
+     * Reads everything up to (excluding) the interfaces table.
+     */
+    private static ConstantPool readHeader(final DataInputStream in) throws IOException {
+        final ConstantPool constantPool = readConstantPool(in);
+
+        // access flags, this class and super class
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        return constantPool;
+    }
+
+    /**
+     * Reads everything up to (excluding) the access flags.
+     */
+    private static ConstantPool readConstantPool(final DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        // minor and major version
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        return ConstantPool.read(in);
+    }
+
+    /**
+     * Reads the class types of the fields table's descriptors and generic signatures, and the types possibly
+     * embedded by the fields (see {@link ClassFileInfo#getEmbeddedTypes()}).
+     */
+    private static void readFieldTypes(final DataInputStream in,
+                                       final ConstantPool constantPool,
+                                       final Set<String> fieldTypes,
+                                       final Set<String> embeddedTypes) throws IOException {
+        final int fieldsCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldsCount; ++i) {
+            final int accessFlags = in.readUnsignedShort();
+            // name
+            in.readUnsignedShort();
+            final String descriptor = constantPool.getUtf8(in.readUnsignedShort());
+            String signature = null;
+            boolean embedding = false;
+            boolean nonEmbedding = (accessFlags & (ACC_STATIC | ACC_TRANSIENT)) != 0;
+            final int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; ++j) {
+                final String attributeName = constantPool.getUtf8(in.readUnsignedShort());
+                final int length = in.readInt();
+                if (ATTRIBUTE_SIGNATURE.equals(attributeName)) {
+                    signature = constantPool.getUtf8(in.readUnsignedShort());
+                } else if (ATTRIBUTE_RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)
+                        || ATTRIBUTE_RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
+                    final int annotationsCount = in.readUnsignedShort();
+                    for (int k = 0; k < annotationsCount; ++k) {
+                        final String annotation = descriptorToQualifiedName(constantPool.getUtf8(in.readUnsignedShort()));
+                        embedding |= EMBEDDING_ANNOTATIONS.contains(annotation);
+                        nonEmbedding |= NON_EMBEDDING_ANNOTATIONS.contains(annotation);
+                        skipAnnotationElements(in);
+                    }
+                } else {
+                    ConstantPool.skipFully(in, length);
+                }
+            }
+
+            addClassTypes(descriptor, fieldTypes);
+            if (signature != null) {
+                addClassTypes(signature, fieldTypes);
+            }
+            if (embedding) {
+                // including the element types of element collections
+                addClassTypes(signature == null ? descriptor : signature, embeddedTypes);
+            } else if (!nonEmbedding) {
+                // embedded by default if its type is an embeddable
+                addClassTypes(descriptor, embeddedTypes);
+            }
+        }
+    }
+
+    /**
+     * Adds the class types of a field descriptor or field signature (e.g. 'Ljava/util/List&lt;Lorg/example/Address;&gt;;'),
+     * type variables and primitive types are skipped, of inner class signatures only the outer class is added.
+     */
+    @SuppressWarnings("MagicCharacter")
+    private static void addClassTypes(final String signature, final Collection<String> classTypes) {
+        int i = 0;
+        while (i < signature.length()) {
+            final char c = signature.charAt(i);
+            if (c == 'L') {
+                final int end = indexOfAny(signature, i + 1, ";<.");
+                classTypes.add(toQualifiedName(signature.substring(i + 1, end)));
+                i = end;
+            } else if (c == 'T' || c == '.') {
+                // type variable or inner class name
+                i = indexOfAny(signature, i + 1, ";<.");
+                if (c == 'T') {
+                    ++i;
+                }
+            } else {
+                // array, primitive type, type arguments and wildcards
+                ++i;
+            }
+        }
+    }
+
+    private static int indexOfAny(final String s, final int from, final String chars) {
+        for (int i = from; i < s.length(); ++i) {
+            if (chars.indexOf(s.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return s.length();
+    }
+
+    /**
+     * Skips the fields or methods table.
+     */
+    private static void skipMembers(final DataInputStream in) throws IOException {
+        final int membersCount = in.readUnsignedShort();
+        for (int i = 0; i < membersCount; ++i) {
+            // access flags, name and descriptor
+            ConstantPool.skipFully(in, 6);
+            final int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; ++j) {
+                // attribute name
+                in.readUnsignedShort();
+                ConstantPool.skipFully(in, in.readInt());
+            }
+        }
+    }
+
+    /**
+     * Skips the element value pairs of an annotation.
+     */
+    private static void skipAnnotationElements(final DataInputStream in) throws IOException {
+        final int pairsCount = in.readUnsignedShort();
+        for (int i = 0; i < pairsCount; ++i) {
+            // element name
+            in.readUnsignedShort();
+            skipElementValue(in);
+        }
+    }
+
+    @SuppressWarnings("MagicCharacter")
+    private static void skipElementValue(final DataInputStream in) throws IOException {
+        final int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'B':
+            case 'C':
+            case 'D':
+            case 'F':
+            case 'I':
+            case 'J':
+            case 'S':
+            case 'Z':
+            case 's':
+            case 'c':
+                ConstantPool.skipFully(in, 2);
+                break;
+            case 'e':
+                ConstantPool.skipFully(in, 4);
+                break;
+            case '@':
+                // annotation type
+                in.readUnsignedShort();
+                skipAnnotationElements(in);
+                break;
+            case '[':
+                final int valuesCount = in.readUnsignedShort();
+                for (int i = 0; i < valuesCount; ++i) {
+                    skipElementValue(in);
+                }
+                break;
+            default:
+                throw new IOException("invalid annotation element value tag " + tag);
+        }
+    }
+
+    /**
+     * @param descriptor field descriptor of a class type (e.g. 'Ljavax/persistence/Entity;')
+     * @return fully qualified name
+     */
+    @SuppressWarnings("MagicCharacter")
+    private static String descriptorToQualifiedName(final String descriptor) throws IOException {
+        if (descriptor.length() < 3 || descriptor.charAt(0) != 'L' || descriptor.charAt(descriptor.length() - 1) != ';') {
+            throw new IOException("invalid class type descriptor " + descriptor);
+        }
+        return toQualifiedName(descriptor.substring(1, descriptor.length() - 1));
+    }
+
+    @SuppressWarnings("MagicCharacter")
+    private static String toInternalName(final String qualifiedName) {
+        return qualifiedName.replace('.', '/');
+    }
+
+    @SuppressWarnings("MagicCharacter")
+    private static String toQualifiedName(final String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Class file constant pool, only utf8 and class entries are kept (utf8 entries undecoded).
+     */
+    private static class ConstantPool {
+
+        private final byte[][] utf8Entries;
+
+        private final int[] classNameIndexes;
+
+        private ConstantPool(final int size) {
+            this.utf8Entries = new byte[size][];
+            this.classNameIndexes = new int[size];
+        }
+
+        private static ConstantPool read(final DataInputStream in) throws IOException {
+            final int size = in.readUnsignedShort();
+            final ConstantPool constantPool = new ConstantPool(size);
+            for (int i = 1; i < size; ++i) {
+                final int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case CONSTANT_UTF8:
+                        final byte[] bytes = new byte[in.readUnsignedShort()];
+                        in.readFully(bytes);
+                        constantPool.utf8Entries[i] = bytes;
+                        break;
+                    case CONSTANT_CLASS:
+                        constantPool.classNameIndexes[i] = in.readUnsignedShort();
+                        break;
+                    case CONSTANT_STRING:
+                    case CONSTANT_METHOD_TYPE:
+                    case CONSTANT_MODULE:
+                    case CONSTANT_PACKAGE:
+                        skipFully(in, 2);
+                        break;
+                    case CONSTANT_METHOD_HANDLE:
+                        skipFully(in, 3);
+                        break;
+                    case CONSTANT_INTEGER:
+                    case CONSTANT_FLOAT:
+                    case CONSTANT_FIELDREF:
+                    case CONSTANT_METHODREF:
+                    case CONSTANT_INTERFACE_METHODREF:
+                    case CONSTANT_NAME_AND_TYPE:
+                    case CONSTANT_DYNAMIC:
+                    case CONSTANT_INVOKE_DYNAMIC:
+                        skipFully(in, 4);
+                        break;
+                    case CONSTANT_LONG:
+                    case CONSTANT_DOUBLE:
+                        // 8 byte constants take up two entries
+                        skipFully(in, 8);
+                        ++i;
+                        break;
+                    default:
+                        throw new IOException("invalid constant pool tag " + tag + " at index " + i);
+                }
+            }
+            return constantPool;
+        }
+
+        private byte[] getClassNameBytes(final int classIndex) throws IOException {
+            if (classIndex <= 0 || classIndex >= this.classNameIndexes.length || this.classNameIndexes[classIndex] == 0) {
+                throw new IOException("invalid class constant index " + classIndex);
+            }
+            final byte[] name = this.utf8Entries[this.classNameIndexes[classIndex]];
+            if (name == null) {
+                throw new IOException("invalid class name index at constant " + classIndex);
+            }
+            return name;
+        }
+
+        private String getClassName(final int classIndex) throws IOException {
+            return decode(this.getClassNameBytes(classIndex));
+        }
+
+        private String getUtf8(final int utf8Index) throws IOException {
+            if (utf8Index <= 0 || utf8Index >= this.utf8Entries.length || this.utf8Entries[utf8Index] == null) {
+                throw new IOException("invalid utf8 constant index " + utf8Index);
+            }
+            return decode(this.utf8Entries[utf8Index]);
+        }
+
+        /**
+         * Decodes the class file's modified utf8 format.
+         */
+        private static String decode(final byte[] bytes) throws IOException {
+            final byte[] withLength = new byte[bytes.length + 2];
+            withLength[0] = (byte) (bytes.length >>> 8);
+            withLength[1] = (byte) bytes.length;
+            System.arraycopy(bytes, 0, withLength, 2, bytes.length);
+            return new DataInputStream(new ByteArrayInputStream(withLength)).readUTF();
+        }
+
+        private static void skipFully(final DataInputStream in, final int count) throws IOException {
+            int remaining = count;
+            while (remaining > 0) {
+                final int skipped = in.skipBytes(remaining);
+                if (skipped <= 0) {
+                    // skipBytes may skip less, fall back to reading
+                    in.readByte();
+                    --remaining;
+                } else {
+                    remaining -= skipped;
+                }
+            }
+        }
+
+    }
+
+}
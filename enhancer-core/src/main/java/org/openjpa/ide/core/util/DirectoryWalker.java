@@ -0,0 +1,139 @@
+package org.openjpa.ide.core.util;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks a directory tree on disk, sub directories in parallel on a shared {@link ForkJoinPool}, passing every
+ * regular file to a {@link FileVisitor}.<br/>
+ * <br/>
+ * Symbolic links are not followed. Unreadable directories and entries (e.g. deleted by a running compiler while
+ * walking) are skipped, like walking the VFS would.
+ */
+final class DirectoryWalker {
+
+    /**
+     * Shared by the output directory scanners of this package
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private DirectoryWalker() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Walk a directory tree.
+     *
+     * @param rootDir the directory to start with
+     * @param visitor visits the regular files, called concurrently
+     * @param <R>     visit result type
+     * @return the (non null) visit results (unordered)
+     */
+    static <R> List<R> walk(final Path rootDir, final FileVisitor<R> visitor) {
+        if (!Files.isDirectory(rootDir)) {
+            return Collections.emptyList();
+        }
+        return POOL.invoke(new DirectoryTask<R>(rootDir, visitor));
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Visits the files of a directory tree.
+     *
+     * @param <R> visit result type
+     */
+    interface FileVisitor<R> {
+
+        /**
+         * Pre-check an entry by its name, before its file attributes are read.
+         *
+         * @param fileName name of a file or directory
+         * @return false to skip the entry (must not be used for directories to walk)
+         */
+        boolean accept(String fileName);
+
+        /**
+         * Visit a regular file.
+         *
+         * @param file the file
+         * @return the result, null if none
+         */
+        R visit(Path file);
+
+    }
+
+    private static class DirectoryTask<R> extends RecursiveTask<List<R>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+
+        private final FileVisitor<R> visitor;
+
+        private DirectoryTask(final Path directory, final FileVisitor<R> visitor) {
+            this.directory = directory;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected List<R> compute() {
+            final List<R> found = new ArrayList<R>();
+            final List<DirectoryTask<R>> subTasks = new ArrayList<DirectoryTask<R>>();
+
+            try {
+                final DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory);
+                try {
+                    for (final Path entry : entries) {
+                        if (!this.visitor.accept(entry.getFileName().toString())) {
+                            continue;
+                        }
+
+                        final BasicFileAttributes attributes;
+                        try {
+                            attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException ignored) {
+                            // deleted meanwhile or unreadable, skip only this entry
+                            continue;
+                        }
+                        if (attributes.isDirectory()) {
+                            final DirectoryTask<R> subTask = new DirectoryTask<R>(entry, this.visitor);
+                            subTask.fork();
+                            subTasks.add(subTask);
+                        } else if (attributes.isRegularFile()) {
+                            final R result = this.visitor.visit(entry);
+                            if (result != null) {
+                                found.add(result);
+                            }
+                        }
+                    }
+                } finally {
+                    entries.close();
+                }
+            } catch (IOException ignored) {
+                // unreadable directory, skip like VFS would
+            } catch (DirectoryIteratorException ignored) {
+                // directory became unreadable while iterating, keep the entries found so far
+            }
+
+            for (final DirectoryTask<R> subTask : subTasks) {
+                found.addAll(subTask.join());
+            }
+            return found;
+        }
+
+    }
+
+}
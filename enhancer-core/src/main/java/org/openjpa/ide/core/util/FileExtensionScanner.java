@@ -0,0 +1,67 @@
+package org.openjpa.ide.core.util;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds files by extension on disk, matching all extensions in a single directory tree walk.<br/>
+ * <br/>
+ * Sub directories are walked in parallel ({@link DirectoryWalker}). Unlike walking the VFS this does not
+ * create (or refresh) virtual files for the (usually many) class files in output directories,
+ * callers only resolve virtual files for the matches.
+ */
+public abstract class FileExtensionScanner {
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private FileExtensionScanner() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Find files by extension by traversing the directory tree (symbolic links are not followed).<br/>
+     * Unreadable directories and entries (e.g. deleted while walking) are skipped.
+     *
+     * @param rootDir    the directory to start with
+     * @param extensions the extensions to search for (without '.')
+     * @return files matching any of the extensions (unordered)
+     */
+    public static List<Path> findFilesByExtensions(final Path rootDir, final Collection<String> extensions) {
+        if (extensions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Set<String> searched = new HashSet<String>(extensions);
+        final boolean classExtensionSearched = searched.contains(getExtension(CLASS_FILE_SUFFIX));
+        return DirectoryWalker.walk(rootDir, new DirectoryWalker.FileVisitor<Path>() {
+            @Override
+            public boolean accept(final String fileName) {
+                // class files are by far the most entries of output directories, never package directories
+                // -> spare reading their file attributes
+                return classExtensionSearched || !fileName.endsWith(CLASS_FILE_SUFFIX);
+            }
+
+            @Override
+            public Path visit(final Path file) {
+                return searched.contains(getExtension(file.getFileName().toString())) ? file : null;
+            }
+        });
+    }
+
+    //
+    // Helper methods
+    //
+
+    /**
+     * Text after the last '.', null if there's none (same semantics as IntelliJ's VirtualFile#getExtension()).
+     */
+    @SuppressWarnings("MagicCharacter")
+    private static String getExtension(final String fileName) {
+        final int index = fileName.lastIndexOf('.');
+        return index < 0 ? null : fileName.substring(index + 1);
+    }
+
+}
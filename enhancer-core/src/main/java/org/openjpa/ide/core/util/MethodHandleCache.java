@@ -0,0 +1,179 @@
+package org.openjpa.ide.core.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves methods and constructors of classes loaded by foreign (e.g. enhancer) ClassLoaders once and caches them
+ * as {@link ResolvedMethod}s, shared by all enhancer integrations.<br/>
+ * <br/>
+ * Resolved methods are stored per target class with a {@link ClassValue}, i.e. inside the class itself instead of a
+ * global map, so they never keep an enhancer ClassLoader alive. Missing signatures fail on resolution with a
+ * {@link NoSuchMethodException} naming the class, signature and ClassLoader, not on the first invocation.
+ */
+public abstract class MethodHandleCache {
+
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    private static final ClassValue<ConcurrentMap<String, ResolvedMethod>> RESOLVED =
+            new ClassValue<ConcurrentMap<String, ResolvedMethod>>() {
+                @Override
+                protected ConcurrentMap<String, ResolvedMethod> computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<String, ResolvedMethod>();
+                }
+            };
+
+    private MethodHandleCache() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Resolve a public constructor.
+     *
+     * @param type           the class to instantiate
+     * @param parameterTypes constructor parameter types
+     * @return the constructor, invoked with its arguments only
+     * @throws NoSuchMethodException if there's no such public constructor
+     */
+    public static ResolvedMethod findConstructor(final Class<?> type, final Class<?>... parameterTypes)
+            throws NoSuchMethodException {
+        return find(type, CONSTRUCTOR_NAME, void.class, parameterTypes, false);
+    }
+
+    /**
+     * Resolve a static method, public or declared by the class itself.
+     *
+     * @param type           declaring class
+     * @param name           method name
+     * @param returnType     method return type
+     * @param parameterTypes method parameter types
+     * @return the method, invoked with its arguments only
+     * @throws NoSuchMethodException if there's no such static method
+     */
+    public static ResolvedMethod findStatic(final Class<?> type,
+                                            final String name,
+                                            final Class<?> returnType,
+                                            final Class<?>... parameterTypes) throws NoSuchMethodException {
+        return find(type, name, returnType, parameterTypes, true);
+    }
+
+    /**
+     * Resolve an instance method, public or declared by the class or one of its super classes.
+     *
+     * @param type           receiver class
+     * @param name           method name
+     * @param returnType     method return type
+     * @param parameterTypes method parameter types
+     * @return the method, invoked with the receiver followed by its arguments
+     * @throws NoSuchMethodException if there's no such instance method
+     */
+    public static ResolvedMethod findVirtual(final Class<?> type,
+                                             final String name,
+                                             final Class<?> returnType,
+                                             final Class<?>... parameterTypes) throws NoSuchMethodException {
+        return find(type, name, returnType, parameterTypes, false);
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static ResolvedMethod find(final Class<?> type,
+                                       final String name,
+                                       final Class<?> returnType,
+                                       final Class<?>[] parameterTypes,
+                                       final boolean isStatic) throws NoSuchMethodException {
+        final String signature = toSignature(type, name, parameterTypes);
+        final String key = (isStatic ? "static " : "") + signature + ':' + returnType.getName();
+        final ConcurrentMap<String, ResolvedMethod> resolved = RESOLVED.get(type);
+        ResolvedMethod method = resolved.get(key);
+        if (method == null) {
+            method = new ResolvedMethod(lookup(type, name, returnType, parameterTypes, isStatic, signature), signature);
+            final ResolvedMethod concurrent = resolved.putIfAbsent(key, method);
+            if (concurrent != null) {
+                method = concurrent;
+            }
+        }
+        return method;
+    }
+
+    private static MethodHandle lookup(final Class<?> type,
+                                       final String name,
+                                       final Class<?> returnType,
+                                       final Class<?>[] parameterTypes,
+                                       final boolean isStatic,
+                                       final String signature) throws NoSuchMethodException {
+        final MethodType methodType = MethodType.methodType(returnType, parameterTypes);
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            if (CONSTRUCTOR_NAME.equals(name)) {
+                return lookup.findConstructor(type, methodType);
+            }
+            return isStatic ? lookup.findStatic(type, name, methodType) : lookup.findVirtual(type, name, methodType);
+        } catch (NoSuchMethodException ignored) {
+            // not public, look for a declared one below
+        } catch (IllegalAccessException ignored) {
+            // not accessible, look for a declared one below
+        }
+
+        final Method declared = findDeclaredMethod(type, name, returnType, parameterTypes, isStatic);
+        if (declared == null) {
+            final String kind = CONSTRUCTOR_NAME.equals(name) ? "constructor " : isStatic ? "static method " : "method ";
+            throw new NoSuchMethodException(kind + signature + " returning " + returnType.getSimpleName()
+                    + " not found in " + type.getClassLoader() + " (incompatible enhancer version?)");
+        }
+        declared.setAccessible(true);
+        try {
+            return lookup.unreflect(declared);
+        } catch (IllegalAccessException e) {
+            throw (NoSuchMethodException) new NoSuchMethodException(signature + " not accessible").initCause(e);
+        }
+    }
+
+    /**
+     * Walks the class hierarchy comparing declared methods, without provoking (and catching) an exception per class.
+     */
+    private static Method findDeclaredMethod(final Class<?> type,
+                                             final String name,
+                                             final Class<?> returnType,
+                                             final Class<?>[] parameterTypes,
+                                             final boolean isStatic) {
+        if (CONSTRUCTOR_NAME.equals(name)) {
+            return null;
+        }
+        for (Class<?> clazz = type; clazz != null; clazz = isStatic ? null : clazz.getSuperclass()) {
+            for (final Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals(name)
+                        && Modifier.isStatic(method.getModifiers()) == isStatic
+                        && method.getReturnType() == returnType
+                        && Arrays.equals(method.getParameterTypes(), parameterTypes)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("MagicCharacter")
+    private static String toSignature(final Class<?> type, final String name, final Class<?>[] parameterTypes) {
+        final StringBuilder sb = new StringBuilder(type.getName());
+        if (!CONSTRUCTOR_NAME.equals(name)) {
+            sb.append('.').append(name);
+        }
+        sb.append('(');
+        for (int i = 0; i < parameterTypes.length; ++i) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(parameterTypes[i].getName());
+        }
+        return sb.append(')').toString();
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.openjpa.ide.core.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Method or constructor resolved by {@link MethodHandleCache}, invocable with plain objects.<br/>
+ * <br/>
+ * The underlying handle is adapted once to take its arguments (receiver first for instance methods) as object
+ * array, so invocations don't need any further lookups or conversions.
+ */
+public final class ResolvedMethod {
+
+    private final MethodHandle handle;
+
+    private final String signature;
+
+    ResolvedMethod(final MethodHandle handle, final String signature) {
+        final int parameterCount = handle.type().parameterCount();
+        this.handle = handle.asType(handle.type().generic()).asSpreader(Object[].class, parameterCount);
+        this.signature = signature;
+    }
+
+    /**
+     * Invoke the method.
+     *
+     * @param arguments receiver (instance methods only) followed by the method's arguments
+     * @return the result, null for void methods, the new instance for constructors
+     * @throws InvocationTargetException if the method throws (the thrown exception or error is the cause,
+     *                                   as with {@link java.lang.reflect.Method#invoke(Object, Object...)})
+     */
+    public Object invoke(final Object... arguments) throws InvocationTargetException {
+        try {
+            return (Object) this.handle.invokeExact(arguments);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t, this.signature);
+        }
+    }
+
+    /**
+     * @return declaring class, name and parameter types, e.g. 'org.apache.openjpa.lib.util.Options.setProperty(java.lang.String, boolean)'
+     */
+    public String getSignature() {
+        return this.signature;
+    }
+
+    @Override
+    public String toString() {
+        return "ResolvedMethod{" + this.signature + '}';
+    }
+
+}
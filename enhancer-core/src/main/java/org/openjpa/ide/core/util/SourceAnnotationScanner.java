@@ -0,0 +1,257 @@
+package org.openjpa.ide.core.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds classes annotated with a given set of annotations in java source code, without building a syntax tree.<br/>
+ * <br/>
+ * The source is scanned once, skipping comments and literals. Annotation names are resolved through the package,
+ * single type and on demand imports, so only annotations from the given set are reported. Member classes are
+ * reported with their binary names (e.g. 'org.example.Outer$Inner'), local and anonymous classes are ignored.
+ */
+public abstract class SourceAnnotationScanner {
+
+    private static final String KEYWORD_PACKAGE = "package";
+    private static final String KEYWORD_IMPORT = "import";
+    private static final String KEYWORD_STATIC = "static";
+    private static final String KEYWORD_CLASS = "class";
+    private static final String KEYWORD_INTERFACE = "interface";
+    private static final String KEYWORD_ENUM = "enum";
+
+    private SourceAnnotationScanner() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Find classes annotated with any of the given annotations.
+     *
+     * @param source          java source code
+     * @param annotationNames fully qualified names of the annotations to search for
+     * @return binary class names per (fully qualified) annotation name, only contains found annotations
+     */
+    @SuppressWarnings({"MagicCharacter", "FeatureEnvy"})
+    public static Map<String, List<String>> findAnnotatedClasses(final CharSequence source,
+                                                                 final Collection<String> annotationNames) {
+
+        final Map<String, List<String>> found = new LinkedHashMap<String, List<String>>();
+        final List<String> tokens = tokenize(source);
+
+        String packageName = "";
+        final Map<String, String> singleTypeImports = new HashMap<String, String>();
+        final List<String> onDemandImports = new ArrayList<String>();
+
+        // type names of enclosing blocks, null for non-type blocks (methods, initializers, ...)
+        final LinkedList<String> blocks = new LinkedList<String>();
+        final List<String> pendingAnnotations = new ArrayList<String>();
+        String pendingTypeName = null;
+        int parenDepth = 0;
+
+        for (int i = 0; i < tokens.size(); ++i) {
+            final String token = tokens.get(i);
+            final char first = token.charAt(0);
+
+            if (first == '(') {
+                ++parenDepth;
+            } else if (first == ')') {
+                parenDepth = Math.max(0, parenDepth - 1);
+            } else if (parenDepth > 0) {
+                // annotation arguments, method parameters, ...
+                continue;
+            } else if (first == '{') {
+                blocks.addLast(pendingTypeName);
+                pendingTypeName = null;
+                pendingAnnotations.clear();
+            } else if (first == '}') {
+                if (!blocks.isEmpty()) {
+                    blocks.removeLast();
+                }
+                pendingAnnotations.clear();
+            } else if (first == ';') {
+                pendingAnnotations.clear();
+            } else if (first == '@') {
+                if (i + 1 < tokens.size() && KEYWORD_INTERFACE.equals(tokens.get(i + 1))) {
+                    // annotation type declaration, handled as interface
+                    continue;
+                }
+                // qualified annotation name: identifier ('.' identifier)*
+                final StringBuilder annotationName = new StringBuilder();
+                while (i + 1 < tokens.size() && Character.isJavaIdentifierStart(tokens.get(i + 1).charAt(0))) {
+                    annotationName.append(tokens.get(++i));
+                    if (i + 2 < tokens.size() && ".".equals(tokens.get(i + 1))
+                            && Character.isJavaIdentifierStart(tokens.get(i + 2).charAt(0))) {
+                        annotationName.append(tokens.get(++i));
+                    } else {
+                        break;
+                    }
+                }
+                final String resolved = resolve(annotationName.toString(), packageName, singleTypeImports, onDemandImports,
+                        annotationNames);
+                if (resolved != null) {
+                    pendingAnnotations.add(resolved);
+                }
+            } else if (blocks.isEmpty() && KEYWORD_PACKAGE.equals(token)) {
+                final StringBuilder name = new StringBuilder();
+                i = readQualifiedName(tokens, i + 1, name);
+                packageName = name.toString();
+            } else if (blocks.isEmpty() && KEYWORD_IMPORT.equals(token)) {
+                int next = i + 1;
+                final boolean staticImport = next < tokens.size() && KEYWORD_STATIC.equals(tokens.get(next));
+                if (staticImport) {
+                    ++next;
+                }
+                final StringBuilder name = new StringBuilder();
+                i = readQualifiedName(tokens, next, name);
+                if (!staticImport) {
+                    final String importName = name.toString();
+                    if (importName.endsWith(".*")) {
+                        onDemandImports.add(importName.substring(0, importName.length() - 2));
+                    } else {
+                        singleTypeImports.put(importName.substring(importName.lastIndexOf('.') + 1), importName);
+                    }
+                }
+            } else if ((KEYWORD_CLASS.equals(token) || KEYWORD_INTERFACE.equals(token) || KEYWORD_ENUM.equals(token))
+                    && (i == 0 || !".".equals(tokens.get(i - 1))) && i + 1 < tokens.size()) {
+                // type declaration (not a class literal)
+                pendingTypeName = tokens.get(++i);
+                if (!pendingAnnotations.isEmpty()) {
+                    final String binaryName = toBinaryName(packageName, blocks, pendingTypeName);
+                    if (binaryName != null) {
+                        for (final String annotation : pendingAnnotations) {
+                            List<String> classNames = found.get(annotation);
+                            if (classNames == null) {
+                                classNames = new ArrayList<String>(1);
+                                found.put(annotation, classNames);
+                            }
+                            classNames.add(binaryName);
+                        }
+                    }
+                    pendingAnnotations.clear();
+                }
+            }
+        }
+        return found;
+    }
+
+    //
+    // Helper methods
+    //
+
+    /**
+     * Splits source code into identifiers (including keywords and number literals) and single character symbols,
+     * dropping white space, comments and string and character literals.
+     */
+    @SuppressWarnings({"MagicCharacter", "AssignmentToForLoopParameter"})
+    private static List<String> tokenize(final CharSequence source) {
+        final List<String> tokens = new ArrayList<String>();
+        final int length = source.length();
+        for (int i = 0; i < length; ++i) {
+            final char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                // line comment
+                while (i + 1 < length && source.charAt(i + 1) != '\n') {
+                    ++i;
+                }
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                // block comment
+                i += 2;
+                while (i + 1 < length && !(source.charAt(i) == '*' && source.charAt(i + 1) == '/')) {
+                    ++i;
+                }
+                ++i;
+            } else if (c == '"' || c == '\'') {
+                // literal, honoring escapes
+                ++i;
+                while (i < length && source.charAt(i) != c) {
+                    if (source.charAt(i) == '\\') {
+                        ++i;
+                    }
+                    ++i;
+                }
+            } else if (Character.isJavaIdentifierPart(c)) {
+                final int start = i;
+                while (i + 1 < length && Character.isJavaIdentifierPart(source.charAt(i + 1))) {
+                    ++i;
+                }
+                tokens.add(source.subSequence(start, i + 1).toString());
+            } else {
+                tokens.add(String.valueOf(c));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Reads a (possibly on demand) qualified name up to the terminating ';'.
+     *
+     * @return index of the last token read
+     */
+    private static int readQualifiedName(final List<String> tokens, final int start, final StringBuilder name) {
+        int i = start;
+        while (i < tokens.size() && !";".equals(tokens.get(i))) {
+            name.append(tokens.get(i));
+            ++i;
+        }
+        return i;
+    }
+
+    /**
+     * @return fully qualified annotation name if it's one of the searched annotations, null otherwise
+     */
+    @SuppressWarnings("MagicCharacter")
+    private static String resolve(final String annotationName,
+                                  final String packageName,
+                                  final Map<String, String> singleTypeImports,
+                                  final Collection<String> onDemandImports,
+                                  final Collection<String> annotationNames) {
+        if (annotationName.isEmpty()) {
+            return null;
+        }
+        if (annotationNames.contains(annotationName)) {
+            // fully qualified
+            return annotationName;
+        }
+        if (annotationName.indexOf('.') >= 0) {
+            return null;
+        }
+        final String imported = singleTypeImports.get(annotationName);
+        if (imported != null) {
+            return annotationNames.contains(imported) ? imported : null;
+        }
+        for (final String onDemandImport : onDemandImports) {
+            final String candidate = onDemandImport + '.' + annotationName;
+            if (annotationNames.contains(candidate)) {
+                return candidate;
+            }
+        }
+        final String samePackage = packageName.isEmpty() ? annotationName : packageName + '.' + annotationName;
+        return annotationNames.contains(samePackage) ? samePackage : null;
+    }
+
+    /**
+     * @return binary name of a type declared in the given blocks, null for local classes
+     */
+    @SuppressWarnings("MagicCharacter")
+    private static String toBinaryName(final String packageName, final Collection<String> blocks, final String typeName) {
+        final StringBuilder binaryName = new StringBuilder(packageName);
+        if (binaryName.length() > 0) {
+            binaryName.append('.');
+        }
+        for (final String enclosingType : blocks) {
+            if (enclosingType == null) {
+                return null;
+            }
+            binaryName.append(enclosingType).append('$');
+        }
+        return binaryName.append(typeName).toString();
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.openjpa.ide.core;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchEnhancerTest {
+
+    private static final List<String> CLASS_FILES = Arrays.asList("A.class", "B.class", "C.class", "D.class",
+            "E.class", "F.class", "G.class", "H.class");
+
+    @Test
+    public void testEnhancesAllClassesInBatches() {
+        final RecordingBatch batch = new RecordingBatch();
+        final BatchEnhancer.Result result = new BatchEnhancer(3).enhance(CLASS_FILES, batch);
+
+        assertEquals(8, result.getEnhanced());
+        assertEquals(3, result.getBatches());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(Arrays.asList(3, 3, 2), batch.runSizes);
+    }
+
+    @Test
+    public void testWithoutBatchSizeEnhancesInOneRun() {
+        final RecordingBatch batch = new RecordingBatch();
+        final BatchEnhancer.Result result = new BatchEnhancer(0).enhance(CLASS_FILES, batch);
+
+        assertEquals(8, result.getEnhanced());
+        assertEquals(1, result.getBatches());
+    }
+
+    @Test
+    public void testBisectionIsolatesFailingClasses() {
+        final RecordingBatch batch = new RecordingBatch("C.class", "H.class");
+        final BatchEnhancer.Result result = new BatchEnhancer(8).enhance(CLASS_FILES, batch);
+
+        assertEquals(6, result.getEnhanced());
+        assertEquals(new HashSet<String>(Arrays.asList("C.class", "H.class")), result.getFailures().keySet());
+        assertTrue(result.getFailures().get("C.class").contains("C.class"));
+        // 8 -> 4 + 4 -> (2 + 2) + (2 + 2) -> C and H split once more
+        assertEquals(11, result.getBatches());
+    }
+
+    @Test
+    public void testRuntimeExceptionsAreSplitAsWell() {
+        final BatchEnhancer.Result result = new BatchEnhancer(0).enhance(CLASS_FILES,
+                new BatchEnhancer.Batch<RuntimeException>() {
+                    @Override
+                    public int enhance(final List<String> classFiles) {
+                        if (classFiles.contains("A.class")) {
+                            throw new IllegalStateException("broken");
+                        }
+                        return classFiles.size();
+                    }
+                });
+
+        assertEquals(7, result.getEnhanced());
+        assertEquals("java.lang.IllegalStateException: broken", result.getFailures().get("A.class"));
+    }
+
+    @Test
+    public void testAbortingExceptionIsRethrown() {
+        try {
+            new BatchEnhancer(2).enhance(CLASS_FILES, new BatchEnhancer.Batch<IOException>() {
+                @Override
+                public int enhance(final List<String> classFiles) throws IOException {
+                    throw new IOException("enhancer not found");
+                }
+            });
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("enhancer not found", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCheckpointReachedPerBatchWithoutFailedClasses() {
+        final List<String> checkpoints = new ArrayList<String>();
+        new BatchEnhancer(4).enhance(CLASS_FILES, new RecordingBatch("B.class"),
+                new BatchEnhancer.Checkpoint<RuntimeException>() {
+                    @Override
+                    public void reached(final List<String> enhancedClassFiles, final int completed, final int total) {
+                        checkpoints.add(enhancedClassFiles + " " + completed + '/' + total);
+                    }
+                });
+
+        assertEquals(Arrays.asList("[A.class, C.class, D.class] 4/8", "[E.class, F.class, G.class, H.class] 8/8"),
+                checkpoints);
+    }
+
+    @Test
+    public void testCheckpointAbortsRemainingBatches() {
+        final RecordingBatch batch = new RecordingBatch();
+        try {
+            new BatchEnhancer(2).enhance(CLASS_FILES, batch, new BatchEnhancer.Checkpoint<RuntimeException>() {
+                @Override
+                public void reached(final List<String> enhancedClassFiles, final int completed, final int total) {
+                    if (completed >= 4) {
+                        throw new IllegalStateException("cancelled");
+                    }
+                }
+            });
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("cancelled", e.getMessage());
+        }
+        assertEquals(Arrays.asList(2, 2), batch.runSizes);
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Fails (with an InvocationTargetException) for every run containing a failing class, classes enhanced by a
+     * failing run are not enhanced.
+     */
+    private static class RecordingBatch implements BatchEnhancer.Batch<RuntimeException> {
+
+        private final Set<String> failing;
+
+        private final List<Integer> runSizes = new ArrayList<Integer>();
+
+        private RecordingBatch(final String... failing) {
+            this.failing = new HashSet<String>(Arrays.asList(failing));
+        }
+
+        @Override
+        public int enhance(final List<String> classFiles) throws InvocationTargetException {
+            this.runSizes.add(classFiles.size());
+            final Collection<String> failed = new ArrayList<String>(classFiles);
+            failed.retainAll(this.failing);
+            if (!failed.isEmpty()) {
+                throw new InvocationTargetException(new IllegalArgumentException("can't enhance " + failed));
+            }
+            return classFiles.size();
+        }
+
+    }
+
+}
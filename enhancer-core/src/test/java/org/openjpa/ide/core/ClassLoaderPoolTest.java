@@ -0,0 +1,121 @@
+package org.openjpa.ide.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClassLoaderPoolTest {
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private List<URL> classpath;
+
+    @Before
+    public void setUp() throws IOException {
+        final File outputDirectory = this.tmp.newFolder("classes");
+        assertTrue(new File(outputDirectory, "resource.txt").createNewFile());
+        this.classpath = Collections.singletonList(outputDirectory.toURI().toURL());
+    }
+
+    @Test
+    public void testSameClasspathSharesLoader() throws IOException {
+        final ClassLoaderPool pool = new ClassLoaderPool();
+        final URLClassLoader first = pool.acquire(this.classpath);
+        final URLClassLoader second = pool.acquire(Arrays.asList(this.classpath.get(0), this.classpath.get(0)));
+
+        assertSame(first, second);
+        assertArrayEquals(this.classpath.toArray(), first.getURLs());
+        assertNotSame(first, pool.acquire(Collections.singletonList(this.tmp.newFolder("other").toURI().toURL())));
+    }
+
+    @Test
+    public void testLoaderClosedOnLastRelease() {
+        final ClassLoaderPool pool = new ClassLoaderPool();
+        final URLClassLoader first = pool.acquire(this.classpath);
+        pool.acquire(this.classpath);
+
+        pool.release(first);
+        assertNotNull("still referenced", first.getResource("resource.txt"));
+
+        pool.release(first);
+        assertNull("closed", first.getResource("resource.txt"));
+        assertNotSame(first, pool.acquire(this.classpath));
+    }
+
+    @Test
+    public void testIdleLoadersKeptOpen() throws IOException {
+        final ClassLoaderPool pool = new ClassLoaderPool(1);
+        final URLClassLoader first = pool.acquire(this.classpath);
+        pool.release(first);
+
+        assertNotNull("idle", first.getResource("resource.txt"));
+        assertSame(first, pool.acquire(this.classpath));
+        pool.release(first);
+
+        // a second idle loader evicts the least recently released one
+        final URLClassLoader other = pool.acquire(Collections.singletonList(this.tmp.newFolder("other").toURI().toURL()));
+        pool.release(other);
+        assertNull("evicted", first.getResource("resource.txt"));
+        assertSame(other, pool.acquire(Arrays.asList(other.getURLs())));
+    }
+
+    @Test
+    public void testInvalidatedLoaderClosedOnLastRelease() {
+        final ClassLoaderPool pool = new ClassLoaderPool(1);
+        final URLClassLoader inUse = pool.acquire(this.classpath);
+
+        pool.invalidate();
+        final URLClassLoader fresh = pool.acquire(this.classpath);
+        assertNotSame(inUse, fresh);
+        assertNotNull("in use", inUse.getResource("resource.txt"));
+
+        pool.release(inUse);
+        assertNull("closed although idle loaders are kept", inUse.getResource("resource.txt"));
+        assertNotNull(fresh.getResource("resource.txt"));
+    }
+
+    @Test
+    public void testReleaseMoreOftenThanAcquired() {
+        final ClassLoaderPool pool = new ClassLoaderPool();
+        final URLClassLoader loader = pool.acquire(this.classpath);
+        pool.release(loader);
+
+        try {
+            pool.release(loader);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+            // released twice
+        }
+    }
+
+    @Test
+    public void testFingerprintChangesWithArchives() throws IOException {
+        final File archive = this.tmp.newFile("lib.jar");
+        final List<URL> urls = Collections.singletonList(archive.toURI().toURL());
+        final String fingerprint = ClassLoaderPool.fingerprint(urls);
+
+        assertTrue(archive.setLastModified(archive.lastModified() - 10000L));
+
+        assertNotEquals(fingerprint, ClassLoaderPool.fingerprint(urls));
+    }
+
+}
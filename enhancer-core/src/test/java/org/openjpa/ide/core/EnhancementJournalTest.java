@@ -0,0 +1,105 @@
+package org.openjpa.ide.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EnhancementJournalTest {
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testCompletedClassFilesSurviveReopening() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "journal.bin");
+        final String a = this.tmp.newFile("A.class").getPath();
+        final String b = this.tmp.newFile("B.class").getPath();
+        final String c = this.tmp.newFile("C.class").getPath();
+
+        final EnhancementJournal journal = EnhancementJournal.open(file, "config");
+        journal.complete(Arrays.asList(a, b));
+        journal.complete(Collections.singletonList(c));
+
+        final EnhancementJournal reopened = EnhancementJournal.open(file, "config");
+        assertEquals(3, reopened.size());
+        assertTrue(reopened.isCompleted(a));
+        assertTrue(reopened.isCompleted(c));
+    }
+
+    @Test
+    public void testChangedClassFileIsNotCompleted() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "journal.bin");
+        final File classFile = this.tmp.newFile("A.class");
+        final EnhancementJournal journal = EnhancementJournal.open(file, "config");
+        journal.complete(Collections.singletonList(classFile.getPath()));
+
+        assertTrue(classFile.setLastModified(classFile.lastModified() - 10000L));
+
+        assertFalse(EnhancementJournal.open(file, "config").isCompleted(classFile.getPath()));
+        assertFalse(journal.isCompleted(this.tmp.getRoot().getPath() + "/Unknown.class"));
+    }
+
+    @Test
+    public void testJournalOfAnotherConfigurationIsIgnored() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "journal.bin");
+        final String classFile = this.tmp.newFile("A.class").getPath();
+        EnhancementJournal.open(file, "config").complete(Collections.singletonList(classFile));
+
+        final EnhancementJournal other = EnhancementJournal.open(file, "other config");
+        assertEquals(0, other.size());
+        assertFalse(other.isCompleted(classFile));
+
+        // replaced by the first checkpoint of the other configuration
+        final String otherClassFile = this.tmp.newFile("B.class").getPath();
+        other.complete(Collections.singletonList(otherClassFile));
+        assertEquals(0, EnhancementJournal.open(file, "config").size());
+        assertTrue(EnhancementJournal.open(file, "other config").isCompleted(otherClassFile));
+    }
+
+    @Test
+    public void testTruncatedLastRecordIsIgnoredAndOverwritten() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "journal.bin");
+        final String a = this.tmp.newFile("A.class").getPath();
+        final String b = this.tmp.newFile("B.class").getPath();
+        final String c = this.tmp.newFile("C.class").getPath();
+        final EnhancementJournal journal = EnhancementJournal.open(file, "config");
+        journal.complete(Collections.singletonList(a));
+        journal.complete(Collections.singletonList(b));
+        EntityCatalogTest.truncate(file, file.length() - 3L);
+
+        final EnhancementJournal reopened = EnhancementJournal.open(file, "config");
+        assertEquals(1, reopened.size());
+        assertTrue(reopened.isCompleted(a));
+        assertFalse(reopened.isCompleted(b));
+
+        reopened.complete(Collections.singletonList(c));
+        final EnhancementJournal resumed = EnhancementJournal.open(file, "config");
+        assertEquals(2, resumed.size());
+        assertTrue(resumed.isCompleted(a));
+        assertTrue(resumed.isCompleted(c));
+    }
+
+    @Test
+    public void testDeleteRemovesCheckpoints() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "journal.bin");
+        final String classFile = this.tmp.newFile("A.class").getPath();
+        final EnhancementJournal journal = EnhancementJournal.open(file, "config");
+        journal.complete(Collections.singletonList(classFile));
+
+        journal.delete();
+
+        assertFalse(file.exists());
+        assertEquals(0, journal.size());
+        assertFalse(journal.isCompleted(classFile));
+    }
+
+}
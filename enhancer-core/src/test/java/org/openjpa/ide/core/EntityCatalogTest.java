@@ -0,0 +1,173 @@
+package org.openjpa.ide.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EntityCatalogTest {
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testMissingFileIsEmpty() throws IOException {
+        final EntityCatalog catalog = EntityCatalog.load(new File(this.tmp.getRoot(), "missing.bin"));
+
+        assertEquals(0, catalog.size());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "catalog.bin");
+        final EntityCatalog catalog = EntityCatalog.load(file);
+        final EntityCatalog.Entry annotated = annotated("core", "org/example/Entity.class", 1L);
+        final EntityCatalog.Entry metadata = new EntityCatalog.Entry("core", true, "META-INF/orm.xml",
+                EntityCatalog.Kind.METADATA, null, 42L, 7L, new byte[]{1, 2, 3},
+                Arrays.asList("org.example.A", "org.example.B"), null);
+        catalog.put(annotated);
+        catalog.put(metadata);
+        catalog.save();
+
+        final EntityCatalog loaded = EntityCatalog.load(file);
+        assertEquals(2, loaded.size());
+        assertEquals(annotated, loaded.get("core", false, "org/example/Entity.class"));
+        final EntityCatalog.Entry loadedMetadata = loaded.get("core", true, "META-INF/orm.xml");
+        assertEquals(metadata, loadedMetadata);
+        assertTrue(loadedMetadata.isTestOutput());
+        assertArrayEquals(new byte[]{1, 2, 3}, loadedMetadata.getDigest());
+        assertEquals(Arrays.asList("org.example.A", "org.example.B"), loadedMetadata.getClassNames());
+        assertNull(loadedMetadata.getDependencies());
+        assertNull(loaded.get("core", false, "META-INF/orm.xml"));
+    }
+
+    @Test
+    public void testAppendedEntriesReplaceEarlierOnes() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "catalog.bin");
+        final EntityCatalog catalog = EntityCatalog.load(file);
+        catalog.put(annotated("core", "A.class", 1L));
+        catalog.put(annotated("core", "B.class", 1L));
+        catalog.put(annotated("core", "C.class", 1L));
+        catalog.save();
+        final long written = file.length();
+
+        catalog.put(annotated("core", "B.class", 2L));
+        catalog.save();
+        assertTrue("appended", file.length() > written);
+
+        final EntityCatalog loaded = EntityCatalog.load(file);
+        assertEquals(3, loaded.size());
+        assertEquals(2L, loaded.get("core", false, "B.class").getLastModified());
+    }
+
+    @Test
+    public void testTruncatedTailIsIgnoredAndOverwritten() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "catalog.bin");
+        final EntityCatalog catalog = EntityCatalog.load(file);
+        catalog.put(annotated("core", "A.class", 1L));
+        catalog.put(annotated("core", "B.class", 1L));
+        catalog.save();
+        final long valid = file.length();
+        catalog.put(annotated("core", "A.class", 2L));
+        catalog.save();
+        truncate(file, file.length() - 5L);
+
+        final EntityCatalog loaded = EntityCatalog.load(file);
+        assertEquals(2, loaded.size());
+        assertEquals(1L, loaded.get("core", false, "A.class").getLastModified());
+
+        loaded.put(annotated("core", "C.class", 1L));
+        loaded.save();
+        assertTrue("appended after the valid part", file.length() > valid);
+        final EntityCatalog reloaded = EntityCatalog.load(file);
+        assertEquals(3, reloaded.size());
+        assertEquals(1L, reloaded.get("core", false, "A.class").getLastModified());
+    }
+
+    @Test
+    public void testForeignFileIsReplaced() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "catalog.bin");
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write("not a catalog".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+
+        final EntityCatalog catalog = EntityCatalog.load(file);
+        assertEquals(0, catalog.size());
+        catalog.put(annotated("core", "A.class", 1L));
+        catalog.save();
+
+        assertEquals(1, EntityCatalog.load(file).size());
+    }
+
+    @Test
+    public void testRewriteRemovesStaleEntries() throws IOException {
+        final File outputDirectory = this.tmp.newFolder("classes");
+        assertTrue(new File(outputDirectory, "A.class").createNewFile());
+        final File file = new File(this.tmp.getRoot(), "catalog.bin");
+        final EntityCatalog catalog = EntityCatalog.load(file);
+        catalog.put(annotated("core", "A.class", 1L));
+        catalog.put(annotated("core", "Removed.class", 1L));
+        catalog.put(annotated("removed", "B.class", 1L));
+
+        // a new file is written as a whole
+        catalog.save(new EntityCatalog.Locator() {
+            @Override
+            public File getOutputDirectory(final String module, final boolean testOutput) {
+                return "core".equals(module) && !testOutput ? outputDirectory : null;
+            }
+        });
+
+        assertEquals(1, catalog.size());
+        final EntityCatalog loaded = EntityCatalog.load(file);
+        assertEquals(1, loaded.size());
+        assertEquals(annotated("core", "A.class", 1L), loaded.get("core", false, "A.class"));
+    }
+
+    @Test
+    public void testUnchangedEntryIsNotSavedAgain() throws IOException {
+        final File file = new File(this.tmp.getRoot(), "catalog.bin");
+        final EntityCatalog catalog = EntityCatalog.load(file);
+        catalog.put(annotated("core", "A.class", 1L));
+        catalog.save();
+        final long written = file.length();
+
+        catalog.put(annotated("core", "A.class", 1L));
+        catalog.save();
+
+        assertEquals(written, file.length());
+    }
+
+    //
+    // Utility methods
+    //
+
+    private static EntityCatalog.Entry annotated(final String module, final String path, final long lastModified) {
+        return new EntityCatalog.Entry(module, false, path, EntityCatalog.Kind.ANNOTATED, null, 100L, lastModified,
+                new byte[]{(byte) lastModified}, null, Collections.singletonList("org.example.Base"));
+    }
+
+    static void truncate(final File file, final long length) throws IOException {
+        final RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(length);
+        } finally {
+            out.close();
+        }
+    }
+
+}
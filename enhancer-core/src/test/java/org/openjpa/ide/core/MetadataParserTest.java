@@ -0,0 +1,107 @@
+package org.openjpa.ide.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MetadataParserTest {
+
+    @Test
+    public void testJpaOrmFile() throws Exception {
+        final Set<String> classNames = parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<entity-mappings xmlns=\"http://java.sun.com/xml/ns/persistence/orm\" version=\"2.0\">\n"
+                + "  <package>org.example</package>\n"
+                + "  <mapped-superclass class=\"org.example.Base\"/>\n"
+                + "  <entity class=\"org.example.Person\">\n"
+                + "    <attributes><embedded name=\"address\"/></attributes>\n"
+                + "  </entity>\n"
+                + "  <embeddable class=\"org.example.Address\"/>\n"
+                + "</entity-mappings>\n");
+
+        assertEquals(names("org.example.Base", "org.example.Person", "org.example.Address"), classNames);
+    }
+
+    @Test
+    public void testJpaElementsOutsideOfTheRootAreIgnored() throws Exception {
+        final Set<String> classNames = parse("<entity-mappings>\n"
+                + "  <entity class=\"org.example.Person\">\n"
+                + "    <entity class=\"org.example.Nested\"/>\n"
+                + "  </entity>\n"
+                + "</entity-mappings>\n");
+
+        assertEquals(names("org.example.Person"), classNames);
+        assertEquals(Collections.<String>emptySet(), parse("<other><entity class=\"org.example.Person\"/></other>"));
+    }
+
+    @Test
+    public void testJdoFile() throws Exception {
+        final Set<String> classNames = parse("<?xml version=\"1.0\"?>\n"
+                + "<jdo>\n"
+                + "  <package name=\"org.example\">\n"
+                + "    <class name=\"Person\"><field name=\"address\"/></class>\n"
+                + "    <class name=\"Address\"/>\n"
+                + "  </package>\n"
+                + "  <package name=\"org.other\">\n"
+                + "    <class name=\"Order\"/>\n"
+                + "  </package>\n"
+                + "</jdo>\n");
+
+        assertEquals(names("org.example.Person", "org.example.Address", "org.other.Order"), classNames);
+    }
+
+    @Test
+    public void testJdoOrmFile() throws Exception {
+        assertEquals(names("org.example.Person"),
+                parse("<orm><package name=\"org.example\"><class name=\"Person\"/></package></orm>"));
+    }
+
+    @Test
+    public void testJdoClassesOutsideOfPackagesAreIgnored() throws Exception {
+        final Set<String> classNames = parse("<jdo>\n"
+                + "  <class name=\"Orphan\"/>\n"
+                + "  <package name=\"org.example\">\n"
+                + "    <class name=\"Person\"><class name=\"Nested\"/></class>\n"
+                + "  </package>\n"
+                + "  <other><package name=\"org.other\"><class name=\"Order\"/></package></other>\n"
+                + "</jdo>\n");
+
+        assertEquals(names("org.example.Person"), classNames);
+    }
+
+    @Test
+    public void testJdoClassesTakePrecedence() throws Exception {
+        final Set<String> classNames = parse("<entity-mappings>\n"
+                + "  <entity class=\"org.example.Jpa\"/>\n"
+                + "  <jdo><package name=\"org.example\"><class name=\"Jdo\"/></package></jdo>\n"
+                + "</entity-mappings>\n");
+
+        assertEquals(names("org.example.Jdo"), classNames);
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testMalformedFile() throws Exception {
+        parse("<entity-mappings><entity class=\"org.example.Person\"></entity-mappings>");
+    }
+
+    //
+    // Utility methods
+    //
+
+    private static Set<String> parse(final String xml) throws XMLStreamException, UnsupportedEncodingException {
+        return MetadataParser.parseQualifiedClassNames(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+
+    private static Set<String> names(final String... classNames) {
+        return new LinkedHashSet<String>(Arrays.asList(classNames));
+    }
+
+}
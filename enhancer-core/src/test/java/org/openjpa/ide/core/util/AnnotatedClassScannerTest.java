@@ -0,0 +1,104 @@
+package org.openjpa.ide.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnnotatedClassScannerTest {
+
+    private static final String ANNOTATION = TestEntity.class.getName();
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path rootDir;
+
+    @Before
+    public void setUp() throws IOException {
+        this.rootDir = this.tmp.newFolder("classes").toPath();
+        this.copyClassFile(AnnotatedEntity.class);
+        this.copyClassFile(AnnotatedEntity.Nested.class);
+        this.copyClassFile(AnnotatedClassScannerTest.class);
+        final Path invalid = this.rootDir.resolve("org/example/Invalid.class");
+        Files.createDirectories(invalid.getParent());
+        Files.write(invalid, new byte[]{(byte) 0xca, (byte) 0xfe});
+    }
+
+    @Test
+    public void testFindsAnnotatedClassesByBinaryName() {
+        final Map<String, Path> found = AnnotatedClassScanner.findAnnotatedClasses(this.rootDir,
+                Arrays.asList("javax.persistence.Entity", ANNOTATION));
+
+        assertEquals(Arrays.asList(AnnotatedEntity.class.getName(), AnnotatedEntity.Nested.class.getName()),
+                Arrays.asList(found.keySet().toArray()));
+        assertEquals(this.getClassFile(AnnotatedEntity.Nested.class), found.get(AnnotatedEntity.Nested.class.getName()));
+    }
+
+    @Test
+    public void testOtherAnnotationsAreNotFound() {
+        assertTrue(AnnotatedClassScanner.findAnnotatedClasses(this.rootDir,
+                Collections.singletonList("javax.persistence.Entity")).isEmpty());
+    }
+
+    @Test
+    public void testMissingDirectoryOrAnnotations() {
+        assertTrue(AnnotatedClassScanner.findAnnotatedClasses(this.rootDir.resolve("missing"),
+                Collections.singletonList(ANNOTATION)).isEmpty());
+        assertTrue(AnnotatedClassScanner.findAnnotatedClasses(this.rootDir,
+                Collections.<String>emptyList()).isEmpty());
+    }
+
+    //
+    // Helper methods
+    //
+
+    private Path getClassFile(final Class<?> clazz) {
+        return this.rootDir.resolve(clazz.getName().replace('.', File.separatorChar) + ".class");
+    }
+
+    private void copyClassFile(final Class<?> clazz) throws IOException {
+        final Path classFile = this.getClassFile(clazz);
+        Files.createDirectories(classFile.getParent());
+        final InputStream in = clazz.getResourceAsStream('/' + clazz.getName().replace('.', '/') + ".class");
+        try {
+            Files.copy(in, classFile);
+        } finally {
+            in.close();
+        }
+    }
+
+    //
+    // Helper classes
+    //
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface TestEntity {
+
+    }
+
+    @TestEntity
+    static class AnnotatedEntity {
+
+        @TestEntity
+        static class Nested {
+
+        }
+
+    }
+
+}
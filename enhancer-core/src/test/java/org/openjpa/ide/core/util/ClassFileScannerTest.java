@@ -0,0 +1,150 @@
+package org.openjpa.ide.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.ElementCollection;
+import javax.persistence.Embeddable;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.ManyToOne;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.OneToMany;
+import javax.persistence.Transient;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFileScannerTest {
+
+    @Test
+    public void testClassHeaderAndAnnotations() throws IOException {
+        final ClassFileInfo info = scan(Order.class);
+
+        assertEquals(Order.class.getName(), info.getName());
+        assertEquals(Base.class.getName(), info.getSuperName());
+        assertEquals(Arrays.asList(Serializable.class.getName()), info.getInterfaces());
+        assertEquals(Arrays.asList(Entity.class.getName()), info.getAnnotations());
+        assertTrue(ClassFileScanner.implementsInterface(open(Order.class), Serializable.class.getName()));
+        assertFalse(ClassFileScanner.implementsInterface(open(Order.class), Comparable.class.getName()));
+    }
+
+    @Test
+    public void testFieldTypesIncludeTypeArguments() throws IOException {
+        final List<String> fieldTypes = scan(Order.class).getFieldTypes();
+
+        assertTrue(fieldTypes.containsAll(Arrays.asList(Customer.class.getName(), Item.class.getName(),
+                Address.class.getName(), Phone.class.getName(), Money.class.getName(), String.class.getName())));
+    }
+
+    @Test
+    public void testRelationTargetsAreNoEmbeddedTypes() throws IOException {
+        final List<String> embeddedTypes = scan(Order.class).getEmbeddedTypes();
+
+        // a changed customer or item doesn't invalidate the order, a changed embeddable does
+        assertEquals(new HashSet<String>(Arrays.asList(Address.class.getName(), Phone.class.getName(),
+                Money.class.getName(), String.class.getName(), List.class.getName(), Map.class.getName())),
+                new HashSet<String>(embeddedTypes));
+    }
+
+    //
+    // Utility methods
+    //
+
+    private static ClassFileInfo scan(final Class<?> clazz) throws IOException {
+        final InputStream in = open(clazz);
+        try {
+            return ClassFileScanner.scan(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static InputStream open(final Class<?> clazz) {
+        return clazz.getResourceAsStream('/' + clazz.getName().replace('.', '/') + ".class");
+    }
+
+    //
+    // Helper classes
+    //
+
+    @MappedSuperclass
+    static class Base {
+
+        private long id;
+
+    }
+
+    @Entity
+    static class Customer {
+
+    }
+
+    @Entity
+    static class Item {
+
+    }
+
+    @Embeddable
+    static class Address {
+
+    }
+
+    @Embeddable
+    static class Phone {
+
+    }
+
+    @Embeddable
+    static class Money {
+
+    }
+
+    @Entity
+    static class Order extends Base implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private static Customer defaultCustomer;
+
+        @ManyToOne
+        private Customer customer;
+
+        @OneToMany
+        private List<Item> items;
+
+        @Embedded
+        private Address shippingAddress;
+
+        @ElementCollection
+        private List<Phone> phones;
+
+        /**
+         * embedded by default
+         */
+        private Money total;
+
+        private String comment;
+
+        /**
+         * element collection of a map with embeddable values
+         */
+        @ElementCollection
+        private Map<String, Money> fees;
+
+        @Transient
+        private Customer lastCustomer;
+
+        private transient Item lastItem;
+
+    }
+
+}
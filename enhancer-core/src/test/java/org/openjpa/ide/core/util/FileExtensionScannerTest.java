@@ -0,0 +1,86 @@
+package org.openjpa.ide.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FileExtensionScannerTest {
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private File rootDir;
+
+    @Before
+    public void setUp() throws IOException {
+        this.rootDir = this.tmp.newFolder("classes");
+        createFile("META-INF/orm.xml");
+        createFile("org/example/package.jdo");
+        createFile("org/example/Person.class");
+        createFile("org/example/deep/nested/tree/mapping.orm");
+        createFile("org/example/deep/nested/tree/Address.class");
+        createFile("org/example/noextension");
+    }
+
+    @Test
+    public void testFindsAllExtensionsInOneWalk() {
+        final List<Path> found = FileExtensionScanner.findFilesByExtensions(this.rootDir.toPath(),
+                Arrays.asList("xml", "jdo", "orm"));
+
+        assertEquals(relativePaths("META-INF/orm.xml", "org/example/package.jdo",
+                "org/example/deep/nested/tree/mapping.orm"), this.relativize(found));
+    }
+
+    @Test
+    public void testClassFilesOnlyFoundIfSearched() {
+        assertEquals(relativePaths("org/example/Person.class", "org/example/deep/nested/tree/Address.class"),
+                this.relativize(FileExtensionScanner.findFilesByExtensions(this.rootDir.toPath(),
+                        Collections.singletonList("class"))));
+        assertEquals(Collections.<String>emptySet(), this.relativize(FileExtensionScanner
+                .findFilesByExtensions(this.rootDir.toPath(), Collections.singletonList("java"))));
+    }
+
+    @Test
+    public void testMissingDirectoryOrExtensions() {
+        assertTrue(FileExtensionScanner.findFilesByExtensions(new File(this.rootDir, "missing").toPath(),
+                Collections.singletonList("xml")).isEmpty());
+        assertTrue(FileExtensionScanner.findFilesByExtensions(this.rootDir.toPath(),
+                Collections.<String>emptyList()).isEmpty());
+    }
+
+    //
+    // Helper methods
+    //
+
+    private void createFile(final String relativePath) throws IOException {
+        final File file = new File(this.rootDir, relativePath);
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        assertTrue(file.createNewFile());
+    }
+
+    private Set<String> relativize(final List<Path> files) {
+        final Set<String> relativePaths = new HashSet<String>();
+        for (final Path file : files) {
+            relativePaths.add(this.rootDir.toPath().relativize(file).toString().replace(File.separatorChar, '/'));
+        }
+        return relativePaths;
+    }
+
+    private static Set<String> relativePaths(final String... relativePaths) {
+        return new HashSet<String>(Arrays.asList(relativePaths));
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.openjpa.ide.core.util;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class MethodHandleCacheTest {
+
+    @Test
+    public void testOverloadsWithSameSimpleParameterNames() throws Exception {
+        final Target target = new Target();
+        final ResolvedMethod utilDate = MethodHandleCache.findVirtual(Target.class, "describe", String.class,
+                java.util.Date.class);
+        final ResolvedMethod sqlDate = MethodHandleCache.findVirtual(Target.class, "describe", String.class,
+                java.sql.Date.class);
+
+        assertEquals("util", utilDate.invoke(target, new java.util.Date(0L)));
+        assertEquals("sql", sqlDate.invoke(target, new java.sql.Date(0L)));
+    }
+
+    @Test
+    public void testResolvedOncePerSignature() throws Exception {
+        assertSame(MethodHandleCache.findStatic(Target.class, "twice", int.class, int.class),
+                MethodHandleCache.findStatic(Target.class, "twice", int.class, int.class));
+        assertEquals(4, MethodHandleCache.findStatic(Target.class, "twice", int.class, int.class).invoke(2));
+    }
+
+    @Test
+    public void testNonPublicMethodsAndConstructors() throws Exception {
+        final Object target = MethodHandleCache.findConstructor(Target.class).invoke();
+
+        assertEquals("private", MethodHandleCache.findVirtual(Target.class, "hidden", String.class).invoke(target));
+    }
+
+    @Test
+    public void testExceptionsAreWrapped() throws Exception {
+        final ResolvedMethod fail = MethodHandleCache.findVirtual(Target.class, "fail", void.class);
+        try {
+            fail.invoke(new Target());
+            fail("InvocationTargetException expected");
+        } catch (InvocationTargetException e) {
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void testMissingSignatureFailsOnResolution() throws NoSuchMethodException {
+        MethodHandleCache.findVirtual(Target.class, "describe", String.class, String.class);
+    }
+
+    //
+    // Helper classes
+    //
+
+    public static class Target {
+
+        public String describe(final java.util.Date date) {
+            return "util";
+        }
+
+        public String describe(final java.sql.Date date) {
+            return "sql";
+        }
+
+        public static int twice(final int value) {
+            return value * 2;
+        }
+
+        private String hidden() {
+            return "private";
+        }
+
+        public void fail() {
+            throw new IllegalStateException("failed");
+        }
+
+    }
+
+}
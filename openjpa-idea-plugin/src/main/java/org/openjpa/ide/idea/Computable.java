@@ -0,0 +1,1423 @@
+package org.openjpa.ide.idea;
+
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.compiler.*;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Factory;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openjpa.ide.core.BatchEnhancer;
+import org.openjpa.ide.core.EnhancementJournal;
+import org.openjpa.ide.core.EnhancementMetrics;
+import org.openjpa.ide.core.EnhancementPlanner;
+import org.openjpa.ide.core.EntityCatalog;
+import org.openjpa.ide.core.ModulePlan;
+import org.openjpa.ide.core.openjpa.OpenJpaEnhancerInvoker;
+import org.openjpa.ide.idea.integration.EnhancerProxy;
+import org.openjpa.ide.idea.integration.EnhancerProxyCache;
+import org.openjpa.ide.idea.integration.EnhancerSupport;
+import org.openjpa.ide.idea.integration.openjpa.EnhancerDaemonClient;
+
+/**
+ * Enhances class files with xml- or annotation based metadata in
+ * all build-cycle affected project modules where xml metadata or
+ * annotated classes could be found.<br>
+ * <br>
+ * Activated enhancer integration dependencies must be in the project module's classpath!<br>
+ * If not, although activated, the module will be ignored and a warning will be logged (Idea messages).<br>
+ * <br>
+ * Classes of a module are enhanced in batches, see {@link State#getEnhancerBatchSize()}. Failing batches are
+ * split until the failing classes are isolated, these are reported per class and enhanced again by the next
+ * build, all others are enhanced as usual.<br>
+ * <br>
+ * Independent modules can be enhanced in parallel, see {@link State#getEnhancerWorkerCount()}.<br>
+ * <br>
+ * Failure stacktraces are transformed into strings and written to the idea messages output.
+ */
+class Computable implements SourceInstrumentingCompiler {
+
+    private static final FileProcessingCompiler.ProcessingItem[] EMPTY_PROCESSING_ITEMS = new FileProcessingCompiler.ProcessingItem[0];
+
+    /**
+     * Directory of the per project report and catalog in the IDE system directory
+     */
+    static final String REPORT_DIRECTORY = "openjpa-enhancer";
+
+    private static final String REPORT_FILE = "enhancement-report.json";
+
+    private static final String JOURNAL_FILE = "enhancement-journal.bin";
+
+    //
+    // Members
+    //
+
+    /**
+     * Current project
+     */
+    private final Project project;
+
+    /**
+     * Plugin shared configuration
+     */
+    private final State state;
+
+    /**
+     * Warm enhancer proxies reused across builds
+     */
+    private final EnhancerProxyCache proxyCache;
+
+    /**
+     * Out-of-process enhancer, see {@link State#isOutOfProcessEnhancer()}
+     */
+    private final EnhancerDaemonClient daemonClient;
+
+    /**
+     * Parsed metadata files reused across builds
+     */
+    private final MetadataParserCache metadataParserCache;
+
+    /**
+     * Discovered annotated classes and metadata files reused across builds and the configuration GUI
+     */
+    private final EntityModelCache entityModelCache;
+
+    /**
+     * Content digests of unchanged files reused across builds (for validity states)
+     */
+    private final ContentHashCache contentHashCache;
+
+    /**
+     * Recompiles enhanced classes depending on changed persistent classes after a build
+     */
+    private final DependentClassRecompiler dependentClassRecompiler;
+
+    /**
+     * Metrics of the running build, started by {@link #getProcessingItems(CompileContext)} and reported by
+     * {@link #process(CompileContext, FileProcessingCompiler.ProcessingItem[])}
+     */
+    private final AtomicReference<EnhancementMetrics> buildMetrics = new AtomicReference<EnhancementMetrics>();
+
+    //
+    // Constructor
+    //
+
+    Computable(final Project project,
+               final State state,
+               final EnhancerProxyCache proxyCache,
+               final EnhancerDaemonClient daemonClient,
+               final MetadataParserCache metadataParserCache,
+               final EntityModelCache entityModelCache,
+               final ContentHashCache contentHashCache,
+               final DependentClassRecompiler dependentClassRecompiler) {
+        this.project = project;
+        this.state = state;
+        this.proxyCache = proxyCache;
+        this.daemonClient = daemonClient;
+        this.metadataParserCache = metadataParserCache;
+        this.entityModelCache = entityModelCache;
+        this.contentHashCache = contentHashCache;
+        this.dependentClassRecompiler = dependentClassRecompiler;
+    }
+
+    //
+    // ClassPostProcessingCompiler interface implementation
+    //
+
+    @NotNull
+    @Override
+    public FileProcessingCompiler.ProcessingItem[] getProcessingItems(final CompileContext compileContext) {
+        final Set<String> enabledModules = this.state.getEnabledModules();
+        if (this.state.isEnhancerEnabled() && enabledModules != null && !enabledModules.isEmpty()) {
+            final EnhancementMetrics metrics = new EnhancementMetrics();
+            this.buildMetrics.set(metrics);
+
+            // get metadata files of affected modules
+            final Map<Module, List<VirtualMetadataFile>> moduleBasedMetadataFiles =
+                    this.getMetadataFiles(compileContext.getCompileScope(), metrics);
+            /*
+                //Commented out: debug output of found metadata files and according modules
+                for (final Module module : moduleBasedMetadataFiles.keySet()) {
+                    ctx.addMessage(CompilerMessageCategory.WARNING, "+++ list1 module: " + module.getName(), null, -1, -1);
+                    for (final VirtualFile vf : moduleBasedMetadataFiles.get(module)) {
+                        ctx.addMessage(CompilerMessageCategory.WARNING, "----- list1 file: " + vf.getPath(), null, -1, -1);
+                    }
+                }
+            */
+
+            // get annotated class files of affected modules
+            final Map<Module, List<VirtualMetadataFile>> moduleBasedAnnotatedClasses =
+                    this.getAnnotatedClassFiles(compileContext.getCompileScope(), metrics);
+            /*
+                //Commented out: debug output of found annotated class files and according modules
+            for (final Module module : moduleBasedAnnotatedClasses.keySet()) {
+                ctx.addMessage(CompilerMessageCategory.WARNING, "+++ list2 module: " + module.getName(), null, -1, -1);
+                for (final VirtualFile vf : moduleBasedAnnotatedClasses.get(module)) {
+                    ctx.addMessage(CompilerMessageCategory.WARNING, "----- list2 file: " + vf.getPath(), null, -1, -1);
+                }
+            }*/
+
+            // enhancer options and version per module (part of the items' validity state)
+            final Map<Module, String> enhancerFingerprints = new HashMap<Module, String>();
+            // persistent classes of this build, changes re-enhance dependent classes
+            final EntityDependencyGraph dependencyGraph = new EntityDependencyGraph(this.contentHashCache);
+
+            final Collection<FileProcessingCompiler.ProcessingItem> processingItems =
+                    new LinkedHashSet<FileProcessingCompiler.ProcessingItem>();
+            for (final Map.Entry<Module, List<VirtualMetadataFile>> metadataFileEntry : moduleBasedMetadataFiles.entrySet()) {
+                final String enhancerFingerprint = this.getEnhancerFingerprint(metadataFileEntry.getKey(), enhancerFingerprints);
+                for (final VirtualMetadataFile virtualMetadataFile : metadataFileEntry.getValue()) {
+                    final Collection<EnhancerItem> enhancerItems =
+                            virtualMetadataFile.toEnhancerItems(enhancerFingerprint, this.contentHashCache, dependencyGraph);
+                    for (final EnhancerItem enhancerItem : enhancerItems) {
+                        processingItems.add(enhancerItem);
+                    }
+                }
+            }
+            for (final Map.Entry<Module, List<VirtualMetadataFile>> annotatedClassesEntry : moduleBasedAnnotatedClasses.entrySet()) {
+                final String enhancerFingerprint = this.getEnhancerFingerprint(annotatedClassesEntry.getKey(), enhancerFingerprints);
+                for (final VirtualMetadataFile virtualMetadataFile : annotatedClassesEntry.getValue()) {
+                    final Collection<EnhancerItem> enhancerItems =
+                            virtualMetadataFile.toEnhancerItems(enhancerFingerprint, this.contentHashCache, dependencyGraph);
+                    for (final EnhancerItem enhancerItem : enhancerItems) {
+                        processingItems.add(enhancerItem);
+                    }
+                }
+            }
+
+            if (processingItems.isEmpty()) {
+                this.logMessage(compileContext,
+                        CompilerMessageCategory.WARNING,
+                        "Enhancer: no metadata- or annotated class-files found");
+            }
+
+            return processingItems.toArray(new FileProcessingCompiler.ProcessingItem[processingItems.size()]);
+        } else {
+            return EMPTY_PROCESSING_ITEMS;
+        }
+    }
+
+    @Override
+    public FileProcessingCompiler.ProcessingItem[] process(final CompileContext ctx,
+                                                           final FileProcessingCompiler.ProcessingItem[] processingItems) {
+
+        org.apache.log4j.BasicConfigurator.configure();
+        FileProcessingCompiler.ProcessingItem[] ret = EMPTY_PROCESSING_ITEMS;
+
+        // shortcut if disabled
+        final Set<String> enabledModules = this.state.getEnabledModules();
+        if (!this.state.isEnhancerEnabled() || enabledModules == null || enabledModules.isEmpty()) {
+
+        } else {
+
+            // just to be sure: backup of classloader
+            final ClassLoader previousCL = Thread.currentThread().getContextClassLoader();
+
+            // for displaying progress messages
+            final ProgressIndicator progressIndicator = ctx.getProgressIndicator();
+
+            // started while collecting the processing items (if not, only enhancement is measured)
+            final EnhancementMetrics collectedMetrics = this.buildMetrics.getAndSet(null);
+            final EnhancementMetrics metrics = collectedMetrics == null ? new EnhancementMetrics() : collectedMetrics;
+
+            try {
+                // GUI State display init
+                progressIndicator.pushState();
+                progressIndicator.setText("OpenJpa Enhancer running");
+
+                final LinkedHashMap<Module, List<VirtualMetadataFile>> moduleBasedMetadataFiles =
+                        new LinkedHashMap<Module, List<VirtualMetadataFile>>();
+
+                final LinkedHashMap<Module, List<VirtualMetadataFile>> moduleBasedAnnotatedClasses =
+                        new LinkedHashMap<Module, List<VirtualMetadataFile>>();
+
+                // files whose validity state changed, only those are enhanced
+                final Set<String> changedFiles = new HashSet<String>(processingItems.length);
+
+                // enhancer configurations of all modules, checkpoints of other configurations are not resumed
+                final Set<String> enhancerFingerprints = new TreeSet<String>();
+
+                for (final FileProcessingCompiler.ProcessingItem processingItem : processingItems) {
+                    final EnhancerItem enhancerItem = (EnhancerItem) processingItem;
+                    changedFiles.add(enhancerItem.getFile().getPath());
+                    enhancerFingerprints.add(enhancerItem.getEnhancerFingerprint());
+                    final VirtualMetadataFile virtualMetadata = enhancerItem.getVirtualMetadata();
+                    final Module module = virtualMetadata.getModule();
+                    if (virtualMetadata.isAnnotationBasedOnly()) {
+                        List<VirtualMetadataFile> annotatedClassesList = moduleBasedAnnotatedClasses.get(module);
+                        if (annotatedClassesList == null) {
+                            annotatedClassesList = new ArrayList<VirtualMetadataFile>();
+                            moduleBasedAnnotatedClasses.put(module, annotatedClassesList);
+                        }
+                        annotatedClassesList.add(virtualMetadata);
+                    } else {
+                        List<VirtualMetadataFile> metadataFileList = moduleBasedMetadataFiles.get(module);
+                        if (metadataFileList == null) {
+                            metadataFileList = new ArrayList<VirtualMetadataFile>();
+                            moduleBasedMetadataFiles.put(module, metadataFileList);
+                        }
+                        if (!metadataFileList.contains(virtualMetadata)) {
+                            metadataFileList.add(virtualMetadata);
+                        }
+                    }
+                }
+
+                // detect all modules affected
+                final List<Module> affectedModules = getAffectedModules(ctx, moduleBasedMetadataFiles, moduleBasedAnnotatedClasses);
+
+                // failure message per class file that could not be enhanced (modules may be enhanced in parallel)
+                final ConcurrentMap<String, String> failedClassFiles = new ConcurrentHashMap<String, String>();
+
+                // modules whose enhancement failed as a whole, the other modules' results are kept
+                final Set<Module> failedModules = Collections.newSetFromMap(new ConcurrentHashMap<Module, Boolean>());
+
+                // already enhanced classes depending on recompiled ones, enhanced again after being recompiled
+                final Collection<EnhancerItem> dependentItems = findDependentItems(processingItems);
+
+
+                // no metadata or annotated classes -> no enhancement
+                int count = 0;
+                if (!affectedModules.isEmpty()) {
+
+                    // modules and batches are checkpoints, resumed after a cancelled or crashed build
+                    final File journalFile = new File(new File(new File(PathManager.getSystemPath(), REPORT_DIRECTORY),
+                            this.project.getLocationHash()), JOURNAL_FILE);
+                    final EnhancementCheckpoints checkpoints = new EnhancementCheckpoints(progressIndicator,
+                            EnhancementJournal.open(journalFile, StringUtil.join(enhancerFingerprints, "\n")),
+                            affectedModules.size());
+
+                    // class files were rewritten on disk, refresh exactly these instead of the output trees
+                    final Collection<VirtualFile> processedFiles = new ArrayList<VirtualFile>(processingItems.length);
+                    for (final FileProcessingCompiler.ProcessingItem processingItem : processingItems) {
+                        processedFiles.add(processingItem.getFile());
+                    }
+
+                    // start enhancer per module
+                    try {
+                        count = enhanceInModules(ctx, affectedModules, moduleBasedMetadataFiles, moduleBasedAnnotatedClasses,
+                                changedFiles, metrics, failedClassFiles, failedModules, checkpoints);
+                        checkpoints.clear();
+                    } catch (ProcessCanceledException e) {
+                        this.logMessage(ctx,
+                                CompilerMessageCategory.INFORMATION,
+                                "Enhancer: cancelled, the next build resumes from the last completed batch");
+                        throw e;
+                    } finally {
+                        IdeaProjectUtils.refreshFiles(processedFiles);
+                        if (checkpoints.getJournalFailure() != null) {
+                            this.logMessage(ctx,
+                                    CompilerMessageCategory.WARNING,
+                                    "Enhancer: could not write enhancement journal: "
+                                            + checkpoints.getJournalFailure().getMessage());
+                        }
+                    }
+
+                    // failing classes are reported per class, all others are enhanced
+                    for (final Map.Entry<String, String> failure : failedClassFiles.entrySet()) {
+                        ctx.addMessage(CompilerMessageCategory.ERROR,
+                                "Enhancer: could not enhance class: " + failure.getValue(),
+                                VfsUtilCore.pathToUrl(failure.getKey()), -1, -1);
+                    }
+
+                    // success message
+                    this.logMessage(ctx,
+                            CompilerMessageCategory.INFORMATION,
+                            "Enhancer: Successfully enhanced " + count + " classes"
+                                    + (failedClassFiles.isEmpty() ? "" : ", " + failedClassFiles.size() + " failed")
+                                    + (failedModules.isEmpty() ? "" : ", " + failedModules.size() + " modules failed")
+                                    + (checkpoints.getResumedCount() == 0
+                                    ? ""
+                                    : ", " + checkpoints.getResumedCount() + " enhanced by an interrupted build"));
+                } else {
+                    this.logMessage(ctx,
+                            CompilerMessageCategory.WARNING,
+                            "Enhancer: no Hibernate/JPA metadata or annotated class files found");
+                }
+
+                // timings and counters of all phases
+                metrics.stop(count);
+                this.reportMetrics(ctx, metrics);
+                this.saveCatalog(ctx);
+
+                // dependent classes are recompiled once the build finished (and enhanced by that build)
+                final Set<String> unprocessedFiles = new HashSet<String>(failedClassFiles.keySet());
+                if (!dependentItems.isEmpty()) {
+                    for (final EnhancerItem dependentItem : dependentItems) {
+                        unprocessedFiles.add(dependentItem.getFile().getPath());
+                    }
+                    this.recompileDependents(ctx, dependentItems);
+                }
+
+                // failing classes and modules are not marked as processed, hence enhanced again by the next build
+                ret = getProcessedItems(processingItems, unprocessedFiles, failedModules);
+
+            } catch (ProcessCanceledException e) {
+                // cancelled by the user, completed batches are journaled
+                this.saveCatalog(ctx);
+                throw e;
+            } catch (Throwable t) {
+                // writer for stacktrace printing
+                final Writer writer = new StringWriter();
+                // transform stacktrace to string
+                final PrintWriter printWriter = new PrintWriter(writer);
+                try {
+                    t.printStackTrace(printWriter);
+                } finally {
+                    printWriter.close();
+                }
+                // write stacktrace string to messages
+                this.logMessage(ctx,
+                        CompilerMessageCategory.ERROR,
+                        "An unexpected error occurred in the OpenJpa plugin. Stacktrace: " + "\n\n" + writer);
+            } finally {
+                Thread.currentThread().setContextClassLoader(previousCL);
+                // proxies outdated by root changes during the build are no longer used
+                this.proxyCache.disposeInvalidated();
+                progressIndicator.popState();
+            }
+        }
+
+        return ret;
+    }
+
+    @NotNull
+    @Override
+    public String getDescription() {
+        return "OpenJpa Enhancer";
+    }
+
+    @Override
+    public boolean validateConfiguration(final CompileScope compileScope) {
+        return true;
+    }
+
+    @Override
+    public ValidityState createValidityState(final DataInput dataInput) throws IOException {
+        return ContentHashValidityState.load(dataInput);
+    }
+
+    //
+    // Helper methods
+    //
+
+    @SuppressWarnings("FeatureEnvy")
+    private int enhanceInModules(final CompileContext ctx,
+                                 final Collection<Module> affectedModules,
+                                 final LinkedHashMap<Module, List<VirtualMetadataFile>> moduleBasedMetadataFiles,
+                                 final LinkedHashMap<Module, List<VirtualMetadataFile>> moduleBasedAnnotatedClasses,
+                                 final Set<String> changedFiles,
+                                 final EnhancementMetrics metrics,
+                                 final Map<String, String> failedClassFiles,
+                                 final Set<Module> failedModules,
+                                 final EnhancementCheckpoints checkpoints) {
+
+        // exclude disabled modules
+        final Set<String> enabledModules = this.state.getEnabledModules();
+        final List<Module> enabledAffectedModules = new ArrayList<Module>(affectedModules.size());
+        for (final Module module : affectedModules) {
+            if (enabledModules != null && enabledModules.contains(module.getName())) {
+                enabledAffectedModules.add(module);
+            } else {
+                checkpoints.moduleCompleted(module.getName());
+            }
+        }
+
+        final int workerCount = Math.min(this.state.getEnhancerWorkerCount(), enabledAffectedModules.size());
+        int count = 0;
+        if (workerCount <= 1) {
+            for (final Module module : enabledAffectedModules) {
+                try {
+                    count += this.enhanceInModule(ctx,
+                            module,
+                            moduleBasedMetadataFiles.get(module),
+                            moduleBasedAnnotatedClasses.get(module),
+                            changedFiles,
+                            metrics,
+                            failedClassFiles,
+                            checkpoints);
+                } catch (ProcessCanceledException e) {
+                    throw e;
+                } catch (Exception e) {
+                    this.moduleFailed(ctx, module, e, failedModules, checkpoints);
+                }
+            }
+        } else {
+            count = this.enhanceInModulesParallel(ctx,
+                    workerCount,
+                    enabledAffectedModules,
+                    moduleBasedMetadataFiles,
+                    moduleBasedAnnotatedClasses,
+                    changedFiles,
+                    metrics,
+                    failedClassFiles,
+                    failedModules,
+                    checkpoints);
+        }
+        return count;
+    }
+
+    /**
+     * Enhances independent modules concurrently on a bounded worker pool.<br/>
+     * <br/>
+     * Every module still gets its own enhancer proxy (and therefore its own isolated ClassLoader). A module's
+     * failure is reported and the module is added to the failed modules, the results of all other modules are kept
+     * (a cancellation is rethrown after all submitted modules have finished).
+     */
+    private int enhanceInModulesParallel(final CompileContext ctx,
+                                         final int workerCount,
+                                         final List<Module> modules,
+                                         final Map<Module, List<VirtualMetadataFile>> moduleBasedMetadataFiles,
+                                         final Map<Module, List<VirtualMetadataFile>> moduleBasedAnnotatedClasses,
+                                         final Set<String> changedFiles,
+                                         final EnhancementMetrics metrics,
+                                         final Map<String, String> failedClassFiles,
+                                         final Set<Module> failedModules,
+                                         final EnhancementCheckpoints checkpoints) {
+
+        final ProgressIndicator progressIndicator = ctx.getProgressIndicator();
+        final String progressText = this.state.getEnhancerSupport().getName() + " Enhancer enhancing in "
+                + modules.size() + " modules (" + workerCount + " workers)";
+        progressIndicator.setText(progressText);
+        final AtomicInteger completedModules = new AtomicInteger();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(workerCount, new EnhancerThreadFactory());
+        try {
+            final Map<Module, Future<Integer>> futures = new LinkedHashMap<Module, Future<Integer>>(modules.size());
+            for (final Module module : modules) {
+                futures.put(module, executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        progressIndicator.setText2(module.getName());
+                        try {
+                            return Computable.this.enhanceInModule(ctx,
+                                    module,
+                                    moduleBasedMetadataFiles.get(module),
+                                    moduleBasedAnnotatedClasses.get(module),
+                                    changedFiles,
+                                    metrics,
+                                    failedClassFiles,
+                                    checkpoints);
+                        } finally {
+                            progressIndicator.setText(progressText + ", " + completedModules.incrementAndGet()
+                                    + " completed");
+                        }
+                    }
+                }));
+            }
+
+            int count = 0;
+            ProcessCanceledException cancellation = null;
+            for (final Map.Entry<Module, Future<Integer>> futureEntry : futures.entrySet()) {
+                try {
+                    count += futureEntry.getValue().get();
+                } catch (ExecutionException e) {
+                    final Throwable failure = e.getCause();
+                    if (failure instanceof ProcessCanceledException) {
+                        cancellation = (ProcessCanceledException) failure;
+                    } else if (failure instanceof Error) {
+                        throw (Error) failure;
+                    } else {
+                        this.moduleFailed(ctx, futureEntry.getKey(), failure, failedModules, checkpoints);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Enhancer: interrupted while enhancing in module: "
+                            + futureEntry.getKey().getName(), e);
+                }
+            }
+
+            if (cancellation != null) {
+                throw cancellation;
+            }
+            return count;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int enhanceInModule(final CompileContext ctx,
+                                final Module module,
+                                final List<VirtualMetadataFile> metadataFiles,
+                                final List<VirtualMetadataFile> annotatedClassFiles,
+                                final Set<String> changedFiles,
+                                final EnhancementMetrics metrics,
+                                final Map<String, String> failedClassFiles,
+                                final EnhancementCheckpoints checkpoints)
+            throws IOException, ReflectiveOperationException {
+
+        // modules are checkpoints
+        checkpoints.checkCanceled();
+
+        int count = 0;
+
+        // get modules output folders, metadata configured classes are resolved against all of them
+        final List<VirtualFile> outputDirectories = new ArrayList<VirtualFile>(2);
+        if (ctx.getModuleOutputDirectory(module) != null) {
+            outputDirectories.add(ctx.getModuleOutputDirectory(module));
+        }
+        if (this.state.isIncludeTestClasses() && ctx.getModuleOutputDirectoryForTests(module) != null) {
+            outputDirectories.add(ctx.getModuleOutputDirectoryForTests(module));
+        }
+
+        // only enhance in modules that have an output folder
+        if (outputDirectories.isEmpty()) {
+            // display warning if module has no output folder
+            this.logMessage(ctx,
+                    CompilerMessageCategory.WARNING,
+                    "Enhancer: no output directory for module: " + module.getName());
+
+        } else {
+            final ProgressIndicator progressIndicator = ctx.getProgressIndicator();
+            final EnhancerSupport enhancerSupport = this.state.getEnhancerSupport();
+
+            // update progress text (parallel runs display an overall text instead)
+            if (this.state.getEnhancerWorkerCount() <= 1) {
+                progressIndicator.setText(enhancerSupport.getName() + " Enhancer enhancing in " + module.getName());
+            }
+
+            try {
+                // do class enhancement in module
+                count += enhancePerModule(enhancerSupport,
+                        this.state,
+                        this.proxyCache,
+                        this.daemonClient,
+                        ctx,
+                        module,
+                        outputDirectories,
+                        metadataFiles,
+                        annotatedClassFiles,
+                        changedFiles,
+                        metrics,
+                        failedClassFiles,
+                        checkpoints);
+
+            } catch (ClassNotFoundException ignored) {
+                this.logMessage(ctx,
+                        CompilerMessageCategory.WARNING,
+                        "Enhancer: enhancer not found in classpath for module: " + module.getName());
+            } catch (NoSuchMethodException ignored) {
+                this.logMessage(ctx,
+                        CompilerMessageCategory.ERROR,
+                        "Enhancer: enhancer mehtod not found for module: " + module.getName());
+            }
+        }
+        checkpoints.moduleCompleted(module.getName());
+        return count;
+    }
+
+    /**
+     * Report a module whose enhancement failed as a whole, its classes are enhanced again by the next build.
+     */
+    private void moduleFailed(final CompileContext ctx,
+                              final Module module,
+                              final Throwable failure,
+                              final Set<Module> failedModules,
+                              final EnhancementCheckpoints checkpoints) {
+        failedModules.add(module);
+        checkpoints.moduleCompleted(module.getName());
+        final Writer writer = new StringWriter();
+        final PrintWriter printWriter = new PrintWriter(writer);
+        try {
+            failure.printStackTrace(printWriter);
+        } finally {
+            printWriter.close();
+        }
+        this.logMessage(ctx,
+                CompilerMessageCategory.ERROR,
+                "Enhancer: enhancement failed in module: " + module.getName() + "\n\n" + writer);
+    }
+
+    @SuppressWarnings("FeatureEnvy")
+    private static int enhancePerModule(final EnhancerSupport enhancerSupport,
+                                        final State state,
+                                        final EnhancerProxyCache proxyCache,
+                                        final EnhancerDaemonClient daemonClient,
+                                        final CompileContext compileContext,
+                                        final Module module,
+                                        final List<VirtualFile> outputDirectories,
+                                        final Collection<VirtualMetadataFile> metadataFiles,
+                                        final Collection<VirtualMetadataFile> annotatedClassFiles,
+                                        final Set<String> changedFiles,
+                                        final EnhancementMetrics metrics,
+                                        final Map<String, String> failedClassFiles,
+                                        final EnhancementCheckpoints checkpoints)
+            throws IOException, ReflectiveOperationException {
+
+        //
+        // what to enhance
+
+        // metadata based classes
+        final boolean metadataBased = metadataFiles != null && !metadataFiles.isEmpty();
+        // annotation based classes
+        final boolean annotationBased = annotatedClassFiles != null && !annotatedClassFiles.isEmpty();
+
+        //
+        // only enhance if metadata or annotation based class files present
+
+        final boolean doEnhance = metadataBased || annotationBased;
+
+        //
+        // create enhancer instance
+
+        final long classLoaderStart = EnhancementMetrics.start();
+
+        // out-of-process enhancement, if supported by the enhancer integration
+        final EnhancerProxy daemonEnhancer = doEnhance && state.isOutOfProcessEnhancer()
+                ? enhancerSupport.newDaemonEnhancerProxy(state.getApi(), compileContext, module, daemonClient,
+                state.getEnhancerVmOptions())
+                : null;
+
+        // warm proxies can only be reused if classes to enhance are loaded by a temporary ClassLoader
+        final boolean reuseEnhancer = daemonEnhancer == null && state.isTmpClassLoader();
+
+        final EnhancerProxy enhancer;
+        if (doEnhance) {
+
+            //final JDOEnhancer enhancer = JDOHelper.getEnhancer(); // does not work due to classloader problems
+            //enhancer = new OpenJpaEnhancerProxy(api, compileContext, module);
+            if (daemonEnhancer != null) {
+                enhancer = daemonEnhancer;
+            } else if (reuseEnhancer) {
+                enhancer = proxyCache.getEnhancerProxy(enhancerSupport, state.getApi(), compileContext, module);
+            } else {
+                enhancer = enhancerSupport.newEnhancerProxy(state.getApi(), compileContext, module, null);
+            }
+            enhancer.setAddDefaultConstructor(state.isAddDefaultConstructor());
+            enhancer.setEnforcePropertyRestrictions(state.isEnforcePropertyRestrictions());
+            enhancer.setTmpClassLoader(state.isTmpClassLoader());
+            metrics.record(module.getName(), EnhancementMetrics.Phase.CLASS_LOADER, classLoaderStart, 0, 0, 0L);
+
+        } else {
+            enhancer = null;
+        }
+
+        //
+        // add metadata and classes
+
+        // plan classes to enhance: changed metadata affects all configured classes, otherwise only changed classes
+        final List<String> outputDirectoryPaths = new ArrayList<String>(outputDirectories.size());
+        for (final VirtualFile outputDirectory : outputDirectories) {
+            outputDirectoryPaths.add(outputDirectory.getPath());
+        }
+        final EnhancementPlanner planner = new EnhancementPlanner(outputDirectoryPaths, changedFiles);
+        if (metadataBased) {
+            for (final VirtualMetadataFile metadataFile : metadataFiles) {
+                planner.addMetadataFile(metadataFile.getFile().getPath(), metadataFile.getClassNames());
+            }
+        }
+        if (annotationBased) {
+            for (final VirtualMetadataFile annotatedClassFile : annotatedClassFiles) {
+                planner.addAnnotatedClassFile(annotatedClassFile.getFile().getPath());
+            }
+        }
+        final ModulePlan plan = planner.plan();
+
+        // skip classes enhanced by an interrupted build
+        final List<String> classFiles = checkpoints.getPendingClassFiles(plan.getClassFiles());
+
+        //
+        // finally enhance classes
+
+        // count nr of enhanced classes
+        final int enhancedCount;
+
+        if (doEnhance) {
+            // finally enhance all found classes in module, in batches isolating failing classes
+            final long enhanceStart = EnhancementMetrics.start();
+            try {
+                // never run the enhancer without classes, it would enhance all classes it can find
+                if (classFiles.isEmpty()) {
+                    enhancedCount = 0;
+                } else {
+                    final List<String> planMetadataFiles = plan.getMetadataFiles();
+                    final BatchEnhancer.Result result = new BatchEnhancer(state.getEnhancerBatchSize()).enhance(
+                            classFiles,
+                            new BatchEnhancer.Batch<ReflectiveOperationException>() {
+                                @Override
+                                public int enhance(final List<String> classFiles) throws ReflectiveOperationException {
+                                    enhancer.reset();
+                                    enhancer.addMetadataFiles(planMetadataFiles.toArray(new String[planMetadataFiles.size()]));
+                                    enhancer.addClasses(classFiles.toArray(new String[classFiles.size()]));
+                                    return enhancer.enhance();
+                                }
+                            },
+                            checkpoints.<ReflectiveOperationException>forModule(module.getName()));
+                    enhancedCount = result.getEnhanced();
+                    failedClassFiles.putAll(result.getFailures());
+                }
+                metrics.record(module.getName(), EnhancementMetrics.Phase.ENHANCE, enhanceStart,
+                        classFiles.size(), enhancedCount, getFileLengths(classFiles));
+            } finally {
+                if (reuseEnhancer) {
+                    enhancer.reset();
+                } else {
+                    enhancer.dispose();
+                }
+            }
+        } else {
+            // nothing to enhance
+            enhancedCount = 0;
+        }
+
+        return enhancedCount;
+    }
+
+    //
+    // Utility methods
+    //
+
+    /**
+     * Retrieve all annotated class files of a module (for displaying, enabled files are not considered).
+     *
+     * @param module the module
+     * @return .
+     */
+    List<VirtualMetadataFile> getAnnotatedClassFiles(final Module module) {
+        return ApplicationManager.getApplication().runReadAction(new com.intellij.openapi.util.Computable<List<VirtualMetadataFile>>() {
+            @Override
+            public List<VirtualMetadataFile> compute() {
+                return Computable.this.getAnnotatedClassFiles(module, null, null, new EnhancementMetrics(), null);
+            }
+        });
+    }
+
+    /**
+     * Retrieve annotated class files, class files compiled but not known to the VFS yet are refreshed (only these).
+     *
+     * @param compileScope compile scope to use (null for default - can lead to invalid file list due to refactoring)
+     * @param metrics      records annotation search and output directory scan per module
+     * @return .
+     */
+    private Map<Module, List<VirtualMetadataFile>> getAnnotatedClassFiles(@Nullable final CompileScope compileScope,
+                                                                          final EnhancementMetrics metrics) {
+        final Collection<File> unknownClassFiles = new ArrayList<File>();
+        final Map<Module, List<VirtualMetadataFile>> moduleBasedFiles =
+                this.getAnnotatedClassFiles(compileScope, metrics, unknownClassFiles);
+        if (unknownClassFiles.isEmpty()) {
+            return moduleBasedFiles;
+        }
+
+        // compiled, but not known to the VFS yet: refresh exactly these files (not the output trees) and retry
+        IdeaProjectUtils.refreshIoFiles(unknownClassFiles);
+        return this.getAnnotatedClassFiles(compileScope, metrics, null);
+    }
+
+    /**
+     * Retrieve annotated class files.
+     *
+     * @param compileScope      compile scope to use (null for default - can lead to invalid file list due to refactoring)
+     * @param metrics           records annotation search and output directory scan per module
+     * @param unknownClassFiles collects existing class files not known to the VFS (null to skip them silently)
+     * @return .
+     */
+    @SuppressWarnings("FeatureEnvy")
+    private Map<Module, List<VirtualMetadataFile>> getAnnotatedClassFiles(@Nullable final CompileScope compileScope,
+                                                                          final EnhancementMetrics metrics,
+                                                                          @Nullable final Collection<File> unknownClassFiles) {
+        final LinkedHashMap<Module, List<VirtualMetadataFile>> moduleBasedFiles = new LinkedHashMap<Module, List<VirtualMetadataFile>>();
+
+        final Application application = ApplicationManager.getApplication();
+        application.runReadAction(new Runnable() {
+
+            @Override
+            public void run() {
+                final CompileScope projectCompileScope = compileScope == null
+                        ? CompilerManager.getInstance(Computable.this.project).createProjectCompileScope(Computable.this.project)
+                        : compileScope;
+
+                // only enabled files are enhanced (compared by qualified name, nested classes are indexed by binary name)
+                final Set<String> enabledFiles = compileScope == null
+                        ? null
+                        : IdeaProjectUtils.toQualifiedNames(Computable.this.state.getEnabledFiles());
+
+                for (final Module module : projectCompileScope.getAffectedModules()) {
+                    if (Computable.this.state.getEnabledModules() != null && Computable.this.state.getEnabledModules()
+                            .contains(module.getName())) {
+                        final List<VirtualMetadataFile> moduleFiles =
+                                Computable.this.getAnnotatedClassFiles(module, compileScope, enabledFiles, metrics,
+                                        unknownClassFiles);
+                        if (!moduleFiles.isEmpty()) {
+                            moduleBasedFiles.put(module, moduleFiles);
+                        }
+                    }
+                }
+            }
+        });
+
+        return moduleBasedFiles;
+    }
+
+    /**
+     * Retrieve annotated class files of a module, must be called inside a read action.<br/>
+     * <br/>
+     * With a compile scope only classes declared in source files of the scope are retrieved, e.g. compiling a
+     * single file doesn't rediscover (and rehash) all annotated classes of its module. Classes without a source file
+     * in the module (compiled from other languages or generated sources) belong to every scope the module is
+     * affected by. The scope of a make contains all sources of the affected modules, so a make still retrieves all
+     * annotated classes of its modules, unchanged classes are only left to their validity state (not rehashed).<br/>
+     * <br/>
+     * While indexes are rebuilt (dumb mode) the annotated classes are found by reading the class files of the
+     * module's output directories instead, without considering the compile scope.
+     *
+     * @param module       the module
+     * @param compileScope scope of the running build (null for all classes)
+     * @param enabledFiles      qualified class names of the files to retrieve (null for all)
+     * @param metrics           records annotation search and output directory scan
+     * @param unknownClassFiles collects existing class files not known to the VFS (null to skip them silently)
+     * @return .
+     */
+    // TODO: cleanup, as this seems to be very hacky
+    @SuppressWarnings("FeatureEnvy")
+    private List<VirtualMetadataFile> getAnnotatedClassFiles(final Module module,
+                                                             @Nullable final CompileScope compileScope,
+                                                             @Nullable final Set<String> enabledFiles,
+                                                             final EnhancementMetrics metrics,
+                                                             @Nullable final Collection<File> unknownClassFiles) {
+        if (DumbService.isDumb(this.project)) {
+            return this.scanAnnotatedClassFiles(module, enabledFiles, metrics);
+        }
+
+        final List<VirtualMetadataFile> moduleFiles = new LinkedList<VirtualMetadataFile>();
+
+        final long searchStart = EnhancementMetrics.start();
+        final Map<String, VirtualFile> annotatedClasses =
+                this.entityModelCache.getAnnotatedClasses(this.state.getEnhancerSupport(), module);
+        metrics.record(module.getName(), EnhancementMetrics.Phase.ANNOTATION_SEARCH, searchStart,
+                0, annotatedClasses.size(), 0L);
+
+        final Collection<String> annotatedClassNames = new ArrayList<String>(annotatedClasses.size());
+        for (final Map.Entry<String, VirtualFile> annotatedClass : annotatedClasses.entrySet()) {
+            // skip classes declared in sources outside of the compile scope, class files are in the output directory
+            final VirtualFile declaringFile = annotatedClass.getValue();
+            if (compileScope == null || IdeaProjectUtils.isClassFile(declaringFile)
+                    || compileScope.belongs(declaringFile.getUrl())) {
+                annotatedClassNames.add(annotatedClass.getKey());
+            }
+        }
+        if (annotatedClassNames.isEmpty()) {
+            return moduleFiles;
+        }
+
+        final Collection<VirtualFile> outputDirectories = new ArrayList<VirtualFile>(2);
+        outputDirectories.add(CompilerPaths.getModuleOutputDirectory(module, false));
+        if (this.state.isIncludeTestClasses()) {
+            outputDirectories.add(CompilerPaths.getModuleOutputDirectory(module, true));
+        }
+
+        for (final VirtualFile outputDirectory : outputDirectories) {
+            // convert to class files in output directory and add to list
+            if (outputDirectory != null) {
+                final long scanStart = EnhancementMetrics.start();
+                int fileCount = 0;
+                // convert class names to class files in output path
+                for (final String pcClassName : annotatedClassNames) {
+                    // skip disabled files
+                    if (enabledFiles != null && !enabledFiles.contains(IdeaProjectUtils.toQualifiedName(pcClassName))) {
+                        continue;
+                    }
+                    // convert to path
+                    final String pcClassPath = IdeaProjectUtils.packageToPath(pcClassName) + ".class";
+                    // find file in output path
+                    final VirtualFile pcClassFile = outputDirectory.findFileByRelativePath(pcClassPath);
+                    if (pcClassFile != null && pcClassFile.exists()) {
+                        moduleFiles.add(new VirtualMetadataFile(module, true, pcClassFile,
+                                Collections.singletonList(pcClassName),
+                                Collections.singletonList(pcClassFile),
+                                outputDirectory, isTestOutputDirectory(module, outputDirectory), -1L, -1L));
+                        ++fileCount;
+                    } else if (unknownClassFiles != null) {
+                        final File ioClassFile = new File(VfsUtilCore.virtualToIoFile(outputDirectory), pcClassPath);
+                        if (ioClassFile.isFile()) {
+                            unknownClassFiles.add(ioClassFile);
+                        }
+                    }
+                }
+                metrics.record(module.getName(), EnhancementMetrics.Phase.SCAN, scanStart, fileCount, 0, 0L);
+            }
+        }
+        return moduleFiles;
+    }
+
+    /**
+     * Retrieve annotated class files of a module by reading the class files of its output directories
+     * (no index access).
+     *
+     * @param module       the module
+     * @param enabledFiles qualified class names of the files to retrieve (null for all)
+     * @param metrics      records the annotation search
+     * @return .
+     */
+    private List<VirtualMetadataFile> scanAnnotatedClassFiles(final Module module,
+                                                              @Nullable final Set<String> enabledFiles,
+                                                              final EnhancementMetrics metrics) {
+        final List<VirtualMetadataFile> moduleFiles = new LinkedList<VirtualMetadataFile>();
+
+        final Collection<VirtualFile> outputDirectories = new ArrayList<VirtualFile>(2);
+        outputDirectories.add(CompilerPaths.getModuleOutputDirectory(module, false));
+        if (this.state.isIncludeTestClasses()) {
+            outputDirectories.add(CompilerPaths.getModuleOutputDirectory(module, true));
+        }
+
+        for (final VirtualFile outputDirectory : outputDirectories) {
+            if (outputDirectory != null) {
+                final long searchStart = EnhancementMetrics.start();
+                final Map<String, VirtualFile> annotatedClassFiles =
+                        this.entityModelCache.getAnnotatedClassFiles(this.state.getEnhancerSupport(), outputDirectory);
+                int fileCount = 0;
+                for (final Map.Entry<String, VirtualFile> annotatedClassFile : annotatedClassFiles.entrySet()) {
+                    // skip disabled files
+                    if (enabledFiles == null
+                            || enabledFiles.contains(IdeaProjectUtils.toQualifiedName(annotatedClassFile.getKey()))) {
+                        moduleFiles.add(new VirtualMetadataFile(module, true, annotatedClassFile.getValue(),
+                                Collections.singletonList(annotatedClassFile.getKey()),
+                                Collections.singletonList(annotatedClassFile.getValue()),
+                                outputDirectory, isTestOutputDirectory(module, outputDirectory), -1L, -1L));
+                        ++fileCount;
+                    }
+                }
+                metrics.record(module.getName(), EnhancementMetrics.Phase.ANNOTATION_SEARCH, searchStart,
+                        fileCount, annotatedClassFiles.size(), 0L);
+            }
+        }
+        return moduleFiles;
+    }
+
+    /**
+     * Retrieve the metadata files of a module (for displaying).
+     *
+     * @param module the module
+     * @return .
+     */
+    List<VirtualMetadataFile> getMetadataFiles(final Module module) {
+        return ApplicationManager.getApplication().runReadAction(new com.intellij.openapi.util.Computable<List<VirtualMetadataFile>>() {
+            @Override
+            public List<VirtualMetadataFile> compute() {
+                return Computable.this.getMetadataFiles(module, new EnhancementMetrics());
+            }
+        });
+    }
+
+    /**
+     * Retrieve metadata files.
+     *
+     * @param compileScope compile scope to use (null for default - can lead to invalid file list due to refactoring)
+     * @param metrics      records output directory scan and metadata parsing per module
+     * @return .
+     */
+    @SuppressWarnings("FeatureEnvy")
+    private Map<Module, List<VirtualMetadataFile>> getMetadataFiles(@Nullable final CompileScope compileScope,
+                                                                    final EnhancementMetrics metrics) {
+        final CompileScope projectCompileScope = compileScope == null
+                ? CompilerManager.getInstance(this.project).createProjectCompileScope(this.project)
+                : compileScope;
+
+        final Map<Module, List<VirtualMetadataFile>> metadataFiles = new LinkedHashMap<Module, List<VirtualMetadataFile>>();
+
+        final Module[] affectedModules = projectCompileScope.getAffectedModules();
+
+        final Application application = ApplicationManager.getApplication();
+        application.runReadAction(new Runnable() {
+            @Override
+            public void run() {
+                for (final Module module : affectedModules) {
+                    if (Computable.this.state.getEnabledModules() != null && Computable.this.state.getEnabledModules()
+                            .contains(module.getName())) {
+                        final List<VirtualMetadataFile> moduleFiles = Computable.this.getMetadataFiles(module, metrics);
+                        if (!moduleFiles.isEmpty()) {
+                            metadataFiles.put(module, moduleFiles);
+                        }
+                    }
+                }
+            }
+        });
+        return metadataFiles;
+    }
+
+    /**
+     * Retrieve metadata files of a module (cached until the VFS changes), must be called inside a read action.
+     *
+     * @param module  the module
+     * @param metrics records output directory scan and metadata parsing (if not cached)
+     * @return .
+     */
+    private List<VirtualMetadataFile> getMetadataFiles(final Module module, final EnhancementMetrics metrics) {
+        final String options = this.state.getMetaDataExtensions() + (this.state.isIncludeTestClasses() ? "+test" : "");
+        return this.entityModelCache.getMetadataFiles(options, module, new Factory<List<VirtualMetadataFile>>() {
+            @Override
+            public List<VirtualMetadataFile> create() {
+                return Computable.this.discoverMetadataFiles(module, metrics);
+            }
+        });
+    }
+
+    // TODO: cleanup, as this seems to be very hacky
+    @SuppressWarnings({"FeatureEnvy", "MagicCharacter"})
+    private List<VirtualMetadataFile> discoverMetadataFiles(final Module module, final EnhancementMetrics metrics) {
+        final Set<String> extensions;
+        if (this.state.getMetaDataExtensions() == null || this.state.getMetaDataExtensions().isEmpty()) {
+            extensions = Collections.emptySet(); // State.DEFAULT_METADATA_EXTENSIONS; // no extensions provided -> disable search
+        } else {
+            extensions = this.state.getMetaDataExtensions();
+        }
+
+        final List<VirtualMetadataFile> moduleFiles = new LinkedList<VirtualMetadataFile>();
+
+        final Collection<VirtualFile> outputDirectories = new ArrayList<VirtualFile>(2);
+        outputDirectories.add(CompilerPaths.getModuleOutputDirectory(module, false));
+        if (this.state.isIncludeTestClasses()) {
+            outputDirectories.add(CompilerPaths.getModuleOutputDirectory(module, true));
+        }
+        for (final VirtualFile outputDirectory : outputDirectories) {
+            if (outputDirectory != null) {
+                final boolean testOutput = isTestOutputDirectory(module, outputDirectory);
+                final long scanStart = EnhancementMetrics.start();
+                final List<VirtualFile> metadataFilesInOutputDirectory =
+                        IdeaProjectUtils.findFilesByExtensions(outputDirectory, extensions);
+                metrics.record(module.getName(), EnhancementMetrics.Phase.SCAN, scanStart,
+                        metadataFilesInOutputDirectory.size(), 0, 0L);
+
+                // remove non-parseable files
+                final long parseStart = EnhancementMetrics.start();
+                int classCount = 0;
+                long byteCount = 0L;
+                for (final VirtualFile vf : metadataFilesInOutputDirectory) {
+                    // stamp of the parsed content (before parsing), class names are cataloged with it
+                    final File ioFile = VfsUtilCore.virtualToIoFile(vf);
+                    final long parsedLength = ioFile.length();
+                    final long parsedLastModified = ioFile.lastModified();
+                    final String path = VfsUtilCore.getRelativePath(vf, outputDirectory, '/');
+                    final List<String> catalogedClassNames = path == null
+                            ? null
+                            : this.contentHashCache.getMetadataClassNames(module.getName(), testOutput, path,
+                                    parsedLength, parsedLastModified);
+
+                    final Set<String> classNames;
+                    if (catalogedClassNames != null) {
+                        // unchanged since parsed (e.g. before a restart)
+                        classNames = new LinkedHashSet<String>(catalogedClassNames);
+                    } else {
+                        byteCount += vf.getLength();
+                        try {
+                            classNames = this.metadataParserCache.parseQualifiedClassNames(vf);
+                        } catch (Exception e) {
+                            throw new IllegalArgumentException("parsing metadata error", e);
+                        }
+                    }
+                    if (classNames != null && !classNames.isEmpty()) {
+                        final List<VirtualFile> classFiles = new ArrayList<VirtualFile>(classNames.size());
+                        for (final String className : classNames) {
+                            // configured classes may be in any output directory (e.g. test classes)
+                            final String classNameAsPath = IdeaProjectUtils.packageToPath(className);
+                            VirtualFile classFile = null;
+                            for (final VirtualFile classOutputDirectory : outputDirectories) {
+                                if (classFile == null && classOutputDirectory != null) {
+                                    classFile = classOutputDirectory.findFileByRelativePath(classNameAsPath + ".class");
+                                }
+                            }
+                            classFiles.add(classFile);
+                        }
+
+                        moduleFiles.add(new VirtualMetadataFile(module, false, vf, classNames, classFiles,
+                                outputDirectory, testOutput, parsedLength, parsedLastModified));
+                        classCount += classNames.size();
+                    }
+                }
+                metrics.record(module.getName(), EnhancementMetrics.Phase.PARSE, parseStart,
+                        metadataFilesInOutputDirectory.size(), classCount, byteCount);
+            }
+        }
+        return moduleFiles;
+    }
+
+    /**
+     * @return true if the output directory is the module's test output directory
+     */
+    private static boolean isTestOutputDirectory(final Module module, final VirtualFile outputDirectory) {
+        return outputDirectory.equals(CompilerPaths.getModuleOutputDirectory(module, true));
+    }
+
+    /**
+     * Enhancer options and version a module's classes are enhanced with.
+     *
+     * @param module               the module
+     * @param enhancerFingerprints already created fingerprints (per module)
+     * @return .
+     */
+    @SuppressWarnings("MagicCharacter")
+    private String getEnhancerFingerprint(final Module module, final Map<Module, String> enhancerFingerprints) {
+        String enhancerFingerprint = enhancerFingerprints.get(module);
+        if (enhancerFingerprint == null) {
+            final EnhancerSupport enhancerSupport = this.state.getEnhancerSupport();
+            final String enhancerVersion = ApplicationManager.getApplication().runReadAction(
+                    new com.intellij.openapi.util.Computable<String>() {
+                        @Override
+                        public String compute() {
+                            return IdeaProjectUtils.getEnhancerLibraryVersion(enhancerSupport, module,
+                                    Computable.this.contentHashCache);
+                        }
+                    });
+            enhancerFingerprint = "addDefaultConstructor=" + this.state.isAddDefaultConstructor()
+                    + ";enforcePropertyRestrictions=" + this.state.isEnforcePropertyRestrictions()
+                    + ";tmpClassLoader=" + this.state.isTmpClassLoader()
+                    + ";api=" + this.state.getApi()
+                    + ";enhancer=" + enhancerSupport.getId() + ':' + enhancerVersion;
+            enhancerFingerprints.put(module, enhancerFingerprint);
+        }
+        return enhancerFingerprint;
+    }
+
+    static List<Module> getAffectedModules(final CompileContext ctx,
+                                           final Map<Module, List<VirtualMetadataFile>> moduleBasedMetadataFiles,
+                                           final Map<Module, List<VirtualMetadataFile>> moduleBasedAnnotatedClasses) {
+        // list of affected modules
+        final List<Module> affectedModules = new ArrayList<Module>();
+
+        // combine affected module lists (preserving order)
+        final CompileScope compileScope = ctx.getCompileScope();
+        final Module[] cSAffectedModules = compileScope.getAffectedModules();
+        if (cSAffectedModules.length > 0) {
+            for (final Module cSAffectedModule : cSAffectedModules) {
+                if (moduleBasedMetadataFiles.containsKey(cSAffectedModule) || moduleBasedAnnotatedClasses.containsKey(cSAffectedModule)) {
+
+                    affectedModules.add(cSAffectedModule);
+                }
+            }
+        }
+        return affectedModules;
+    }
+
+    /**
+     * Publishes the run's metrics as compiler message and writes them as JSON report to
+     * '&lt;system directory&gt;/openjpa-enhancer/&lt;project location hash&gt;/enhancement-report.json'.
+     */
+    private void reportMetrics(final CompileContext ctx, final EnhancementMetrics metrics) {
+        final File reportFile = new File(new File(new File(PathManager.getSystemPath(), REPORT_DIRECTORY),
+                this.project.getLocationHash()), REPORT_FILE);
+        try {
+            FileUtil.writeToFile(reportFile, metrics.toJson());
+            this.logMessage(ctx,
+                    CompilerMessageCategory.INFORMATION,
+                    "Enhancer: " + metrics.toSummary() + " (report: " + reportFile.getPath() + ')');
+        } catch (IOException e) {
+            this.logMessage(ctx,
+                    CompilerMessageCategory.INFORMATION,
+                    "Enhancer: " + metrics.toSummary());
+            this.logMessage(ctx,
+                    CompilerMessageCategory.WARNING,
+                    "Enhancer: could not write report " + reportFile.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Persists the content digests and metadata class names cataloged since the last build.
+     */
+    private void saveCatalog(final CompileContext ctx) {
+        try {
+            this.contentHashCache.save(this.createCatalogLocator());
+        } catch (IOException e) {
+            this.logMessage(ctx,
+                    CompilerMessageCategory.WARNING,
+                    "Enhancer: could not write entity catalog: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Create a catalog locator resolving the current modules' output directories, so catalog entries of removed
+     * modules and files are dropped.
+     */
+    private EntityCatalog.Locator createCatalogLocator() {
+        final Map<String, File> outputDirectories = ApplicationManager.getApplication().runReadAction(
+                new com.intellij.openapi.util.Computable<Map<String, File>>() {
+                    @Override
+                    public Map<String, File> compute() {
+                        final Map<String, File> directories = new HashMap<String, File>();
+                        for (final Module module : ModuleManager.getInstance(Computable.this.project).getModules()) {
+                            for (final boolean testOutput : new boolean[]{false, true}) {
+                                final String outputPath = CompilerPaths.getModuleOutputPath(module, testOutput);
+                                if (outputPath != null) {
+                                    directories.put(getOutputKey(module.getName(), testOutput), new File(outputPath));
+                                }
+                            }
+                        }
+                        return directories;
+                    }
+                });
+        return new EntityCatalog.Locator() {
+            @Override
+            public File getOutputDirectory(final String module, final boolean testOutput) {
+                return outputDirectories.get(getOutputKey(module, testOutput));
+            }
+        };
+    }
+
+    private static String getOutputKey(final String module, final boolean testOutput) {
+        return module + (testOutput ? ":test" : ":production");
+    }
+
+    /**
+     * Find the class items already enhanced (not recompiled by this build), which depend on persistent classes
+     * recompiled by this build (see {@link EntityDependencyGraph}).
+     */
+    private static Collection<EnhancerItem> findDependentItems(final FileProcessingCompiler.ProcessingItem[] processingItems)
+            throws IOException {
+        final Set<String> recompiledClasses = new HashSet<String>();
+        final List<EnhancerItem> enhancedItems = new ArrayList<EnhancerItem>();
+        for (final FileProcessingCompiler.ProcessingItem processingItem : processingItems) {
+            final EnhancerItem enhancerItem = (EnhancerItem) processingItem;
+            if (enhancerItem.getClassName() != null) {
+                if (OpenJpaEnhancerInvoker.isEnhanced(enhancerItem.getFile().getPath())) {
+                    enhancedItems.add(enhancerItem);
+                } else {
+                    recompiledClasses.add(enhancerItem.getClassName());
+                }
+            }
+        }
+
+        final List<EnhancerItem> dependentItems = new ArrayList<EnhancerItem>();
+        if (!recompiledClasses.isEmpty()) {
+            for (final EnhancerItem enhancedItem : enhancedItems) {
+                final Set<String> dependencies = enhancedItem.getDependencyGraph().getDependencies(enhancedItem.getClassName());
+                if (!Collections.disjoint(dependencies, recompiledClasses)) {
+                    dependentItems.add(enhancedItem);
+                }
+            }
+        }
+        return dependentItems;
+    }
+
+    /**
+     * Schedule the recompilation of dependent classes' sources (see {@link DependentClassRecompiler}).
+     */
+    @SuppressWarnings("MagicCharacter")
+    private void recompileDependents(final CompileContext ctx, final Collection<EnhancerItem> dependentItems) {
+        if (DumbService.isDumb(this.project)) {
+            this.logMessage(ctx,
+                    CompilerMessageCategory.WARNING,
+                    "Enhancer: " + dependentItems.size() + " enhanced classes depend on changed persistent classes,"
+                            + " recompile them once indexing finished");
+            return;
+        }
+        final Collection<VirtualFile> sources = ApplicationManager.getApplication().runReadAction(
+                new com.intellij.openapi.util.Computable<Collection<VirtualFile>>() {
+                    @Override
+                    public Collection<VirtualFile> compute() {
+                        final JavaPsiFacade psiFacade = JavaPsiFacade.getInstance(Computable.this.project);
+                        final Collection<VirtualFile> sources = new LinkedHashSet<VirtualFile>();
+                        for (final EnhancerItem dependentItem : dependentItems) {
+                            final Module module = dependentItem.getVirtualMetadata().getModule();
+                            // nested classes are found by their canonical name
+                            final PsiClass psiClass = psiFacade.findClass(dependentItem.getClassName().replace('$', '.'),
+                                    module.getModuleScope(true));
+                            final VirtualFile source = psiClass == null || psiClass.getContainingFile() == null
+                                    ? null
+                                    : psiClass.getContainingFile().getVirtualFile();
+                            if (source != null) {
+                                sources.add(source);
+                            }
+                        }
+                        return sources;
+                    }
+                });
+        this.dependentClassRecompiler.add(sources);
+        this.logMessage(ctx,
+                CompilerMessageCategory.INFORMATION,
+                "Enhancer: " + sources.size() + " enhanced classes depend on changed persistent classes,"
+                        + " they are recompiled and enhanced after this build");
+    }
+
+    private static FileProcessingCompiler.ProcessingItem[] getProcessedItems(
+            final FileProcessingCompiler.ProcessingItem[] processingItems,
+            final Set<String> failedFiles,
+            final Set<Module> failedModules) {
+        if (failedFiles.isEmpty() && failedModules.isEmpty()) {
+            return processingItems;
+        }
+        final List<FileProcessingCompiler.ProcessingItem> processedItems =
+                new ArrayList<FileProcessingCompiler.ProcessingItem>(processingItems.length);
+        for (final FileProcessingCompiler.ProcessingItem processingItem : processingItems) {
+            final boolean moduleFailed = processingItem instanceof EnhancerItem
+                    && failedModules.contains(((EnhancerItem) processingItem).getVirtualMetadata().getModule());
+            if (!moduleFailed && !failedFiles.contains(processingItem.getFile().getPath())) {
+                processedItems.add(processingItem);
+            }
+        }
+        return processedItems.toArray(new FileProcessingCompiler.ProcessingItem[processedItems.size()]);
+    }
+
+    private static long getFileLengths(final Collection<String> files) {
+        long length = 0L;
+        for (final String file : files) {
+            length += new File(file).length();
+        }
+        return length;
+    }
+
+    @SuppressWarnings("MagicCharacter")
+    private void logMessage(final CompileContext ctx, final CompilerMessageCategory cat, final String msg) {
+        final EnhancerSupport enhancerSupport = this.state.getEnhancerSupport();
+        ctx.addMessage(cat, enhancerSupport.getName() + ' ' + msg, null, -1, -1);
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Creates named daemon threads for parallel module enhancement.
+     */
+    private static class EnhancerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(@NotNull final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "OpenJpa Enhancer worker-" + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
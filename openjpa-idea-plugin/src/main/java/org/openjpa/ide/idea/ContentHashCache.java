@@ -0,0 +1,211 @@
+package org.openjpa.ide.idea;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.intellij.openapi.util.io.FileUtil;
+
+import org.jetbrains.annotations.Nullable;
+import org.openjpa.ide.core.EntityCatalog;
+import org.openjpa.ide.core.util.ClassFileInfo;
+import org.openjpa.ide.core.util.ClassFileScanner;
+
+/**
+ * Per project cache of file content digests used by {@link ContentHashValidityState}.<br/>
+ * <br/>
+ * Digests are keyed by absolute path and only returned as long as the file's length and modification time did not
+ * change, so the validity states of class and metadata files untouched by a make are created without reading the
+ * files again.<br/>
+ * <br/>
+ * Digests of files in module output directories (and the class names parsed from metadata files) are persisted in
+ * an {@link EntityCatalog}, loaded on first use, so this also holds for the first build after an IDE restart.
+ * For class files the classes they depend on are read along with the digest (the {@link EntityDependencyGraph}'s
+ * edges) and cached and persisted the same way.
+ */
+class ContentHashCache {
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private final File catalogFile;
+
+    private final ConcurrentMap<String, Entry> digests = new ConcurrentHashMap<String, Entry>();
+
+    private EntityCatalog catalog = null;
+
+    /**
+     * @param catalogFile file persisting the {@link EntityCatalog}
+     */
+    ContentHashCache(final File catalogFile) {
+        this.catalogFile = catalogFile;
+    }
+
+    /**
+     * Get the digest of a file's content.
+     *
+     * @param file         the file (read from disk if changed or not cached)
+     * @param catalogEntry the file's catalog entry to look up and update (digest ignored, its length and
+     *                     modification time are the ones its class names were parsed from), null if not cataloged
+     * @return .
+     * @throws IOException .
+     */
+    byte[] getDigest(final File file, @Nullable final EntityCatalog.Entry catalogEntry) throws IOException {
+        return this.getEntry(file, catalogEntry).digest.clone();
+    }
+
+    /**
+     * Get the classes a class file depends on (super class and embedded types, see
+     * {@link ClassFileInfo#getEmbeddedTypes()}).
+     *
+     * @param classFile    the class file (read from disk if changed or not cached)
+     * @param catalogEntry the file's catalog entry, see {@link #getDigest(File, EntityCatalog.Entry)}
+     * @return (binary) class names
+     * @throws IOException .
+     */
+    List<String> getDependencies(final File classFile, @Nullable final EntityCatalog.Entry catalogEntry)
+            throws IOException {
+        final List<String> dependencies = this.getEntry(classFile, catalogEntry).dependencies;
+        return dependencies == null ? Collections.<String>emptyList() : dependencies;
+    }
+
+    /**
+     * Get the class names of a metadata file as parsed before (e.g. before an IDE restart).
+     *
+     * @param module       module name
+     * @param testOutput   true for the module's test output directory
+     * @param path         output directory relative path of the metadata file
+     * @param length       the file's current length
+     * @param lastModified the file's current modification time
+     * @return the class names, null if not cataloged or changed since
+     */
+    @Nullable
+    List<String> getMetadataClassNames(final String module,
+                                       final boolean testOutput,
+                                       final String path,
+                                       final long length,
+                                       final long lastModified) {
+        final EntityCatalog.Entry cataloged = this.getCatalog().get(module, testOutput, path);
+        return cataloged != null && cataloged.getKind() == EntityCatalog.Kind.METADATA
+                && cataloged.isUnchanged(length, lastModified) ? cataloged.getClassNames() : null;
+    }
+
+    /**
+     * Persist the digests added since the last call.
+     *
+     * @param locator locates the cataloged files to remove entries of removed modules and files, null to keep all
+     * @throws IOException if the catalog can't be written
+     */
+    void save(@Nullable final EntityCatalog.Locator locator) throws IOException {
+        final EntityCatalog loaded;
+        synchronized (this) {
+            loaded = this.catalog;
+        }
+        if (loaded != null) {
+            loaded.save(locator);
+        }
+    }
+
+    /**
+     * Remove all cached digests (persisted ones are kept, they are only used for unchanged files).
+     */
+    void clear() {
+        this.digests.clear();
+    }
+
+    //
+    // Helper methods
+    //
+
+    private Entry getEntry(final File file, @Nullable final EntityCatalog.Entry catalogEntry) throws IOException {
+        final String path = file.getAbsolutePath();
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        final Entry cached = this.digests.get(path);
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            return cached;
+        }
+
+        final EntityCatalog.Entry cataloged = catalogEntry == null
+                ? null
+                : this.getCatalog().get(catalogEntry.getModule(), catalogEntry.isTestOutput(), catalogEntry.getPath());
+        final boolean classFile = file.getName().endsWith(CLASS_FILE_SUFFIX);
+        final Entry entry;
+        if (cataloged != null && cataloged.isUnchanged(length, lastModified)
+                && (!classFile || cataloged.getDependencies() != null)) {
+            entry = new Entry(length, lastModified, cataloged.getDigest(), cataloged.getDependencies());
+        } else if (classFile) {
+            final byte[] content = FileUtil.loadFileBytes(file);
+            entry = new Entry(length, lastModified, ContentHashValidityState.digest(content), readDependencies(content));
+        } else {
+            entry = new Entry(length, lastModified, ContentHashValidityState.digest(file), null);
+        }
+        this.digests.put(path, entry);
+
+        if (catalogEntry != null) {
+            // class names are only valid for the content they were parsed from
+            final boolean classNamesValid = catalogEntry.isUnchanged(length, lastModified);
+            this.getCatalog().put(new EntityCatalog.Entry(catalogEntry.getModule(), catalogEntry.isTestOutput(),
+                    catalogEntry.getPath(), catalogEntry.getKind(), catalogEntry.getMetadataFile(), length, lastModified,
+                    entry.digest, classNamesValid ? catalogEntry.getClassNames() : null, entry.dependencies));
+        }
+        return entry;
+    }
+
+    /**
+     * @return super class and embedded types, empty if the content is no valid class file
+     */
+    private static List<String> readDependencies(final byte[] classFileContent) {
+        final ClassFileInfo classFileInfo;
+        try {
+            classFileInfo = ClassFileScanner.scan(new ByteArrayInputStream(classFileContent));
+        } catch (IOException ignored) {
+            return Collections.emptyList();
+        }
+        final Set<String> dependencies = new LinkedHashSet<String>();
+        if (classFileInfo.getSuperName() != null) {
+            dependencies.add(classFileInfo.getSuperName());
+        }
+        // referenced (related) classes are enhanced independently
+        dependencies.addAll(classFileInfo.getEmbeddedTypes());
+        dependencies.remove(classFileInfo.getName());
+        return new ArrayList<String>(dependencies);
+    }
+
+    private synchronized EntityCatalog getCatalog() {
+        if (this.catalog == null) {
+            this.catalog = EntityCatalog.load(this.catalogFile);
+        }
+        return this.catalog;
+    }
+
+    //
+    // Helper classes
+    //
+
+    private static class Entry {
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final byte[] digest;
+
+        private final List<String> dependencies;
+
+        private Entry(final long length, final long lastModified, final byte[] digest, final List<String> dependencies) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.digest = digest;
+            this.dependencies = dependencies;
+        }
+
+    }
+
+}
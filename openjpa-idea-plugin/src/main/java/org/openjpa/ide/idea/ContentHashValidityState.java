@@ -0,0 +1,148 @@
+package org.openjpa.ide.idea;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.intellij.openapi.compiler.ValidityState;
+
+import org.jetbrains.annotations.Nullable;
+import org.openjpa.ide.core.EntityCatalog;
+
+/**
+ * Validity state based on the content of a file and the enhancer configuration it was processed with.<br/>
+ * <br/>
+ * Unlike {@link com.intellij.openapi.compiler.TimestampValidityState}, touching a file or the compiler
+ * rewriting identical bytes does not invalidate the state, whereas changing enhancer options or the
+ * enhancer version does. Content digests are taken from a {@link ContentHashCache}, so unchanged files are not
+ * read again. The state of a persistent class also covers the classes it depends on (see {@link EntityDependencyGraph}).
+ */
+class ContentHashValidityState implements ValidityState {
+
+    /**
+     * Marks states written by this implementation (states of older plugin versions are timestamp based or hash
+     * the enhancer fingerprint and content in one digest)
+     */
+    private static final int MAGIC = 0x4f4a4349;
+
+    private static final String DIGEST_ALGORITHM = "MD5";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final byte[] hash;
+
+    ContentHashValidityState(final byte[] hash) {
+        this.hash = hash.clone();
+    }
+
+    /**
+     * Create validity state from a file's content.
+     *
+     * @param file                the file to hash (read from disk, as the enhancer rewrites files outside of the VFS)
+     * @param enhancerFingerprint enhancer options and version the file is processed with
+     * @param contentHashCache    digests of unchanged files
+     * @param catalogEntry        the file's catalog entry (see {@link ContentHashCache#getDigest(File, EntityCatalog.Entry)})
+     * @param dependencyDigests   digests of the persistent classes the file's class depends on, by class name
+     *                            (see {@link EntityDependencyGraph})
+     * @return .
+     * @throws IOException .
+     */
+    static ContentHashValidityState create(final File file,
+                                           final String enhancerFingerprint,
+                                           final ContentHashCache contentHashCache,
+                                           @Nullable final EntityCatalog.Entry catalogEntry,
+                                           final SortedMap<String, byte[]> dependencyDigests) throws IOException {
+        final MessageDigest digest = newDigest();
+        digest.update(enhancerFingerprint.getBytes(UTF_8));
+        digest.update(contentHashCache.getDigest(file, catalogEntry));
+        for (final Map.Entry<String, byte[]> dependencyDigest : dependencyDigests.entrySet()) {
+            digest.update(dependencyDigest.getKey().getBytes(UTF_8));
+            digest.update(dependencyDigest.getValue());
+        }
+        return new ContentHashValidityState(digest.digest());
+    }
+
+    /**
+     * Digest a file's content.
+     *
+     * @param file the file to read
+     * @return .
+     * @throws IOException .
+     */
+    static byte[] digest(final File file) throws IOException {
+        final MessageDigest digest = newDigest();
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Digest content read before.
+     *
+     * @param content the content
+     * @return .
+     */
+    static byte[] digest(final byte[] content) {
+        return newDigest().digest(content);
+    }
+
+    static ContentHashValidityState load(final DataInput dataInput) throws IOException {
+        if (dataInput.readInt() != MAGIC) {
+            // state of an older plugin version, never equal -> file gets processed again
+            return new ContentHashValidityState(new byte[0]);
+        }
+        final byte[] hash = new byte[dataInput.readUnsignedByte()];
+        dataInput.readFully(hash);
+        return new ContentHashValidityState(hash);
+    }
+
+    //
+    // ValidityState interface implementation
+    //
+
+    @Override
+    public boolean equalsTo(final ValidityState otherState) {
+        return otherState instanceof ContentHashValidityState
+                && this.hash.length > 0
+                && Arrays.equals(this.hash, ((ContentHashValidityState) otherState).hash);
+    }
+
+    @Override
+    public void save(final DataOutput dataOutput) throws IOException {
+        dataOutput.writeInt(MAGIC);
+        dataOutput.writeByte(this.hash.length);
+        dataOutput.write(this.hash);
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " digest not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.openjpa.ide.idea;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.compiler.CompilationStatusAdapter;
+import com.intellij.openapi.compiler.CompileContext;
+import com.intellij.openapi.compiler.CompilerManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+
+/**
+ * Recompiles the sources of already enhanced classes depending on persistent classes changed by a build, once the
+ * build finished.<br/>
+ * <br/>
+ * An enhanced class can't be enhanced again, so an entity whose mapped superclass or embeddable changed (see
+ * {@link EntityDependencyGraph}) is only enhanced consistently after recompiling it. The recompilation is a forced
+ * compile of the dependent sources, which enhances them as part of its own build. It's only started if the build
+ * finished without errors and was not aborted.
+ */
+class DependentClassRecompiler extends CompilationStatusAdapter {
+
+    private final Project project;
+
+    /**
+     * Sources to recompile after the running build
+     */
+    private final Set<VirtualFile> pending = new LinkedHashSet<VirtualFile>();
+
+    DependentClassRecompiler(final Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Recompile sources once the running build finished.
+     *
+     * @param sources source files of dependent classes
+     */
+    synchronized void add(final Collection<VirtualFile> sources) {
+        this.pending.addAll(sources);
+    }
+
+    @Override
+    public void compilationFinished(final boolean aborted,
+                                    final int errors,
+                                    final int warnings,
+                                    final CompileContext compileContext) {
+        final VirtualFile[] sources;
+        synchronized (this) {
+            sources = this.pending.toArray(new VirtualFile[this.pending.size()]);
+            this.pending.clear();
+        }
+        if (aborted || errors > 0 || sources.length == 0) {
+            return;
+        }
+
+        // not while the finished build is still being completed
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                final Project project = DependentClassRecompiler.this.project;
+                if (!project.isDisposed()) {
+                    CompilerManager.getInstance(project).compile(sources, null);
+                }
+            }
+        });
+    }
+
+}
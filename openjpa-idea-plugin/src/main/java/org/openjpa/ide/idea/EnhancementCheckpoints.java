@@ -0,0 +1,161 @@
+package org.openjpa.ide.idea;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import org.openjpa.ide.core.BatchEnhancer;
+import org.openjpa.ide.core.EnhancementJournal;
+
+/**
+ * Units of work of an enhancement run: modules, within a module the enhancer batches ({@link BatchEnhancer}).<br/>
+ * <br/>
+ * Reports the completed fraction of all units to the progress indicator, every module weighing the same, and checks
+ * for cancellation between units. Completed batches are journaled ({@link EnhancementJournal}), so the next build
+ * skips classes enhanced before a cancellation or crash. Thread safe, modules may be enhanced in parallel.
+ */
+class EnhancementCheckpoints {
+
+    private final ProgressIndicator progressIndicator;
+
+    private final EnhancementJournal journal;
+
+    private final int moduleCount;
+
+    /**
+     * Completed fraction per module name
+     */
+    private final Map<String, Double> moduleFractions = new HashMap<String, Double>();
+
+    private int resumedCount = 0;
+
+    private IOException journalFailure = null;
+
+    /**
+     * @param progressIndicator indicator to report to and to check for cancellation
+     * @param journal           checkpoints of this and interrupted earlier runs
+     * @param moduleCount       number of modules to enhance in
+     */
+    EnhancementCheckpoints(final ProgressIndicator progressIndicator,
+                           final EnhancementJournal journal,
+                           final int moduleCount) {
+        this.progressIndicator = progressIndicator;
+        this.journal = journal;
+        this.moduleCount = moduleCount;
+        progressIndicator.setIndeterminate(false);
+        progressIndicator.setFraction(0.0);
+    }
+
+    /**
+     * Abort if the build was cancelled.
+     *
+     * @throws com.intellij.openapi.progress.ProcessCanceledException if cancelled
+     */
+    void checkCanceled() {
+        this.progressIndicator.checkCanceled();
+    }
+
+    /**
+     * Remove class files enhanced by an interrupted earlier run (and unchanged since).
+     *
+     * @param classFiles class files to enhance
+     * @return class files still to enhance
+     */
+    List<String> getPendingClassFiles(final Collection<String> classFiles) {
+        final List<String> pending = new ArrayList<String>(classFiles.size());
+        for (final String classFile : classFiles) {
+            if (!this.journal.isCompleted(classFile)) {
+                pending.add(classFile);
+            }
+        }
+        synchronized (this) {
+            this.resumedCount += classFiles.size() - pending.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Create the checkpoint of a module's batches.
+     *
+     * @param moduleName the module
+     * @param <X>        exception aborting the module's enhancement
+     * @return .
+     */
+    <X extends Exception> BatchEnhancer.Checkpoint<X> forModule(final String moduleName) {
+        return new BatchEnhancer.Checkpoint<X>() {
+            @Override
+            public void reached(final List<String> enhancedClassFiles, final int completed, final int total) {
+                EnhancementCheckpoints.this.journal(enhancedClassFiles);
+                EnhancementCheckpoints.this.moduleReached(moduleName, completed, total);
+                EnhancementCheckpoints.this.checkCanceled();
+            }
+        };
+    }
+
+    /**
+     * A module's enhancement completed (or there was nothing to enhance).
+     *
+     * @param moduleName the module
+     */
+    void moduleCompleted(final String moduleName) {
+        this.moduleReached(moduleName, 1, 1);
+    }
+
+    /**
+     * Remove all checkpoints, the run completed.
+     */
+    void clear() {
+        try {
+            this.journal.delete();
+        } catch (IOException e) {
+            this.setJournalFailure(e);
+        }
+    }
+
+    /**
+     * @return number of class files skipped as enhanced by an interrupted earlier run
+     */
+    synchronized int getResumedCount() {
+        return this.resumedCount;
+    }
+
+    /**
+     * @return first failure writing the journal, null if none (the run is not affected, only resuming it)
+     */
+    synchronized IOException getJournalFailure() {
+        return this.journalFailure;
+    }
+
+    //
+    // Helper methods
+    //
+
+    private void journal(final List<String> enhancedClassFiles) {
+        try {
+            this.journal.complete(enhancedClassFiles);
+        } catch (IOException e) {
+            this.setJournalFailure(e);
+        }
+    }
+
+    private synchronized void moduleReached(final String moduleName, final int completed, final int total) {
+        this.moduleFractions.put(moduleName, total <= 0 ? 1.0 : (double) completed / total);
+        double fraction = 0.0;
+        for (final Double moduleFraction : this.moduleFractions.values()) {
+            fraction += moduleFraction;
+        }
+        this.progressIndicator.setFraction(Math.min(1.0, fraction / Math.max(1, this.moduleCount)));
+    }
+
+    private synchronized void setJournalFailure(final IOException e) {
+        if (this.journalFailure == null) {
+            this.journalFailure = e;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.openjpa.ide.idea;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.intellij.openapi.compiler.FileProcessingCompiler;
+import com.intellij.openapi.compiler.ValidityState;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openjpa.ide.core.EntityCatalog;
+
+/**
+ * File that is target or metadata source for the enhancement process.<br/>
+ * This can be either a class file or a xml file containing persistence metadata.<br/>
+ * <br/>
+ * Acts as wrapper to handle validity state for incremental compilation/enhancement,
+ * which is based on the file's content, the content of the persistent classes it depends on
+ * (see {@link EntityDependencyGraph}) and the enhancer configuration (see {@link ContentHashValidityState}).
+ * <p/>
+ * TODO: seems hacky, do a complete review and cleanup
+ */
+class EnhancerItem implements FileProcessingCompiler.ProcessingItem {
+
+    private final VirtualMetadataFile virtualMetadata;
+
+    private final VirtualFile classFile;
+
+    private final String enhancerFingerprint;
+
+    private final ContentHashCache contentHashCache;
+
+    private final EntityCatalog.Entry catalogEntry;
+
+    private final String className;
+
+    private final EntityDependencyGraph dependencyGraph;
+
+    EnhancerItem(final VirtualMetadataFile virtualMetadata,
+                 final VirtualFile classFile,
+                 final String enhancerFingerprint,
+                 final ContentHashCache contentHashCache,
+                 @Nullable final EntityCatalog.Entry catalogEntry,
+                 @Nullable final String className,
+                 final EntityDependencyGraph dependencyGraph) {
+        Validate.notNull(classFile, "classFile is null!");
+        Validate.notNull(enhancerFingerprint, "enhancerFingerprint is null!");
+        this.virtualMetadata = virtualMetadata;
+        this.classFile = classFile;
+        this.enhancerFingerprint = enhancerFingerprint;
+        this.contentHashCache = contentHashCache;
+        this.catalogEntry = catalogEntry;
+        this.className = className;
+        this.dependencyGraph = dependencyGraph;
+    }
+
+    @NotNull
+    @Override
+    public VirtualFile getFile() {
+        return this.classFile;
+    }
+
+    @Override
+    public ValidityState getValidityState() {
+        final File file = VfsUtilCore.virtualToIoFile(this.classFile);
+        try {
+            final SortedMap<String, byte[]> dependencyDigests = this.className == null
+                    ? new TreeMap<String, byte[]>()
+                    : this.dependencyGraph.getDependencyDigests(this.className);
+            return ContentHashValidityState.create(file, this.enhancerFingerprint, this.contentHashCache, this.catalogEntry,
+                    dependencyDigests);
+        } catch (IOException ignored) {
+            // no state -> always processed
+            return null;
+        }
+    }
+
+    public VirtualMetadataFile getVirtualMetadata() {
+        return this.virtualMetadata;
+    }
+
+    public String getEnhancerFingerprint() {
+        return this.enhancerFingerprint;
+    }
+
+    /**
+     * @return (binary) name of the enhanced class, null for metadata files
+     */
+    @Nullable
+    public String getClassName() {
+        return this.className;
+    }
+
+    public EntityDependencyGraph getDependencyGraph() {
+        return this.dependencyGraph;
+    }
+
+}
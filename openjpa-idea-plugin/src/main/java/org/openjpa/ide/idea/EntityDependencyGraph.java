@@ -0,0 +1,120 @@
+package org.openjpa.ide.idea;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+
+import org.jetbrains.annotations.Nullable;
+import org.openjpa.ide.core.EntityCatalog;
+
+/**
+ * Dependencies between the persistent classes of a build.<br/>
+ * <br/>
+ * A class depends on its super class and the types it embeds (read from its class file, see
+ * {@link ContentHashCache#getDependencies(File, EntityCatalog.Entry)}), only dependencies that are persistent classes
+ * of the same build are followed. Related classes (e.g. the target of a '@ManyToOne' field) are no dependencies,
+ * changing an entity doesn't invalidate the entities referencing it. The digests of a class's (transitive) dependencies are part of its validity state,
+ * so changing e.g. a mapped superclass or an embeddable invalidates all entities extending or embedding it, even if
+ * their own class files did not change. As those are already enhanced, they are recompiled to be enhanced again
+ * (see {@link DependentClassRecompiler}).
+ */
+class EntityDependencyGraph {
+
+    private final ContentHashCache contentHashCache;
+
+    private final Map<String, Node> nodes = new HashMap<String, Node>();
+
+    /**
+     * @param contentHashCache digests and dependencies of class files
+     */
+    EntityDependencyGraph(final ContentHashCache contentHashCache) {
+        this.contentHashCache = contentHashCache;
+    }
+
+    /**
+     * Add a persistent class.
+     *
+     * @param className    (binary) class name
+     * @param classFile    the class file
+     * @param catalogEntry the class file's catalog entry, null if not cataloged
+     */
+    synchronized void add(final String className,
+                          final VirtualFile classFile,
+                          @Nullable final EntityCatalog.Entry catalogEntry) {
+        if (!this.nodes.containsKey(className)) {
+            this.nodes.put(className, new Node(VfsUtilCore.virtualToIoFile(classFile), catalogEntry));
+        }
+    }
+
+    /**
+     * Get the digests of the persistent classes a class (transitively) depends on.
+     *
+     * @param className (binary) class name
+     * @return digests by class name (sorted for a stable validity state), empty if the class has no dependencies
+     * @throws IOException if a class file can't be read
+     */
+    synchronized SortedMap<String, byte[]> getDependencyDigests(final String className) throws IOException {
+        final SortedMap<String, byte[]> digests = new TreeMap<String, byte[]>();
+        for (final String dependency : this.getDependencies(className)) {
+            final Node dependencyNode = this.nodes.get(dependency);
+            digests.put(dependency, this.contentHashCache.getDigest(dependencyNode.classFile, dependencyNode.catalogEntry));
+        }
+        return digests;
+    }
+
+    /**
+     * Get the persistent classes a class (transitively) depends on.
+     *
+     * @param className (binary) class name
+     * @return (binary) class names, empty if the class has no dependencies
+     * @throws IOException if a class file can't be read
+     */
+    synchronized Set<String> getDependencies(final String className) throws IOException {
+        final Set<String> dependencies = new LinkedHashSet<String>();
+        final Node node = this.nodes.get(className);
+        if (node == null) {
+            return dependencies;
+        }
+
+        final Deque<Node> pending = new ArrayDeque<Node>();
+        pending.add(node);
+        while (!pending.isEmpty()) {
+            final Node current = pending.poll();
+            for (final String dependency : this.contentHashCache.getDependencies(current.classFile, current.catalogEntry)) {
+                final Node dependencyNode = this.nodes.get(dependency);
+                if (dependencyNode != null && !dependency.equals(className) && dependencies.add(dependency)) {
+                    pending.add(dependencyNode);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    //
+    // Helper classes
+    //
+
+    private static class Node {
+
+        private final File classFile;
+
+        private final EntityCatalog.Entry catalogEntry;
+
+        private Node(final File classFile, final EntityCatalog.Entry catalogEntry) {
+            this.classFile = classFile;
+            this.catalogEntry = catalogEntry;
+        }
+
+    }
+
+}
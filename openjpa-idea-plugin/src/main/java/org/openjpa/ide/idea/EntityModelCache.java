@@ -0,0 +1,188 @@
+package org.openjpa.ide.idea;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Factory;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.util.PsiModificationTracker;
+
+import org.openjpa.ide.idea.integration.EnhancerSupport;
+
+/**
+ * Per project cache of the discovered entity model, shared by builds ({@link Computable}) and the configuration
+ * GUI ({@link ProjectComponent}).<br/>
+ * <br/>
+ * Holds per module if it contains the enhancer, its persistence annotated classes and its metadata files.
+ * Entries are only returned as long as what they were discovered from did not change: annotated classes as long
+ * as the PSI modification count, metadata files and annotated class files (found in dumb mode) as long as the VFS
+ * modification count is unchanged. Enhancer
+ * presence depends on module dependencies only, all entries are removed on root changes ({@link #clear()}).
+ */
+class EntityModelCache {
+
+    private final Project project;
+
+    private final ConcurrentMap<String, Boolean> enhancerInModule = new ConcurrentHashMap<String, Boolean>();
+
+    private final ConcurrentMap<String, Entry<Map<String, VirtualFile>>> annotatedClasses =
+            new ConcurrentHashMap<String, Entry<Map<String, VirtualFile>>>();
+
+    private final ConcurrentMap<String, Entry<Map<String, VirtualFile>>> annotatedClassFiles =
+            new ConcurrentHashMap<String, Entry<Map<String, VirtualFile>>>();
+
+    private final ConcurrentMap<String, Entry<List<VirtualMetadataFile>>> metadataFiles =
+            new ConcurrentHashMap<String, Entry<List<VirtualMetadataFile>>>();
+
+    EntityModelCache(final Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Check if a module contains the enhancer, see {@link IdeaProjectUtils#isEnhancerInModule(EnhancerSupport, Module)}.
+     * Must be called inside a read action.<br/>
+     * <br/>
+     * While indexes are rebuilt (dumb mode) only the module's libraries are checked, the result is not cached.
+     *
+     * @param enhancerSupport enhancer integration
+     * @param module          the module
+     * @return true if the module contains an appropriate enhancer
+     */
+    boolean isEnhancerInModule(final EnhancerSupport enhancerSupport, final Module module) {
+        final String key = getKey(enhancerSupport.getId(), module);
+        Boolean found = this.enhancerInModule.get(key);
+        if (found == null && DumbService.isDumb(this.project)) {
+            return IdeaProjectUtils.isEnhancerLibraryInModule(enhancerSupport, module);
+        }
+        if (found == null) {
+            found = IdeaProjectUtils.isEnhancerInModule(enhancerSupport, module);
+            this.enhancerInModule.put(key, found);
+        }
+        return found;
+    }
+
+    /**
+     * Get persistence annotated classes of a module, see
+     * {@link IdeaProjectUtils#findPersistenceAnnotatedClasses(EnhancerSupport, Module)}.
+     * Must be called inside a read action.
+     *
+     * @param enhancerSupport enhancer integration
+     * @param module          the module
+     * @return (unmodifiable) (binary) names of annotated classes and the source files declaring them (class files
+     *         for classes without source file)
+     */
+    Map<String, VirtualFile> getAnnotatedClasses(final EnhancerSupport enhancerSupport, final Module module) {
+        return get(this.annotatedClasses, getKey(enhancerSupport.getId(), module),
+                PsiModificationTracker.SERVICE.getInstance(this.project),
+                new Factory<Map<String, VirtualFile>>() {
+                    @Override
+                    public Map<String, VirtualFile> create() {
+                        return Collections.unmodifiableMap(new LinkedHashMap<String, VirtualFile>(
+                                IdeaProjectUtils.findPersistenceAnnotatedClasses(enhancerSupport, module)));
+                    }
+                });
+    }
+
+    /**
+     * Get persistence annotated class files of an output directory, see
+     * {@link IdeaProjectUtils#findPersistenceAnnotatedClassFiles(EnhancerSupport, VirtualFile)}.
+     * Doesn't need any index.
+     *
+     * @param enhancerSupport enhancer integration
+     * @param outputDirectory the output directory
+     * @return (unmodifiable) (binary) names of annotated classes and their class files
+     */
+    @SuppressWarnings("MagicCharacter")
+    Map<String, VirtualFile> getAnnotatedClassFiles(final EnhancerSupport enhancerSupport, final VirtualFile outputDirectory) {
+        return get(this.annotatedClassFiles, enhancerSupport.getId() + ':' + outputDirectory.getPath(),
+                VirtualFileManager.getInstance(),
+                new Factory<Map<String, VirtualFile>>() {
+                    @Override
+                    public Map<String, VirtualFile> create() {
+                        return Collections.unmodifiableMap(
+                                IdeaProjectUtils.findPersistenceAnnotatedClassFiles(enhancerSupport, outputDirectory));
+                    }
+                });
+    }
+
+    /**
+     * Get metadata files of a module.
+     *
+     * @param options  search options the files depend on (e.g. extensions)
+     * @param module   the module
+     * @param discover searches the files if not cached
+     * @return (unmodifiable) metadata files
+     */
+    List<VirtualMetadataFile> getMetadataFiles(final String options,
+                                               final Module module,
+                                               final Factory<List<VirtualMetadataFile>> discover) {
+        return get(this.metadataFiles, getKey(options, module),
+                VirtualFileManager.getInstance(),
+                new Factory<List<VirtualMetadataFile>>() {
+                    @Override
+                    public List<VirtualMetadataFile> create() {
+                        return Collections.unmodifiableList(discover.create());
+                    }
+                });
+    }
+
+    /**
+     * Remove all cached entries.
+     */
+    void clear() {
+        this.enhancerInModule.clear();
+        this.annotatedClasses.clear();
+        this.annotatedClassFiles.clear();
+        this.metadataFiles.clear();
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static <T> T get(final ConcurrentMap<String, Entry<T>> entries,
+                             final String key,
+                             final ModificationTracker tracker,
+                             final Factory<T> factory) {
+        final long modificationCount = tracker.getModificationCount();
+        final Entry<T> cached = entries.get(key);
+        if (cached != null && cached.modificationCount == modificationCount) {
+            return cached.value;
+        }
+        final T value = factory.create();
+        entries.put(key, new Entry<T>(modificationCount, value));
+        return value;
+    }
+
+    @SuppressWarnings("MagicCharacter")
+    private static String getKey(final String options, final Module module) {
+        return options + ':' + module.getName();
+    }
+
+    //
+    // Helper classes
+    //
+
+    private static class Entry<T> {
+
+        private final long modificationCount;
+
+        private final T value;
+
+        private Entry(final long modificationCount, final T value) {
+            this.modificationCount = modificationCount;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,378 @@
+package org.openjpa.ide.idea;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.compiler.CompileScope;
+import com.intellij.openapi.compiler.CompilerManager;
+import com.intellij.openapi.compiler.CompilerPaths;
+import com.intellij.openapi.fileTypes.StdFileTypes;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.vfs.JarFileSystem;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.RefreshQueue;
+import com.intellij.openapi.vfs.newvfs.RefreshSession;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopes;
+import com.intellij.psi.search.searches.AllClassesSearch;
+import com.intellij.util.Query;
+import com.intellij.util.indexing.FileBasedIndex;
+
+import org.jetbrains.annotations.Nullable;
+import org.openjpa.ide.core.util.AnnotatedClassScanner;
+import org.openjpa.ide.core.util.FileExtensionScanner;
+import org.openjpa.ide.idea.integration.EnhancerSupport;
+
+/**
+ * Utility method collection for IDEA projects API.
+ */
+final class IdeaProjectUtils {
+
+    //
+    // Private constructor
+    //
+
+    private IdeaProjectUtils() {
+        // no instantiation allowed
+    }
+
+    //
+    // Utility methods
+    //
+
+    /**
+     * Find modules containing the appropriate enhancer.
+     *
+     * @param enhancerSupport enum containing persistence implementation information, especially enhancer class names.
+     * @param project         the project to search in
+     * @return List of modules containing appropriate enhancers
+     */
+    static List<Module> getDefaultAffectedModules(final EnhancerSupport enhancerSupport, final Project project) {
+        final CompilerManager compilerManager = CompilerManager.getInstance(project);
+        final CompileScope projectCompileScope = compilerManager.createProjectCompileScope(project);
+        final Module[] compileScopeAffectedModules = projectCompileScope.getAffectedModules();
+        final List<Module> affectedModules = new ArrayList<Module>(compileScopeAffectedModules.length);
+
+        //
+        // find enhancer class in module dependencies
+        if (compileScopeAffectedModules.length > 0) {
+            for (final Module affectedModule : compileScopeAffectedModules) {
+                if (isEnhancerInModule(enhancerSupport, affectedModule)) {
+                    affectedModules.add(affectedModule);
+                }
+            }
+        }
+        return affectedModules;
+    }
+
+    /**
+     * Check if a module contains the appropriate enhancer (in its dependencies).
+     *
+     * @param enhancerSupport enum containing persistence implementation information, especially enhancer class names.
+     * @param module          the module to search in
+     * @return true if the module contains an appropriate enhancer
+     */
+    static boolean isEnhancerInModule(final EnhancerSupport enhancerSupport, final Module module) {
+        // query for enhancer class
+        final Query<PsiClass> psiClassQuery = createEnhancerClassQuery(enhancerSupport, module);
+
+        // query returns results? -> enhancer present
+        return psiClassQuery.findFirst() != null;
+    }
+
+    /**
+     * Find virtual files by extension by traversing the directory tree once for all extensions.<br/>
+     * <br/>
+     * The tree is walked on disk (see {@link FileExtensionScanner}), virtual files are only resolved for matching files
+     * (without refreshing, so files unknown to the VFS are skipped as before).
+     *
+     * @param rootDir    the directory to start with
+     * @param extensions the extensions to search for
+     * @return List of virtual files matching any of the file extensions
+     */
+    static List<VirtualFile> findFilesByExtensions(final VirtualFile rootDir,
+                                                   final Collection<String> extensions) {
+
+        final File ioRootDir = VfsUtilCore.virtualToIoFile(rootDir);
+        final List<Path> paths = new ArrayList<Path>(FileExtensionScanner.findFilesByExtensions(ioRootDir.toPath(), extensions));
+        // stable order, the walk is parallel
+        Collections.sort(paths);
+
+        final LocalFileSystem localFileSystem = LocalFileSystem.getInstance();
+        final List<VirtualFile> files = new ArrayList<VirtualFile>(paths.size());
+        for (final Path path : paths) {
+            final VirtualFile file = localFileSystem.findFileByIoFile(path.toFile());
+            if (file != null) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Refresh files in a single non recursive refresh session, synchronous unless called inside a read action
+     * (waiting for the refresh would dead lock then).
+     *
+     * @param files the files to refresh
+     */
+    static void refreshFiles(final Collection<VirtualFile> files) {
+        if (!files.isEmpty()) {
+            final boolean async = ApplicationManager.getApplication().isReadAccessAllowed();
+            final RefreshSession session = RefreshQueue.getInstance().createSession(async, false, null);
+            session.addAllFiles(files);
+            session.launch();
+        }
+    }
+
+    /**
+     * Refresh files on disk in a single non recursive refresh session, see {@link #refreshFiles(Collection)}.<br/>
+     * <br/>
+     * Files not known to the VFS yet are found by refreshing their nearest known parent directory, only the
+     * directory itself is refreshed (not its sub tree).
+     *
+     * @param files the files to refresh
+     */
+    static void refreshIoFiles(final Collection<File> files) {
+        final LocalFileSystem localFileSystem = LocalFileSystem.getInstance();
+        final Set<VirtualFile> virtualFiles = new LinkedHashSet<VirtualFile>();
+        for (final File file : files) {
+            File known = file;
+            VirtualFile virtualFile = localFileSystem.findFileByIoFile(known);
+            while (virtualFile == null && known.getParentFile() != null) {
+                known = known.getParentFile();
+                virtualFile = localFileSystem.findFileByIoFile(known);
+            }
+            if (virtualFile != null) {
+                virtualFiles.add(virtualFile);
+            }
+        }
+        refreshFiles(virtualFiles);
+    }
+
+    /**
+     * Find classes annotated with persistence relevant annotations (depends on {@link org.openjpa.ide.idea.integration.openjpa.EnhancerSupportOpenJpa}).<br/>
+     * <br/>
+     * Uses {@link PersistenceAnnotationIndex}, so the index must be ready ({@link com.intellij.openapi.project.IndexNotReadyException} otherwise).
+     * Searches the module's sources and its output directories, so annotated classes only present as class files
+     * (e.g. compiled from other languages or generated sources) are found as well. A class declared in a source file
+     * is always mapped to its source file, its class file is only used if it has no source file (see
+     * {@link #isClassFile(VirtualFile)}).
+     *
+     * @param enhancerSupport Enhancer integration to search classes for
+     * @param module          Module to search in
+     * @return (binary) names of classes annotated with corresponding annotations and the files declaring them
+     */
+    static Map<String, VirtualFile> findPersistenceAnnotatedClasses(final EnhancerSupport enhancerSupport, final Module module) {
+        final FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+        GlobalSearchScope moduleScope = module.getModuleScope();
+        for (final boolean forTestClasses : new boolean[]{false, true}) {
+            final VirtualFile outputDirectory = CompilerPaths.getModuleOutputDirectory(module, forTestClasses);
+            if (outputDirectory != null) {
+                moduleScope = moduleScope.uniteWith(
+                        GlobalSearchScopes.directoryScope(module.getProject(), outputDirectory, true));
+            }
+        }
+        final Map<String, VirtualFile> annotatedClasses = new LinkedHashMap<String, VirtualFile>();
+
+        final FileBasedIndex.ValueProcessor<List<String>> processor = new FileBasedIndex.ValueProcessor<List<String>>() {
+            @Override
+            public boolean process(final VirtualFile file, final List<String> classNames) {
+                for (final String className : classNames) {
+                    // the index reports sources and class files in no particular order, sources win
+                    final VirtualFile known = annotatedClasses.get(className);
+                    if (known == null || (isClassFile(known) && !isClassFile(file))) {
+                        annotatedClasses.put(className, file);
+                    }
+                }
+                return true;
+            }
+        };
+        for (final String annotationName : enhancerSupport.getAnnotationNames()) {
+            fileBasedIndex.processValues(PersistenceAnnotationIndex.NAME, annotationName, null, processor, moduleScope);
+        }
+
+        return annotatedClasses;
+    }
+
+    /**
+     * @param file a file declaring an annotated class, see {@link #findPersistenceAnnotatedClasses(EnhancerSupport, Module)}
+     * @return true for a class file (the class has no source file in the module)
+     */
+    static boolean isClassFile(final VirtualFile file) {
+        return file.getFileType() == StdFileTypes.CLASS;
+    }
+
+    /**
+     * Find classes annotated with persistence relevant annotations by reading the class files of an output
+     * directory ({@link AnnotatedClassScanner}).<br/>
+     * <br/>
+     * Doesn't need any index (usable in dumb mode) and also finds classes compiled from other languages or
+     * generated sources, but only classes compiled before.
+     *
+     * @param enhancerSupport Enhancer integration to search classes for
+     * @param outputDirectory Output directory to search in
+     * @return (binary) names of classes annotated with corresponding annotations and their class files
+     */
+    static Map<String, VirtualFile> findPersistenceAnnotatedClassFiles(final EnhancerSupport enhancerSupport,
+                                                                       final VirtualFile outputDirectory) {
+        final File ioOutputDirectory = VfsUtilCore.virtualToIoFile(outputDirectory);
+        final Map<String, Path> paths = AnnotatedClassScanner.findAnnotatedClasses(ioOutputDirectory.toPath(),
+                enhancerSupport.getAnnotationNames());
+
+        final LocalFileSystem localFileSystem = LocalFileSystem.getInstance();
+        final Map<String, VirtualFile> classFiles = new LinkedHashMap<String, VirtualFile>();
+        for (final Map.Entry<String, Path> path : paths.entrySet()) {
+            final VirtualFile file = localFileSystem.findFileByIoFile(path.getValue().toFile());
+            if (file != null) {
+                classFiles.put(path.getKey(), file);
+            }
+        }
+        return classFiles;
+    }
+
+    /**
+     * Check if a module's library roots contain {@link EnhancerSupport#getEnhancerLibraryClassName()} (no index
+     * access).
+     *
+     * @param enhancerSupport Enhancer integration to search the library for
+     * @param module          Module to search in
+     * @return true if the enhancer library is in the module's classpath
+     */
+    static boolean isEnhancerLibraryInModule(final EnhancerSupport enhancerSupport, final Module module) {
+        return findEnhancerLibraryClassFile(enhancerSupport, module) != null;
+    }
+
+    /**
+     * Identify the enhancer library version used by a module.<br/>
+     * <br/>
+     * Only inspects the module's library roots (no index access), the result is the content digest of the archive
+     * containing {@link EnhancerSupport#getEnhancerLibraryClassName()} (of that class file if the library is a
+     * directory), so a replaced library is detected even if its name and size did not change.
+     *
+     * @param enhancerSupport  Enhancer integration to search the library for
+     * @param module           Module to search in
+     * @param contentHashCache digests of unchanged archives are reused
+     * @return archive digest or an empty string if the enhancer library is not in the module's classpath
+     */
+    @SuppressWarnings("MagicCharacter")
+    static String getEnhancerLibraryVersion(final EnhancerSupport enhancerSupport,
+                                            final Module module,
+                                            final ContentHashCache contentHashCache) {
+        final VirtualFile classFile = findEnhancerLibraryClassFile(enhancerSupport, module);
+        if (classFile == null) {
+            return "";
+        }
+        final VirtualFile archive = JarFileSystem.getInstance().getVirtualFileForJar(classFile);
+        final VirtualFile versionFile = archive == null ? classFile : archive;
+        try {
+            return new BigInteger(1, contentHashCache.getDigest(VfsUtilCore.virtualToIoFile(versionFile), null))
+                    .toString(16);
+        } catch (IOException ignored) {
+            // unreadable -> fall back to name and size
+            return versionFile.getName() + ':' + versionFile.getLength();
+        }
+    }
+
+    /**
+     * Normalize a class name to its qualified name, so binary names (e.g. 'Outer$Inner', as indexed and read from
+     * class files) and qualified names (e.g. 'Outer.Inner', as configured) of nested classes compare equal.
+     *
+     * @param className binary or qualified class name
+     * @return qualified class name
+     */
+    @SuppressWarnings("MagicCharacter")
+    static String toQualifiedName(final String className) {
+        return className.replace('$', '.');
+    }
+
+    /**
+     * Normalize class names, see {@link #toQualifiedName(String)}.
+     *
+     * @param classNames binary or qualified class names
+     * @return qualified class names
+     */
+    static Set<String> toQualifiedNames(final Collection<String> classNames) {
+        final Set<String> qualifiedNames = new LinkedHashSet<String>(classNames.size());
+        for (final String className : classNames) {
+            qualifiedNames.add(toQualifiedName(className));
+        }
+        return qualifiedNames;
+    }
+
+    /**
+     * Convert a java package name to a path.
+     *
+     * @param packageName the package
+     * @return the path
+     */
+    @SuppressWarnings("MagicCharacter")
+    public static String packageToPath(final String packageName) {
+        return packageName.replace('.', '/');
+    }
+
+    //
+    // Helper methods
+    //
+
+    @Nullable
+    private static VirtualFile findEnhancerLibraryClassFile(final EnhancerSupport enhancerSupport,
+                                                            final Module module) {
+        final String enhancerClassPath = packageToPath(enhancerSupport.getEnhancerLibraryClassName()) + ".class";
+        for (final VirtualFile root : OrderEnumerator.orderEntries(module).librariesOnly().classes().getRoots()) {
+            final VirtualFile classFile = root.findFileByRelativePath(enhancerClassPath);
+            if (classFile != null) {
+                return classFile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create query for enhancer classes.
+     *
+     * @param enhancerSupport Determines which classes to search for
+     * @param module          Module to search in
+     * @return the query
+     */
+    private static Query<PsiClass> createEnhancerClassQuery(final EnhancerSupport enhancerSupport,
+                                                            final Module module) {
+        return AllClassesSearch.search(module.getModuleWithLibrariesScope(), module.getProject(), new Condition<String>() {
+            @SuppressWarnings("ConstantConditions") // inspection going wrong as 'equals' variable changes during loop
+            @Override
+            public boolean value(final String s) {
+                final String[] enhancerClassNames = enhancerSupport.getEnhancerClassNames();
+                boolean equals = false;
+
+                if (s != null) {
+
+                    for (final String enhancerClassName : enhancerClassNames) {
+                        equals = equals || s.equals(enhancerClassName);
+                        if (equals) {
+                            break;
+                        }
+                    }
+                }
+
+                return equals;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.openjpa.ide.idea;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+
+import org.openjpa.ide.core.MetadataParser;
+
+/**
+ * Per project cache of {@link MetadataParser} results.<br/>
+ * <br/>
+ * Results are keyed by file and only returned as long as the file's modification stamp did not change,
+ * so an unchanged metadata file is parsed once per session instead of on every build and settings dialog.
+ * Entries of changed, moved or deleted files are evicted on VFS change events
+ * (register with {@link com.intellij.openapi.vfs.VirtualFileManager#VFS_CHANGES}).
+ */
+class MetadataParserCache implements BulkFileListener {
+
+    private final ConcurrentMap<VirtualFile, ParsedMetadata> parsed = new ConcurrentHashMap<VirtualFile, ParsedMetadata>();
+
+    /**
+     * Get qualified class names from metadata file, see {@link MetadataParser#parseQualifiedClassNames(java.io.InputStream)}.
+     *
+     * @param file the metadata file.
+     * @return Unique (unmodifiable) collection of class names configured in metadata file
+     * @throws IOException        .
+     * @throws XMLStreamException .
+     */
+    Set<String> parseQualifiedClassNames(final VirtualFile file) throws IOException, XMLStreamException {
+        final long modificationStamp = file.getModificationStamp();
+        final ParsedMetadata cached = this.parsed.get(file);
+        if (cached != null && cached.modificationStamp == modificationStamp) {
+            return cached.classNames;
+        }
+
+        final Set<String> classNames;
+        final InputStream in = file.getInputStream();
+        try {
+            classNames = Collections.unmodifiableSet(MetadataParser.parseQualifiedClassNames(in));
+        } finally {
+            in.close();
+        }
+        this.parsed.put(file, new ParsedMetadata(modificationStamp, classNames));
+        return classNames;
+    }
+
+    /**
+     * Remove all cached results.
+     */
+    void clear() {
+        this.parsed.clear();
+    }
+
+    //
+    // BulkFileListener interface implementation
+    //
+
+    @Override
+    public void before(final List<? extends VFileEvent> events) {
+        // evicted after the change
+    }
+
+    @Override
+    public void after(final List<? extends VFileEvent> events) {
+        if (this.parsed.isEmpty()) {
+            return;
+        }
+        for (final VFileEvent event : events) {
+            final VirtualFile file = event.getFile();
+            if (file == null) {
+                // file creation, nothing cached yet
+                continue;
+            }
+            if (file.isDirectory()) {
+                this.evictDescendants(file);
+            } else {
+                this.parsed.remove(file);
+            }
+        }
+    }
+
+    //
+    // Helper methods
+    //
+
+    private void evictDescendants(final VirtualFile directory) {
+        final Iterator<VirtualFile> iterator = this.parsed.keySet().iterator();
+        while (iterator.hasNext()) {
+            final VirtualFile file = iterator.next();
+            if (!file.isValid() || VfsUtilCore.isAncestor(directory, file, true)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    //
+    // Helper classes
+    //
+
+    private static class ParsedMetadata {
+
+        private final long modificationStamp;
+
+        private final Set<String> classNames;
+
+        private ParsedMetadata(final long modificationStamp, final Set<String> classNames) {
+            this.modificationStamp = modificationStamp;
+            this.classNames = classNames;
+        }
+
+    }
+
+}
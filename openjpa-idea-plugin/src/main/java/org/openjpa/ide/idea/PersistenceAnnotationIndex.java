@@ -0,0 +1,196 @@
+package org.openjpa.ide.idea;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.fileTypes.StdFileTypes;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjpa.ide.core.util.ClassFileInfo;
+import org.openjpa.ide.core.util.ClassFileScanner;
+import org.openjpa.ide.core.util.SourceAnnotationScanner;
+
+/**
+ * Persistent index mapping persistence annotations (see {@link PersistenceApi#getAnnotationClassNames()})
+ * to the (binary) names of the classes annotated with them.<br/>
+ * <br/>
+ * Java sources are scanned textually ({@link SourceAnnotationScanner}), class files by reading their
+ * class level annotations ({@link ClassFileScanner}), so indexing does not depend on PSI.
+ * Looking up a module's persistent classes is one query per annotation, scaling with the number of results.
+ */
+public class PersistenceAnnotationIndex extends FileBasedIndexExtension<String, List<String>> {
+
+    public static final ID<String, List<String>> NAME = ID.create("openjpa.PersistenceAnnotationIndex");
+
+    private static final int VERSION = 1;
+
+    private static final Set<String> ANNOTATION_NAMES = createAnnotationNames();
+
+    private final KeyDescriptor<String> keyDescriptor = new EnumeratorStringDescriptor();
+
+    private final DataExternalizer<List<String>> valueExternalizer = new ClassNamesExternalizer();
+
+    private final DataIndexer<String, List<String>, FileContent> indexer = new Indexer();
+
+    private final FileBasedIndex.InputFilter inputFilter = new FileBasedIndex.InputFilter() {
+        @Override
+        public boolean acceptInput(final VirtualFile file) {
+            final FileType fileType = file.getFileType();
+            return fileType == StdFileTypes.JAVA || fileType == StdFileTypes.CLASS;
+        }
+    };
+
+    //
+    // FileBasedIndexExtension implementation
+    //
+
+    @NotNull
+    @Override
+    public ID<String, List<String>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<String>, FileContent> getIndexer() {
+        return this.indexer;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return this.keyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<String>> getValueExternalizer() {
+        return this.valueExternalizer;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return this.inputFilter;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    //
+    // Helper methods
+    //
+
+    private static Set<String> createAnnotationNames() {
+        final Set<String> annotationNames = new LinkedHashSet<String>();
+        for (final PersistenceApi persistenceApi : PersistenceApi.values()) {
+            annotationNames.addAll(Arrays.asList(persistenceApi.getAnnotationClassNames()));
+        }
+        return Collections.unmodifiableSet(annotationNames);
+    }
+
+    /**
+     * @return true if the source mentions the simple name of any indexed annotation (cheap pre-check)
+     */
+    @SuppressWarnings("MagicCharacter")
+    private static boolean mentionsAnnotation(final String source) {
+        for (final String annotationName : ANNOTATION_NAMES) {
+            if (source.contains(annotationName.substring(annotationName.lastIndexOf('.') + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //
+    // Helper classes
+    //
+
+    private static class Indexer implements DataIndexer<String, List<String>, FileContent> {
+
+        @NotNull
+        @Override
+        public Map<String, List<String>> map(final FileContent inputData) {
+            if (inputData.getFileType() == StdFileTypes.CLASS) {
+                return mapClassFile(inputData.getContent());
+            }
+            final String source = inputData.getContentAsText().toString();
+            if (!mentionsAnnotation(source)) {
+                return Collections.emptyMap();
+            }
+            return SourceAnnotationScanner.findAnnotatedClasses(source, ANNOTATION_NAMES);
+        }
+
+        private static Map<String, List<String>> mapClassFile(final byte[] content) {
+            final ClassFileInfo classFileInfo;
+            try {
+                classFileInfo = ClassFileScanner.scan(new ByteArrayInputStream(content));
+            } catch (IOException ignored) {
+                // invalid or unsupported class file
+                return Collections.emptyMap();
+            }
+
+            Map<String, List<String>> found = Collections.emptyMap();
+            for (final String annotation : classFileInfo.getAnnotations()) {
+                if (ANNOTATION_NAMES.contains(annotation)) {
+                    if (found.isEmpty()) {
+                        found = new HashMap<String, List<String>>(2);
+                    }
+                    found.put(annotation, Collections.singletonList(classFileInfo.getName()));
+                }
+            }
+            return found;
+        }
+
+    }
+
+    private static class ClassNamesExternalizer implements DataExternalizer<List<String>> {
+
+        @Override
+        public void save(final DataOutput out, final List<String> value) throws IOException {
+            out.writeInt(value.size());
+            for (final String className : value) {
+                out.writeUTF(className);
+            }
+        }
+
+        @Override
+        public List<String> read(final DataInput in) throws IOException {
+            final int size = in.readInt();
+            final List<String> classNames = new ArrayList<String>(size);
+            for (int i = 0; i < size; ++i) {
+                classNames.add(in.readUTF());
+            }
+            return classNames;
+        }
+
+    }
+
+}
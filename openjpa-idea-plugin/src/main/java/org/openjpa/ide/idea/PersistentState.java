@@ -27,6 +27,10 @@ public class PersistentState { // has to be public (for IDEA configuration acces
     private boolean addDefaultConstructor = true;
     private boolean enforcePropertyRestrictions = true;
     private boolean tmpClassLoader = true;
+    private int enhancerWorkerCount = 1;
+    private int enhancerBatchSize = State.DEFAULT_ENHANCER_BATCH_SIZE;
+    private boolean outOfProcessEnhancer = false;
+    private String enhancerVmOptions = "";
 
     private Collection<String> enabledModules = new ArrayList<String>();
 
@@ -131,6 +135,38 @@ public class PersistentState { // has to be public (for IDEA configuration acces
         this.tmpClassLoader = tmpClassLoader;
     }
 
+    public int getEnhancerWorkerCount() {
+        return this.enhancerWorkerCount;
+    }
+
+    public void setEnhancerWorkerCount(final int enhancerWorkerCount) {
+        this.enhancerWorkerCount = enhancerWorkerCount;
+    }
+
+    public int getEnhancerBatchSize() {
+        return this.enhancerBatchSize;
+    }
+
+    public void setEnhancerBatchSize(final int enhancerBatchSize) {
+        this.enhancerBatchSize = enhancerBatchSize;
+    }
+
+    public boolean isOutOfProcessEnhancer() {
+        return this.outOfProcessEnhancer;
+    }
+
+    public void setOutOfProcessEnhancer(final boolean outOfProcessEnhancer) {
+        this.outOfProcessEnhancer = outOfProcessEnhancer;
+    }
+
+    public String getEnhancerVmOptions() {
+        return this.enhancerVmOptions;
+    }
+
+    public void setEnhancerVmOptions(final String enhancerVmOptions) {
+        this.enhancerVmOptions = enhancerVmOptions;
+    }
+
     /**
      * Copy method used to update persistent state with plugin's internal state.
      *
@@ -152,6 +188,10 @@ public class PersistentState { // has to be public (for IDEA configuration acces
         this.addDefaultConstructor = state.isAddDefaultConstructor();
         this.enforcePropertyRestrictions = state.isEnforcePropertyRestrictions();
         this.tmpClassLoader = state.isTmpClassLoader();
+        this.enhancerWorkerCount = state.getEnhancerWorkerCount();
+        this.enhancerBatchSize = state.getEnhancerBatchSize();
+        this.outOfProcessEnhancer = state.isOutOfProcessEnhancer();
+        this.enhancerVmOptions = state.getEnhancerVmOptions();
 
         if (this.enabledModules == null) {
             this.enabledModules = new ArrayList<String>();
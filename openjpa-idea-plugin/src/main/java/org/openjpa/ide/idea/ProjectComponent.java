@@ -0,0 +1,668 @@
+package org.openjpa.ide.idea;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.Icon;
+import javax.swing.JComponent;
+import javax.swing.JOptionPane;
+
+import com.intellij.ProjectTopics;
+import com.intellij.compiler.CompilerConfiguration;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.compiler.CompilerManager;
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StorageScheme;
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootAdapter;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.util.messages.MessageBusConnection;
+
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.openjpa.ide.core.ClassLoaderPool;
+import org.openjpa.ide.idea.config.AffectedModule;
+import org.openjpa.ide.idea.config.ConfigForm;
+import org.openjpa.ide.idea.config.GuiState;
+import org.openjpa.ide.idea.config.MetaDataOrClassFile;
+import org.openjpa.ide.idea.integration.ClassLoaderFactory;
+import org.openjpa.ide.idea.integration.EnhancerProxyCache;
+import org.openjpa.ide.idea.integration.EnhancerSupport;
+import org.openjpa.ide.idea.integration.openjpa.EnhancerDaemonClient;
+
+/**
+ * Component registering the enhancer computable and handling the plugin's state
+ * (Interacting with configuration GUI by converting between the different state models)
+ */
+@com.intellij.openapi.components.State(name = "OpenJpaConfiguration",
+        storages = {@Storage(id = "default", file = "$PROJECT_FILE$"),
+                @Storage(id = "dir", file = "$PROJECT_CONFIG_DIR$/openjpa-plugin.xml", scheme = StorageScheme.DIRECTORY_BASED)})
+public class ProjectComponent extends AbstractProjectComponent implements Configurable, PersistentStateComponent<PersistentState> {
+
+    public static final ExtensionPointName<EnhancerSupport> EP_NAME = ExtensionPointName.create(EnhancerSupport.EXTENSION_POINT_NAME);
+
+    private static final String RESOURCE_PATTERN_PREFIX = "?*.";
+
+    private static final Pattern REPLACE_PATTERN_WILDCARD_ALL = Pattern.compile("\\*");
+
+    private static final Pattern REPLACE_PATTERN_WILDCARD_DOT = Pattern.compile("\\.");
+
+    private static final Pattern PATTERN_EXTENSION_SEPARATOR = Pattern.compile(";");
+
+    private static final String CATALOG_FILE = "entity-catalog.bin";
+
+    //
+    // Members
+    //
+
+    /**
+     * Current project
+     */
+    private final Project project;
+
+    /**
+     * Persistent configuration
+     */
+    private final State state = new State();
+
+    /**
+     * Enhancer instance (created on first build run)
+     */
+    private Computable dNEComputable = null;
+
+    /**
+     * Warm enhancer proxies, disposed on project close
+     */
+    private final EnhancerProxyCache proxyCache = new EnhancerProxyCache();
+
+    /**
+     * Loaders for plugin and library classes, shared by the project's modules with identical dependencies
+     * (see {@link ClassLoaderFactory}), invalidated on module root changes of this project only
+     */
+    private final ClassLoaderPool sharedClassLoaders = new ClassLoaderPool();
+
+    /**
+     * Out-of-process enhancer (started on first use), stopped on project close
+     */
+    private final EnhancerDaemonClient daemonClient = new EnhancerDaemonClient();
+
+    /**
+     * Parsed metadata files, evicted on VFS changes
+     */
+    private final MetadataParserCache metadataParserCache = new MetadataParserCache();
+
+    /**
+     * Discovered entity model, cleared on root changes
+     */
+    private final EntityModelCache entityModelCache;
+
+    /**
+     * Content digests of enhanced and metadata files, cleared on root changes (persisted ones are kept)
+     */
+    private final ContentHashCache contentHashCache;
+
+    /**
+     * Recompiles enhanced classes depending on changed persistent classes, registered while the project is open
+     */
+    private final DependentClassRecompiler dependentClassRecompiler;
+
+    /**
+     * Project message bus connection (connected while the project is open)
+     */
+    private MessageBusConnection messageBusConnection = null;
+
+    private ConfigForm configGuiForm = null;
+
+    /**
+     * Loads the configuration GUI's modules and files (running in background while displayed)
+     */
+    private GuiModelLoader guiModelLoader = null;
+
+    //
+    // Constructor
+    //
+
+    public ProjectComponent(final Project p) {
+        super(p);
+        this.project = p;
+        this.entityModelCache = new EntityModelCache(p);
+        this.dependentClassRecompiler = new DependentClassRecompiler(p);
+        this.contentHashCache = new ContentHashCache(new File(new File(new File(PathManager.getSystemPath(),
+                Computable.REPORT_DIRECTORY), p.getLocationHash()), CATALOG_FILE));
+        final EnhancerSupportRegistry enhancerSupportRegistry = this.state.getEnhancerSupportRegistry();
+        enhancerSupportRegistry.registerEnhancerSupport(EnhancerSupportRegistryDefault.DEFAULT_ENHANCER_SUPPORT);
+        final EnhancerSupport[] enhancerSupports =
+                (EnhancerSupport[]) Extensions.getExtensions(EnhancerSupport.EXTENSION_POINT_NAME);
+
+        for (final EnhancerSupport enhancerSupport : enhancerSupports) {
+            enhancerSupportRegistry.registerEnhancerSupport(enhancerSupport);
+        }
+    }
+
+    //
+    // ProjectComponent Interface implementation
+    //
+
+    @Override
+    public void projectOpened() {
+        super.projectOpened();
+        this.dNEComputable = new Computable(this.project, ProjectComponent.this.state, this.proxyCache,
+                this.daemonClient, this.metadataParserCache, this.entityModelCache, this.contentHashCache,
+                this.dependentClassRecompiler);
+        // evict parsed metadata files on changes
+        this.messageBusConnection = this.project.getMessageBus().connect();
+        this.messageBusConnection.subscribe(VirtualFileManager.VFS_CHANGES, this.metadataParserCache);
+        // outdate enhancer class loaders built from outdated module dependencies (a running build keeps using them)
+        this.messageBusConnection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter() {
+            @Override
+            public void rootsChanged(final ModuleRootEvent event) {
+                ProjectComponent.this.sharedClassLoaders.invalidate();
+                ProjectComponent.this.proxyCache.invalidate();
+                ProjectComponent.this.entityModelCache.clear();
+                ProjectComponent.this.contentHashCache.clear();
+            }
+        });
+        // run enhancer after compilation
+        final CompilerManager compilerManager = CompilerManager.getInstance(this.project);
+        compilerManager.addCompiler(this.dNEComputable);
+        compilerManager.addCompilationStatusListener(this.dependentClassRecompiler);
+    }
+
+    @Override
+    public void projectClosed() {
+        if (this.dNEComputable != null) {
+            CompilerManager.getInstance(this.project).removeCompiler(this.dNEComputable);
+            CompilerManager.getInstance(this.project).removeCompilationStatusListener(this.dependentClassRecompiler);
+        }
+        if (this.messageBusConnection != null) {
+            this.messageBusConnection.disconnect();
+            this.messageBusConnection = null;
+        }
+        this.metadataParserCache.clear();
+        this.entityModelCache.clear();
+        try {
+            this.contentHashCache.save(null);
+        } catch (IOException ignored) {
+            // digests changed since the last build are computed again
+        }
+        this.contentHashCache.clear();
+        this.proxyCache.dispose();
+        // loaders of disposed proxies are closed on release
+        this.sharedClassLoaders.invalidate();
+        this.daemonClient.dispose();
+        super.projectClosed();
+    }
+
+    @SuppressWarnings("RefusedBequest")
+    @NonNls
+    @NotNull
+    @Override
+    public String getComponentName() {
+        return "OpenJpa Enhancer";
+    }
+
+    //
+    // ToggleEnableAction methods
+    //
+
+    public void setEnhancerEnabled(final boolean enabled) {
+        this.state.setEnhancerEnabled(enabled);
+    }
+
+    //
+    // ClassLoaderFactory methods
+    //
+
+    /**
+     * @return pool of the shared enhancer parent ClassLoaders of this project
+     */
+    public ClassLoaderPool getSharedClassLoaders() {
+        return this.sharedClassLoaders;
+    }
+
+    //
+    // PersistentStateComponent Interface implementation
+    //
+
+    @Override
+    public PersistentState getState() {
+        final PersistentState persistentState = new PersistentState();
+        return persistentState.copyFrom(this.state);
+    }
+
+    @SuppressWarnings("FeatureEnvy")
+    @Override
+    public void loadState(final PersistentState state) {
+        this.state.copyFrom(state);
+
+        //
+        // Validate configuration
+
+        final EnhancerSupport stateEnhancerSupport = this.state.getEnhancerSupport();
+        final String stateEnhancerSupportId = stateEnhancerSupport.getId();
+        final String persistentStateEnhancerSupportId = state.getEnhancerSupport();
+
+        if (!stateEnhancerSupportId.equals(persistentStateEnhancerSupportId)) {
+            JOptionPane.showMessageDialog(null, "Settings Error: Reverted OpenJpa enhancer support from "
+                    + persistentStateEnhancerSupportId
+                    + " to " + stateEnhancerSupportId
+                    + ".\nPlease reset plugin configuration.");
+        }
+        final PersistenceApi api = this.state.getApi();
+        final String stateApi = api.name();
+        final String persistentStateApi = state.getApi();
+        if (!stateApi.equals(persistentStateApi)) {
+            JOptionPane.showMessageDialog(null, "Settings Error: Reverted OpenJpa enhancer api from "
+                    + persistentStateApi
+                    + " to " + stateApi
+                    + ".\nPlease reset plugin configuration.");
+        }
+    }
+
+    //
+    // Configurable interface implementation
+    //
+
+    @Nls
+    @Override
+    public String getDisplayName() {
+        return "OpenJpa Enhancer";
+    }
+
+    @Override
+    public String getHelpTopic() {
+        return null;
+    }
+
+    @Override
+    public JComponent createComponent() {
+        if (this.configGuiForm == null) {
+            this.configGuiForm = new ConfigForm();
+        }
+        return this.configGuiForm.getRootComponent();
+    }
+
+    @Override
+    public boolean isModified() {
+        return this.configGuiForm.isModified();
+    }
+
+    @SuppressWarnings("FeatureEnvy")
+    @Override
+    public void apply() throws ConfigurationException {
+        final GuiState guiState = new GuiState(this.state.getEnhancerSupportRegistry());
+        this.configGuiForm.getData(guiState);
+        this.setGuiState(guiState);
+
+        //
+        // update compiler resource patterns
+        if (this.state.isAddToCompilerResourcePatterns()) {
+            final Collection<String> metadataExtensions = this.state.getMetaDataExtensions();
+            if (!metadataExtensions.isEmpty()) {
+                final CompilerConfiguration cConfig = CompilerConfiguration.getInstance(this.project);
+                for (final String metadataExtension : metadataExtensions) {
+                    if (!cConfig.isResourceFile("test." + metadataExtension)) {
+                        cConfig.addResourceFilePattern(RESOURCE_PATTERN_PREFIX + metadataExtension);
+                    }
+                }
+            }
+        }
+
+        this.reset();
+    }
+
+    @Override
+    public void reset() {
+        // display settings immediately, modules and files are searched in background
+        this.cancelGuiModelLoading();
+        this.configGuiForm.setData(this.getGuiState());
+        this.guiModelLoader = new GuiModelLoader(this.configGuiForm);
+        ProgressManager.getInstance().run(this.guiModelLoader);
+    }
+
+    @Override
+    public void disposeUIResources() {
+        this.cancelGuiModelLoading();
+        this.configGuiForm = null;
+    }
+
+    //
+    // Gui interface
+    //
+
+    @SuppressWarnings("FeatureEnvy")
+    private GuiState getGuiState() {
+        final boolean enhancerEnabled = this.state.isEnhancerEnabled();
+        final String metaDataExtension = getMetaDataExtensionsString(this.state.getMetaDataExtensions());
+        final boolean addToCompilerResourcePatterns = this.state.isAddToCompilerResourcePatterns();
+        final boolean includeTestClasses = this.state.isIncludeTestClasses();
+        final boolean addDefaultConstructor = this.state.isAddDefaultConstructor();
+        final boolean enforcePropertyRestrictions = this.state.isEnforcePropertyRestrictions();
+        final boolean tmpClassLoader = this.state.isTmpClassLoader();
+        final int enhancerWorkerCount = this.state.getEnhancerWorkerCount();
+        final int enhancerBatchSize = this.state.getEnhancerBatchSize();
+        final boolean outOfProcessEnhancer = this.state.isOutOfProcessEnhancer();
+        final String enhancerVmOptions = this.state.getEnhancerVmOptions();
+        final boolean enhancerInitialized = this.dNEComputable != null;
+        final PersistenceApi api = this.state.getApi();
+        final EnhancerSupport enhancerSupport = this.state.getEnhancerSupport();
+        // modules and files are loaded in background, see GuiModelLoader
+        final GuiState guiState = new GuiState(true,
+                enhancerEnabled,
+                metaDataExtension,
+                addToCompilerResourcePatterns,
+                includeTestClasses,
+                addDefaultConstructor,
+                enforcePropertyRestrictions,
+                tmpClassLoader,
+                enhancerWorkerCount,
+                enhancerBatchSize,
+                outOfProcessEnhancer,
+                enhancerVmOptions,
+                enhancerInitialized,
+                api,
+                this.state.getEnhancerSupportRegistry(),
+                enhancerSupport,
+                new ArrayList<AffectedModule>(0),
+                new ArrayList<MetaDataOrClassFile>(0),
+                new ArrayList<MetaDataOrClassFile>(0));
+        guiState.setAffectedModulesLoaded(false);
+        guiState.setFilesLoaded(false);
+        return guiState;
+    }
+
+    private void cancelGuiModelLoading() {
+        if (this.guiModelLoader != null) {
+            this.guiModelLoader.cancel();
+            this.guiModelLoader = null;
+        }
+    }
+
+    private void applyFilter(List<MetaDataOrClassFile> annotatedClassFiles, Set<String> enabledFiles) {
+        final Set<String> qualifiedNames = IdeaProjectUtils.toQualifiedNames(enabledFiles);
+        for (MetaDataOrClassFile file : annotatedClassFiles) {
+            if (qualifiedNames.contains(IdeaProjectUtils.toQualifiedName(file.getClassName()))) {
+                file.setEnabled(true);
+            } else {
+                file.setEnabled(false);
+            }
+        }
+    }
+
+    @SuppressWarnings("FeatureEnvy")
+    private void setGuiState(final GuiState guiState) {
+        final boolean enhancerEnabled = guiState.isEnhancerEnabled();
+        final LinkedHashSet<String> metaDataExtensions = getMetaDataExtensionsSet(guiState.getMetaDataExtensions());
+        final boolean addToCompilerResourcePatterns = guiState.isAddToCompilerResourcePatterns();
+        final boolean includeTestClasses = guiState.isIncludeTestClasses();
+        final boolean addDefaultConstructor = guiState.isAddDefaultConstructor();
+        final boolean enforcePropertyRestrictions = guiState.isEnforcePropertyRestrictions();
+        final boolean tmpClassLoader = guiState.isTmpClassLoader();
+        final int enhancerWorkerCount = guiState.getEnhancerWorkerCount();
+        final int enhancerBatchSize = guiState.getEnhancerBatchSize();
+        final boolean outOfProcessEnhancer = guiState.isOutOfProcessEnhancer();
+        final String enhancerVmOptions = guiState.getEnhancerVmOptions();
+        final PersistenceApi api = guiState.getApi();
+        final EnhancerSupport enhancerSupport = guiState.getEnhancerSupport();
+        // keep the configured modules and files if not displayed completely (still loading in background)
+        final Set<String> enabledFiles = guiState.isFilesLoaded()
+                ? getEnabledFilesFromGuiModel(guiState.getMetadataFiles()) : this.state.getEnabledFiles();
+        final Set<String> enabledModules = guiState.isAffectedModulesLoaded()
+                ? getEnabledModulesFromGuiModel(guiState.getAffectedModules()) : this.state.getEnabledModules();
+        final State updateState =
+                new State(enhancerEnabled,
+                        metaDataExtensions,
+                        addToCompilerResourcePatterns,
+                        includeTestClasses,
+                        addDefaultConstructor,
+                        enforcePropertyRestrictions,
+                        tmpClassLoader,
+                        enhancerWorkerCount,
+                        enhancerBatchSize,
+                        outOfProcessEnhancer,
+                        enhancerVmOptions,
+                        enabledModules,
+                        enabledFiles,
+                        api,
+                        enhancerSupport);
+        this.state.copyFrom(updateState);
+    }
+
+    private Set<String> getEnabledFilesFromGuiModel(List<MetaDataOrClassFile> metadataFiles) {
+        final Set<String> enableFiles = new HashSet<String>();
+        if (metadataFiles != null) {
+            for (final MetaDataOrClassFile file : metadataFiles) {
+                if (file.isEnabled()) {
+                    enableFiles.add(file.getClassName());
+                }
+            }
+        }
+        return enableFiles;
+    }
+
+    //
+    // Gui model helper methods
+    //
+
+    private static Set<String> getEnabledModulesFromGuiModel(final Iterable<AffectedModule> affectedModules) {
+        final Set<String> enabledModules = new HashSet<String>();
+        if (affectedModules != null) {
+            for (final AffectedModule affectedModule : affectedModules) {
+                if (affectedModule.isEnabled()) {
+                    enabledModules.add(affectedModule.getName());
+                }
+            }
+        }
+        return enabledModules;
+    }
+
+    @SuppressWarnings("FeatureEnvy")
+    private static List<MetaDataOrClassFile> createFilesGuiModel(final Module module,
+                                                                 final List<VirtualMetadataFile> metaDataOrAnnotatedClassFiles) {
+
+        final List<MetaDataOrClassFile> metaDataOrClassFiles = new ArrayList<MetaDataOrClassFile>();
+        for (final VirtualMetadataFile vf : metaDataOrAnnotatedClassFiles) {
+            for (final String mfClassName : vf.getClassNames()) {
+                metaDataOrClassFiles.add(new MetaDataOrClassFile(module.getName(),
+                        vf.getDisplayFilename(),
+                        vf.getDisplayPath(),
+                        mfClassName, true));
+            }
+        }
+        return metaDataOrClassFiles;
+    }
+
+    private static String getMetaDataExtensionsString(final Collection<String> extensions) {
+        final StringBuilder sb = new StringBuilder();
+        int count = 0;
+        for (final String extension : extensions) {
+            sb.append(extension);
+            ++count;
+            if (count < extensions.size()) {
+                sb.append("; ");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static LinkedHashSet<String> getMetaDataExtensionsSet(final String extensions) {
+        final LinkedHashSet<String> retExtensions = new LinkedHashSet<String>();
+        if (extensions != null && !extensions.isEmpty()) {
+            final Matcher replacePatternWildCardAll = REPLACE_PATTERN_WILDCARD_ALL.matcher(extensions);
+            final Matcher replacePatternWildCardDot = REPLACE_PATTERN_WILDCARD_DOT.matcher(replacePatternWildCardAll.replaceAll(""));
+            final String cleanedExtensions = replacePatternWildCardDot.replaceAll("");
+            final String[] rawExtensions = PATTERN_EXTENSION_SEPARATOR.split(cleanedExtensions);
+            for (final String rawExtension : rawExtensions) {
+                retExtensions.add(rawExtension.trim());
+            }
+        }
+        return retExtensions;
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Loads the configuration GUI's modules and files module by module and appends them to the displayed form,
+     * so the form is displayed without waiting for the (index based) searches.
+     */
+    private class GuiModelLoader extends Task.Backgroundable {
+
+        private final ConfigForm form;
+
+        /**
+         * Indicator of the running task, null until started
+         */
+        private volatile ProgressIndicator indicator = null;
+
+        private volatile boolean cancelled = false;
+
+        GuiModelLoader(final ConfigForm form) {
+            super(ProjectComponent.this.project, "Loading OpenJpa enhancer settings", true);
+            this.form = form;
+        }
+
+        /**
+         * Cancel loading, also if not started yet.
+         */
+        void cancel() {
+            this.cancelled = true;
+            final ProgressIndicator indicator = this.indicator;
+            if (indicator != null) {
+                indicator.cancel();
+            }
+        }
+
+        @SuppressWarnings("FeatureEnvy")
+        @Override
+        public void run(@NotNull final ProgressIndicator indicator) {
+            this.indicator = indicator;
+            if (this.cancelled) {
+                // cancelled before started
+                indicator.cancel();
+            }
+            final Project project = ProjectComponent.this.project;
+            final State state = ProjectComponent.this.state;
+            final Application application = ApplicationManager.getApplication();
+            try {
+                final Module[] modules = application.runReadAction(new com.intellij.openapi.util.Computable<Module[]>() {
+                    @Override
+                    public Module[] compute() {
+                        return CompilerManager.getInstance(project).createProjectCompileScope(project).getAffectedModules();
+                    }
+                });
+
+                //
+                // modules containing the enhancer
+
+                final EnhancerSupport enhancerSupport = state.getEnhancerSupport();
+                final Set<String> enabledModules = state.getEnabledModules();
+                for (int i = 0; i < modules.length; ++i) {
+                    final Module module = modules[i];
+                    indicator.checkCanceled();
+                    indicator.setText2(module.getName());
+                    indicator.setFraction((double) i / (modules.length * 2));
+                    final boolean enhancerInModule = application.runReadAction(new com.intellij.openapi.util.Computable<Boolean>() {
+                        @Override
+                        public Boolean compute() {
+                            return ProjectComponent.this.entityModelCache.isEnhancerInModule(enhancerSupport, module);
+                        }
+                    });
+                    if (enhancerInModule) {
+                        final AffectedModule affectedModule =
+                                new AffectedModule(enabledModules.contains(module.getName()), module.getName());
+                        this.display(indicator, new Runnable() {
+                            @Override
+                            public void run() {
+                                GuiModelLoader.this.form.addAffectedModule(affectedModule);
+                            }
+                        });
+                    }
+                }
+
+                //
+                // metadata and annotated class files of enabled modules (only known after the first build)
+
+                final Computable computable = ProjectComponent.this.dNEComputable;
+                final Set<String> enabledFiles = state.getEnabledFiles();
+                for (int i = 0; i < modules.length; ++i) {
+                    final Module module = modules[i];
+                    if (computable != null && enabledModules.contains(module.getName())) {
+                        indicator.checkCanceled();
+                        indicator.setText2(module.getName());
+                        indicator.setFraction((double) (modules.length + i) / (modules.length * 2));
+                        final List<MetaDataOrClassFile> metadataFiles =
+                                createFilesGuiModel(module, computable.getMetadataFiles(module));
+                        final List<MetaDataOrClassFile> annotatedClassFiles =
+                                createFilesGuiModel(module, computable.getAnnotatedClassFiles(module));
+                        if (!enabledFiles.isEmpty()) {
+                            applyFilter(annotatedClassFiles, enabledFiles);
+                        }
+                        this.display(indicator, new Runnable() {
+                            @Override
+                            public void run() {
+                                GuiModelLoader.this.form.addFiles(metadataFiles, annotatedClassFiles);
+                            }
+                        });
+                    }
+                }
+
+                this.display(indicator, new Runnable() {
+                    @Override
+                    public void run() {
+                        GuiModelLoader.this.form.setLoaded(true, true);
+                    }
+                });
+            } catch (IndexNotReadyException ignored) {
+                this.display(indicator, new Runnable() {
+                    @Override
+                    public void run() {
+                        GuiModelLoader.this.form.setIndexNotReady();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Update the form in the event dispatch thread, unless loading was cancelled or the form disposed meanwhile.
+         */
+        private void display(final ProgressIndicator indicator, final Runnable update) {
+            // the settings dialog is modal
+            ApplicationManager.getApplication().invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (!indicator.isCanceled() && ProjectComponent.this.configGuiForm == GuiModelLoader.this.form) {
+                        update.run();
+                    }
+                }
+            }, ModalityState.any());
+        }
+
+    }
+
+}
@@ -10,6 +10,10 @@ import org.openjpa.ide.idea.integration.EnhancerSupport;
 
 public class State {
 
+    /**
+     * Classes per enhancer run by default
+     */
+    public static final int DEFAULT_ENHANCER_BATCH_SIZE = 100;
 
     private boolean enhancerEnabled = true;
 
@@ -28,6 +32,27 @@ public class State {
 
     private boolean tmpClassLoader = true;
 
+    /**
+     * Number of modules enhanced at the same time (1 = sequential enhancement)
+     */
+    private int enhancerWorkerCount = 1;
+
+    /**
+     * Number of classes enhanced per enhancer run, failing batches are split to isolate the failing classes
+     * (0 = all classes of a module in one batch)
+     */
+    private int enhancerBatchSize = DEFAULT_ENHANCER_BATCH_SIZE;
+
+    /**
+     * Run the enhancer in a separate, long running process (if supported by the enhancer integration)
+     */
+    private boolean outOfProcessEnhancer = false;
+
+    /**
+     * VM options of the separate enhancer process
+     */
+    private String enhancerVmOptions = "";
+
     private Set<String> enabledModules = new HashSet<String>();
 
     private Set<String> enabledFiles = new HashSet<String>();
@@ -48,6 +73,10 @@ public class State {
                  final boolean addDefaultConstructor,
                  final boolean enforcePropertyRestrictions,
                  final boolean tmpClassLoader,
+                 final int enhancerWorkerCount,
+                 final int enhancerBatchSize,
+                 final boolean outOfProcessEnhancer,
+                 final String enhancerVmOptions,
                  final Set<String> enabledModules,
                  final Set<String> enabledFiles,
                  final PersistenceApi api,
@@ -59,6 +88,10 @@ public class State {
         this.addDefaultConstructor = addDefaultConstructor;
         this.enforcePropertyRestrictions = enforcePropertyRestrictions;
         this.tmpClassLoader = tmpClassLoader;
+        this.setEnhancerWorkerCount(enhancerWorkerCount);
+        this.setEnhancerBatchSize(enhancerBatchSize);
+        this.outOfProcessEnhancer = outOfProcessEnhancer;
+        this.setEnhancerVmOptions(enhancerVmOptions);
         this.enabledModules = new LinkedHashSet<String>(enabledModules);
         this.enabledFiles = new LinkedHashSet<String>(enabledFiles);
         this.api = api;
@@ -126,6 +159,38 @@ public class State {
         this.tmpClassLoader = tmpClassLoader;
     }
 
+    public int getEnhancerWorkerCount() {
+        return this.enhancerWorkerCount;
+    }
+
+    public void setEnhancerWorkerCount(final int enhancerWorkerCount) {
+        this.enhancerWorkerCount = Math.max(1, enhancerWorkerCount);
+    }
+
+    public int getEnhancerBatchSize() {
+        return this.enhancerBatchSize;
+    }
+
+    public void setEnhancerBatchSize(final int enhancerBatchSize) {
+        this.enhancerBatchSize = Math.max(0, enhancerBatchSize);
+    }
+
+    public boolean isOutOfProcessEnhancer() {
+        return this.outOfProcessEnhancer;
+    }
+
+    public void setOutOfProcessEnhancer(final boolean outOfProcessEnhancer) {
+        this.outOfProcessEnhancer = outOfProcessEnhancer;
+    }
+
+    public String getEnhancerVmOptions() {
+        return this.enhancerVmOptions;
+    }
+
+    public void setEnhancerVmOptions(final String enhancerVmOptions) {
+        this.enhancerVmOptions = enhancerVmOptions == null ? "" : enhancerVmOptions.trim();
+    }
+
     public Set<String> getEnabledModules() {
         return new LinkedHashSet<String>(this.enabledModules);
     }
@@ -193,6 +258,10 @@ public class State {
         this.addDefaultConstructor = state.addDefaultConstructor;
         this.enforcePropertyRestrictions = state.enforcePropertyRestrictions;
         this.tmpClassLoader = state.tmpClassLoader;
+        this.setEnhancerWorkerCount(state.enhancerWorkerCount);
+        this.setEnhancerBatchSize(state.enhancerBatchSize);
+        this.outOfProcessEnhancer = state.outOfProcessEnhancer;
+        this.setEnhancerVmOptions(state.enhancerVmOptions);
         this.setEnabledModules(state.enabledModules);
         this.setEnabledFiles(state.enabledFiles);
         this.setApi(state.api);
@@ -220,6 +289,10 @@ public class State {
         this.addDefaultConstructor = state.isAddDefaultConstructor();
         this.enforcePropertyRestrictions = state.isEnforcePropertyRestrictions();
         this.tmpClassLoader = state.isTmpClassLoader();
+        this.setEnhancerWorkerCount(state.getEnhancerWorkerCount());
+        this.setEnhancerBatchSize(state.getEnhancerBatchSize());
+        this.outOfProcessEnhancer = state.isOutOfProcessEnhancer();
+        this.setEnhancerVmOptions(state.getEnhancerVmOptions());
 
         final Collection<String> enabledModules1 = state.getEnabledModules();
         if (enabledModules1 == null || enabledModules1.isEmpty()) {
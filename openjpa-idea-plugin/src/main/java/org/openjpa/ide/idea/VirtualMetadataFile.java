@@ -3,14 +3,19 @@ package org.openjpa.ide.idea;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.roots.ModuleRootModel;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 
 import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Nullable;
+import org.openjpa.ide.core.EntityCatalog;
 
 /**
  * Abstraction of persistence related metadata.<br/>
@@ -23,6 +28,8 @@ class VirtualMetadataFile {
 
     private static final char PATH_SEPARATOR_CHAR = '/';
 
+    private static final byte[] NO_DIGEST = new byte[0];
+
     private final Module module;
 
     private final boolean annotationBasedOnly;
@@ -33,6 +40,20 @@ class VirtualMetadataFile {
 
     private final Collection<VirtualFile> classFiles;
 
+    /**
+     * Output directory containing the file, null if not in an output directory (not cataloged)
+     */
+    private final VirtualFile outputDirectory;
+
+    private final boolean testOutput;
+
+    /**
+     * Length and modification time of the metadata file the class names were parsed from
+     */
+    private final long parsedLength;
+
+    private final long parsedLastModified;
+
     private final String displayFilename;
 
     private final String displayPath;
@@ -41,7 +62,11 @@ class VirtualMetadataFile {
                         final boolean annotationBasedOnly,
                         final VirtualFile file,
                         final Collection<String> classNames,
-                        final Collection<VirtualFile> classFiles) {
+                        final Collection<VirtualFile> classFiles,
+                        @Nullable final VirtualFile outputDirectory,
+                        final boolean testOutput,
+                        final long parsedLength,
+                        final long parsedLastModified) {
         Validate.notNull(module, "module is null");
         Validate.notNull(file, "file is null");
         Validate.notNull(classNames, "classNames is null");
@@ -51,6 +76,10 @@ class VirtualMetadataFile {
         this.file = file;
         this.classNames = Collections.unmodifiableCollection(classNames);
         this.classFiles = Collections.unmodifiableCollection(classFiles);
+        this.outputDirectory = outputDirectory;
+        this.testOutput = testOutput;
+        this.parsedLength = parsedLength;
+        this.parsedLastModified = parsedLastModified;
 
         //
         // extract filename and path for displaying purposes
@@ -117,18 +146,67 @@ class VirtualMetadataFile {
         return this.displayPath;
     }
 
-    public Collection<EnhancerItem> toEnhancerItems() {
+    /**
+     * Convert to items processed by the enhancer.
+     *
+     * @param enhancerFingerprint enhancer options and version, part of every item's validity state
+     * @param contentHashCache    digests of unchanged files (for the items' validity states)
+     * @param dependencyGraph     persistent classes of the build, the classes are added to it
+     * @return .
+     */
+    public Collection<EnhancerItem> toEnhancerItems(final String enhancerFingerprint,
+                                                    final ContentHashCache contentHashCache,
+                                                    final EntityDependencyGraph dependencyGraph) {
         final Collection<EnhancerItem> enhancerItems =
                 new ArrayList<EnhancerItem>(this.classNames.size() + (this.annotationBasedOnly ? 0 : 1));
+        final String metadataPath = this.annotationBasedOnly ? null : this.getOutputRelativePath(this.file);
         if (!this.annotationBasedOnly) {
-            enhancerItems.add(new EnhancerItem(this, this.file));
+            final EntityCatalog.Entry catalogEntry = metadataPath == null
+                    ? null
+                    : this.createCatalogEntry(metadataPath, EntityCatalog.Kind.METADATA, null,
+                            this.parsedLength, this.parsedLastModified, new ArrayList<String>(this.classNames));
+            enhancerItems.add(new EnhancerItem(this, this.file, enhancerFingerprint, contentHashCache, catalogEntry,
+                    null, dependencyGraph));
         }
+        final EntityCatalog.Kind classKind = this.annotationBasedOnly ? EntityCatalog.Kind.ANNOTATED : EntityCatalog.Kind.XML;
+        // class names and files are in the same order
+        final Iterator<String> classNameIterator = this.classNames.iterator();
         for (final VirtualFile classFile : this.classFiles) {
+            final String className = classNameIterator.hasNext() ? classNameIterator.next() : null;
             if (classFile != null) {
-                enhancerItems.add(new EnhancerItem(this, classFile));
+                final String classPath = this.getOutputRelativePath(classFile);
+                final EntityCatalog.Entry catalogEntry = classPath == null
+                        ? null
+                        : this.createCatalogEntry(classPath, classKind, metadataPath, -1L, -1L, null);
+                if (className != null) {
+                    dependencyGraph.add(className, classFile, catalogEntry);
+                }
+                enhancerItems.add(new EnhancerItem(this, classFile, enhancerFingerprint, contentHashCache, catalogEntry,
+                        className, dependencyGraph));
             }
         }
         return enhancerItems;
     }
 
+    //
+    // Helper methods
+    //
+
+    @Nullable
+    private String getOutputRelativePath(final VirtualFile outputFile) {
+        return this.outputDirectory == null
+                ? null
+                : VfsUtilCore.getRelativePath(outputFile, this.outputDirectory, PATH_SEPARATOR_CHAR);
+    }
+
+    private EntityCatalog.Entry createCatalogEntry(final String path,
+                                                  final EntityCatalog.Kind kind,
+                                                  @Nullable final String metadataPath,
+                                                  final long length,
+                                                  final long lastModified,
+                                                  @Nullable final List<String> catalogClassNames) {
+        return new EntityCatalog.Entry(this.module.getName(), this.testOutput, path, kind, metadataPath,
+                length, lastModified, NO_DIGEST, catalogClassNames, null);
+    }
+
 }
@@ -5,6 +5,8 @@ import java.awt.Font;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -18,7 +20,10 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
 import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.TableModel;
@@ -31,6 +36,7 @@ import com.intellij.uiDesigner.core.Spacer;
 import org.apache.commons.lang.Validate;
 import org.openjpa.ide.idea.EnhancerSupportRegistry;
 import org.openjpa.ide.idea.PersistenceApi;
+import org.openjpa.ide.idea.State;
 import org.openjpa.ide.idea.config.swing.AffectedModulesRowModel;
 import org.openjpa.ide.idea.config.swing.ColumnAdjuster;
 import org.openjpa.ide.idea.config.swing.MetadataOrClassFilesRowModel;
@@ -40,6 +46,13 @@ import org.openjpa.ide.idea.integration.EnhancerSupport;
  */
 public class ConfigForm {
 
+    private static final int MAX_ENHANCER_WORKER_COUNT = 64;
+
+    private static final int MAX_ENHANCER_BATCH_SIZE = 100000;
+
+    private static final String INDEX_NOT_READY_TEXT = "Please wait until indexing is finished";
+
+    private static final String LOADING_TEXT = "Loading affected modules and classes...";
 
     private GuiState guiState = null;
 
@@ -62,6 +75,8 @@ public class ConfigForm {
 
     private JPanel indexNotReadyPanel;
 
+    private JLabel statusLabel;
+
     private JRadioButton hibernateRadioButton;
 
     private JRadioButton jPARadioButton;
@@ -70,6 +85,10 @@ public class ConfigForm {
     private JCheckBox addDefaultConstructor;
     private JCheckBox enforcePropertyRestrictions;
     private JCheckBox tmpClassLoader;
+    private JSpinner enhancerWorkerCountSpinner;
+    private JSpinner enhancerBatchSizeSpinner;
+    private JCheckBox outOfProcessEnhancer;
+    private JTextField enhancerVmOptionsTextField;
 
     //
     // Interface with ProjectComponent
@@ -103,6 +122,18 @@ public class ConfigForm {
         if (this.tmpClassLoader.isSelected() != data.isTmpClassLoader()) {
             return true;
         }
+        if (this.getEnhancerWorkerCount() != data.getEnhancerWorkerCount()) {
+            return true;
+        }
+        if (this.getEnhancerBatchSize() != data.getEnhancerBatchSize()) {
+            return true;
+        }
+        if (this.outOfProcessEnhancer.isSelected() != data.isOutOfProcessEnhancer()) {
+            return true;
+        }
+        if (!this.enhancerVmOptionsTextField.getText().trim().equals(data.getEnhancerVmOptions())) {
+            return true;
+        }
         if (!this.hibernateRadioButton.isSelected() && PersistenceApi.HIBERNATE == data.getApi()) {
             return true;
         }
@@ -173,7 +204,24 @@ public class ConfigForm {
             }
         });
 
+        //
+        // Spinner for selecting the number of modules enhanced in parallel
+
+        this.enhancerWorkerCountSpinner = new JSpinner(new SpinnerNumberModel(1, 1, MAX_ENHANCER_WORKER_COUNT, 1));
+
+        //
+        // Spinner for selecting the number of classes per enhancer run (0 = whole module)
+
+        this.enhancerBatchSizeSpinner = new JSpinner(
+                new SpinnerNumberModel(State.DEFAULT_ENHANCER_BATCH_SIZE, 0, MAX_ENHANCER_BATCH_SIZE, 10));
+    }
+
+    private int getEnhancerWorkerCount() {
+        return ((Number) this.enhancerWorkerCountSpinner.getValue()).intValue();
+    }
 
+    private int getEnhancerBatchSize() {
+        return ((Number) this.enhancerBatchSizeSpinner.getValue()).intValue();
     }
 
     //
@@ -264,15 +312,55 @@ public class ConfigForm {
                         | GridConstraints.SIZEPOLICY_CAN_GROW,
                 GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
 
+        final JPanel panel4 = new JPanel();
+        panel4.setLayout(new GridLayoutManager(1, 4, new Insets(0, 0, 0, 0), -1, -1));
+        configPanel.add(panel4, new GridConstraints(2, 2, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE,
+                GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW,
+                GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        final JLabel label4 = new JLabel();
+        label4.setText("Enhancer worker threads");
+        panel4.add(label4, new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE,
+                GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0,
+                false));
+        panel4.add(enhancerWorkerCountSpinner, new GridConstraints(0, 1, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE,
+                GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0,
+                false));
+        final JLabel label6 = new JLabel();
+        label6.setText("Classes per enhancer run");
+        panel4.add(label6, new GridConstraints(0, 2, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE,
+                GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0,
+                false));
+        panel4.add(enhancerBatchSizeSpinner, new GridConstraints(0, 3, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE,
+                GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0,
+                false));
+        final JPanel panel5 = new JPanel();
+        panel5.setLayout(new GridLayoutManager(1, 3, new Insets(0, 0, 0, 0), -1, -1));
+        configPanel.add(panel5, new GridConstraints(2, 0, 1, 2, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_HORIZONTAL,
+                GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW,
+                GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        outOfProcessEnhancer = new JCheckBox();
+        outOfProcessEnhancer.setText("Run enhancer in separate process");
+        panel5.add(outOfProcessEnhancer, new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE,
+                GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW,
+                GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+        final JLabel label5 = new JLabel();
+        label5.setText("Enhancer VM options");
+        panel5.add(label5, new GridConstraints(0, 1, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE,
+                GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0,
+                false));
+        enhancerVmOptionsTextField = new JTextField();
+        panel5.add(enhancerVmOptionsTextField, new GridConstraints(0, 2, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_HORIZONTAL,
+                GridConstraints.SIZEPOLICY_WANT_GROW, GridConstraints.SIZEPOLICY_FIXED, null, new Dimension(150, -1), null, 0,
+                false));
         indexNotReadyPanel = new JPanel();
         indexNotReadyPanel.setLayout(new GridLayoutManager(1, 1, new Insets(0, 0, 0, 0), -1, -1));
         configPanel.add(indexNotReadyPanel, new GridConstraints(3, 0, 1, 3, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_BOTH,
                 GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW,
                 GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW,
                 null, null, null, 0, false));
-        final JLabel label2 = new JLabel();
-        label2.setText("Please wait until indexing is finished");
-        indexNotReadyPanel.add(label2, new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_NONE,
+        statusLabel = new JLabel();
+        statusLabel.setText("Please wait until indexing is finished");
+        indexNotReadyPanel.add(statusLabel, new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_NONE,
                 GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null,
                 null, 0, false));
         contentPanel = new JPanel();
@@ -351,8 +439,7 @@ public class ConfigForm {
 
         //
         // Basic panels
-        this.indexNotReadyPanel.setVisible(!data.isIndexReady());
-        this.contentPanel.setVisible(data.isIndexReady());
+        this.updateStatus();
 
         //
         // Enable enhancer checkbox
@@ -393,6 +480,10 @@ public class ConfigForm {
         this.addDefaultConstructor.setSelected(data.isAddDefaultConstructor());
         this.enforcePropertyRestrictions.setSelected(data.isEnforcePropertyRestrictions());
         this.tmpClassLoader.setSelected(data.isTmpClassLoader());
+        this.enhancerWorkerCountSpinner.setValue(Math.max(1, Math.min(MAX_ENHANCER_WORKER_COUNT, data.getEnhancerWorkerCount())));
+        this.enhancerBatchSizeSpinner.setValue(Math.max(0, Math.min(MAX_ENHANCER_BATCH_SIZE, data.getEnhancerBatchSize())));
+        this.outOfProcessEnhancer.setSelected(data.isOutOfProcessEnhancer());
+        this.enhancerVmOptionsTextField.setText(data.getEnhancerVmOptions());
 
         //
         // Panel displaying an info message if enhancer is not initialized
@@ -445,6 +536,10 @@ public class ConfigForm {
         data.setAddDefaultConstructor(this.addDefaultConstructor.isSelected());
         data.setEnforcePropertyRestrictions(this.enforcePropertyRestrictions.isSelected());
         data.setTmpClassLoader(this.tmpClassLoader.isSelected());
+        data.setEnhancerWorkerCount(this.getEnhancerWorkerCount());
+        data.setEnhancerBatchSize(this.getEnhancerBatchSize());
+        data.setOutOfProcessEnhancer(this.outOfProcessEnhancer.isSelected());
+        data.setEnhancerVmOptions(this.enhancerVmOptionsTextField.getText().trim());
 
         final EnhancerSupport enhancerSupport = getByEnhancerSupportName(data, (String) this.persistenceImplComboBox.getSelectedItem());
         data.setEnhancerSupport(enhancerSupport);
@@ -456,7 +551,85 @@ public class ConfigForm {
         data.setApi(supportedApi);
         data.setAffectedModules(((AffectedModulesRowModel) this.affectedModulesTable.getModel()).getAffectedModules());
         data.setMetadataFiles(((MetadataOrClassFilesRowModel) this.metadataAndClassesTable.getModel()).getFiles());
+        data.setAffectedModulesLoaded(this.guiState.isAffectedModulesLoaded());
+        data.setFilesLoaded(this.guiState.isFilesLoaded());
+
+    }
+
+    //
+    // Background loading, see ProjectComponent
+    //
+
+    /**
+     * Append a module loaded in background to the affected modules table.
+     *
+     * @param affectedModule the loaded module
+     */
+    public void addAffectedModule(final AffectedModule affectedModule) {
+        final List<AffectedModule> affectedModules = this.guiState.getAffectedModules();
+        affectedModules.add(new AffectedModule(affectedModule.isEnabled(), affectedModule.getName()));
+        this.guiState.setAffectedModules(affectedModules);
+
+        ((AffectedModulesRowModel) this.affectedModulesTable.getModel()).addAffectedModule(affectedModule);
+        setPreferredTableHeight(this.affectedModulesTable, this.affectedModulesTable.getRowCount());
+    }
+
+    /**
+     * Append files loaded in background to the metadata and classes table.
+     *
+     * @param metadataFiles       loaded metadata files
+     * @param annotatedClassFiles loaded annotated class files
+     */
+    public void addFiles(final List<MetaDataOrClassFile> metadataFiles, final List<MetaDataOrClassFile> annotatedClassFiles) {
+        final List<MetaDataOrClassFile> guiMetadataFiles = this.guiState.getMetadataFiles();
+        guiMetadataFiles.addAll(copyFiles(metadataFiles));
+        this.guiState.setMetadataFiles(guiMetadataFiles);
+        final List<MetaDataOrClassFile> guiAnnotatedClassFiles = this.guiState.getAnnotatedClassFiles();
+        guiAnnotatedClassFiles.addAll(copyFiles(annotatedClassFiles));
+        this.guiState.setAnnotatedClassFiles(guiAnnotatedClassFiles);
+
+        final MetadataOrClassFilesRowModel rowModel = (MetadataOrClassFilesRowModel) this.metadataAndClassesTable.getModel();
+        rowModel.addFiles(metadataFiles);
+        rowModel.addFiles(annotatedClassFiles);
+        setPreferredTableHeight(this.metadataAndClassesTable, this.metadataAndClassesTable.getRowCount());
+    }
 
+    /**
+     * Background loading finished.
+     *
+     * @param affectedModulesLoaded true if all affected modules were loaded
+     * @param filesLoaded           true if all files were loaded
+     */
+    public void setLoaded(final boolean affectedModulesLoaded, final boolean filesLoaded) {
+        this.guiState.setAffectedModulesLoaded(affectedModulesLoaded);
+        this.guiState.setFilesLoaded(filesLoaded);
+        this.updateStatus();
+    }
+
+    /**
+     * Background loading stopped as indexing started.
+     */
+    public void setIndexNotReady() {
+        this.indexNotReadyPanel.setVisible(true);
+        this.contentPanel.setVisible(false);
+        this.statusLabel.setText(INDEX_NOT_READY_TEXT);
+    }
+
+    private void updateStatus() {
+        final GuiState data = this.guiState;
+        final boolean loading = !data.isAffectedModulesLoaded() || !data.isFilesLoaded();
+        this.indexNotReadyPanel.setVisible(!data.isIndexReady() || loading);
+        this.contentPanel.setVisible(data.isIndexReady());
+        this.statusLabel.setText(data.isIndexReady() ? LOADING_TEXT : INDEX_NOT_READY_TEXT);
+    }
+
+    private static List<MetaDataOrClassFile> copyFiles(final Collection<MetaDataOrClassFile> files) {
+        final List<MetaDataOrClassFile> copy = new ArrayList<MetaDataOrClassFile>(files.size());
+        for (final MetaDataOrClassFile file : files) {
+            copy.add(new MetaDataOrClassFile(file.getModuleName(), file.getFileName(), file.getPath(),
+                    file.getClassName(), file.isEnabled()));
+        }
+        return copy;
     }
 
 
@@ -6,6 +6,7 @@ import java.util.List;
 
 import org.openjpa.ide.idea.EnhancerSupportRegistry;
 import org.openjpa.ide.idea.PersistenceApi;
+import org.openjpa.ide.idea.State;
 import org.openjpa.ide.idea.integration.EnhancerSupport;
 
 /**
@@ -32,6 +33,14 @@ public class GuiState {
 
     private boolean tmpClassLoader = true;
 
+    private int enhancerWorkerCount = 1;
+
+    private int enhancerBatchSize = State.DEFAULT_ENHANCER_BATCH_SIZE;
+
+    private boolean outOfProcessEnhancer = false;
+
+    private String enhancerVmOptions = "";
+
     private boolean enhancerInitialized = false;
 
     private PersistenceApi api;
@@ -46,6 +55,16 @@ public class GuiState {
 
     private List<MetaDataOrClassFile> annotatedClassFiles;
 
+    /**
+     * Indicator if {@link #affectedModules} are complete (they are loaded in background)
+     */
+    private boolean affectedModulesLoaded = true;
+
+    /**
+     * Indicator if {@link #metadataFiles} and {@link #annotatedClassFiles} are complete (they are loaded in background)
+     */
+    private boolean filesLoaded = true;
+
     //
     // Constructor
     //
@@ -60,6 +79,10 @@ public class GuiState {
                 true,
                 false,
                 true,
+                1,
+                State.DEFAULT_ENHANCER_BATCH_SIZE,
+                false,
+                "",
                 true,
                 PersistenceApi.HIBERNATE,
                 enhancerSupportRegistry,
@@ -77,6 +100,10 @@ public class GuiState {
                     final boolean addDefaultConstructor,
                     final boolean enforcePropertyRestrictions,
                     final boolean tmpClassLoader,
+                    final int enhancerWorkerCount,
+                    final int enhancerBatchSize,
+                    final boolean outOfProcessEnhancer,
+                    final String enhancerVmOptions,
                     final boolean enhancerInitialized,
                     final PersistenceApi api,
                     final EnhancerSupportRegistry enhancerSupportRegistry,
@@ -93,6 +120,10 @@ public class GuiState {
         this.addDefaultConstructor = addDefaultConstructor;
         this.enforcePropertyRestrictions = enforcePropertyRestrictions;
         this.tmpClassLoader = tmpClassLoader;
+        this.enhancerWorkerCount = enhancerWorkerCount;
+        this.enhancerBatchSize = enhancerBatchSize;
+        this.outOfProcessEnhancer = outOfProcessEnhancer;
+        this.enhancerVmOptions = enhancerVmOptions;
         this.enhancerInitialized = enhancerInitialized;
         this.api = api;
         this.enhancerSupportRegistry = enhancerSupportRegistry;
@@ -111,6 +142,10 @@ public class GuiState {
                 data.isAddDefaultConstructor(),
                 data.isEnforcePropertyRestrictions(),
                 data.isTmpClassLoader(),
+                data.getEnhancerWorkerCount(),
+                data.getEnhancerBatchSize(),
+                data.isOutOfProcessEnhancer(),
+                data.getEnhancerVmOptions(),
                 data.isEnhancerInitialized(),
                 data.getApi(),
                 data.getEnhancerSupportRegistry(),
@@ -118,6 +153,8 @@ public class GuiState {
                 deepCopyAffectedModules(data.getAffectedModules()),
                 deepCopyMetaFilesModules(data.getMetadataFiles()),
                 deepCopyMetaFilesModules(data.getAnnotatedClassFiles()));
+        this.affectedModulesLoaded = data.isAffectedModulesLoaded();
+        this.filesLoaded = data.isFilesLoaded();
     }
 
     private static List<MetaDataOrClassFile> deepCopyMetaFilesModules(List<MetaDataOrClassFile> metadataFiles) {
@@ -223,6 +260,22 @@ public class GuiState {
         return new ArrayList<MetaDataOrClassFile>(this.annotatedClassFiles);
     }
 
+    public boolean isAffectedModulesLoaded() {
+        return this.affectedModulesLoaded;
+    }
+
+    public void setAffectedModulesLoaded(final boolean affectedModulesLoaded) {
+        this.affectedModulesLoaded = affectedModulesLoaded;
+    }
+
+    public boolean isFilesLoaded() {
+        return this.filesLoaded;
+    }
+
+    public void setFilesLoaded(final boolean filesLoaded) {
+        this.filesLoaded = filesLoaded;
+    }
+
     public boolean isAddDefaultConstructor() {
         return addDefaultConstructor;
     }
@@ -247,6 +300,38 @@ public class GuiState {
         this.tmpClassLoader = tmpClassLoader;
     }
 
+    public int getEnhancerWorkerCount() {
+        return this.enhancerWorkerCount;
+    }
+
+    public void setEnhancerWorkerCount(final int enhancerWorkerCount) {
+        this.enhancerWorkerCount = enhancerWorkerCount;
+    }
+
+    public int getEnhancerBatchSize() {
+        return this.enhancerBatchSize;
+    }
+
+    public void setEnhancerBatchSize(final int enhancerBatchSize) {
+        this.enhancerBatchSize = enhancerBatchSize;
+    }
+
+    public boolean isOutOfProcessEnhancer() {
+        return this.outOfProcessEnhancer;
+    }
+
+    public void setOutOfProcessEnhancer(final boolean outOfProcessEnhancer) {
+        this.outOfProcessEnhancer = outOfProcessEnhancer;
+    }
+
+    public String getEnhancerVmOptions() {
+        return this.enhancerVmOptions;
+    }
+
+    public void setEnhancerVmOptions(final String enhancerVmOptions) {
+        this.enhancerVmOptions = enhancerVmOptions;
+    }
+
 
     //
     // java.lang.Object overrides
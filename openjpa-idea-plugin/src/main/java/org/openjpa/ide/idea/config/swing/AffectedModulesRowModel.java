@@ -1,5 +1,6 @@
 package org.openjpa.ide.idea.config.swing;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.table.AbstractTableModel;
@@ -15,13 +16,25 @@ public class AffectedModulesRowModel extends AbstractTableModel {
     private final List<AffectedModule> affectedModules;
 
     public AffectedModulesRowModel(final List<AffectedModule> affectedModules) {
-        this.affectedModules = affectedModules;
+        this.affectedModules = affectedModules == null
+                ? new ArrayList<AffectedModule>() : new ArrayList<AffectedModule>(affectedModules);
     }
 
     public List<AffectedModule> getAffectedModules() {
         return this.affectedModules;
     }
 
+    /**
+     * Append a module (e.g. while modules are loaded in background).
+     *
+     * @param affectedModule the module to append
+     */
+    public void addAffectedModule(final AffectedModule affectedModule) {
+        this.affectedModules.add(affectedModule);
+        final int row = this.affectedModules.size() - 1;
+        this.fireTableRowsInserted(row, row);
+    }
+
     @Override
     public int getRowCount() {
         return this.affectedModules.size();
@@ -29,6 +29,19 @@ public class MetadataOrClassFilesRowModel extends AbstractTableModel {
         return files;
     }
 
+    /**
+     * Append files (e.g. while files are loaded in background).
+     *
+     * @param addedFiles the files to append
+     */
+    public void addFiles(final Collection<MetaDataOrClassFile> addedFiles) {
+        if (!addedFiles.isEmpty()) {
+            final int firstRow = this.files.size();
+            this.files.addAll(addedFiles);
+            this.fireTableRowsInserted(firstRow, this.files.size() - 1);
+        }
+    }
+
     @Override
     public int getRowCount() {
         return this.files.size();
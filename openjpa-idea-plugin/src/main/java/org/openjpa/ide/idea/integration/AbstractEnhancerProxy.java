@@ -14,7 +14,10 @@ public abstract class AbstractEnhancerProxy implements EnhancerProxy {
 
     private final PersistenceApi api;
 
-    private final CompileContext compileContext;
+    /**
+     * Context of the build using this proxy, rebound when a cached proxy is reused by a later build
+     */
+    private volatile CompileContext compileContext;
 
     private final Module module;
 
@@ -46,6 +49,15 @@ public abstract class AbstractEnhancerProxy implements EnhancerProxy {
         return this.compileContext;
     }
 
+    /**
+     * Bind a cached proxy to the build reusing it, see {@link EnhancerProxyCache}.
+     *
+     * @param compileContext context of the build now using this proxy
+     */
+    final void setCompileContext(final CompileContext compileContext) {
+        this.compileContext = compileContext;
+    }
+
     public final Module getModule() {
         return this.module;
     }
@@ -1,5 +1,6 @@
 package org.openjpa.ide.idea.integration;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -12,6 +13,7 @@ import com.intellij.openapi.module.Module;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.openjpa.ide.idea.PersistenceApi;
+import org.openjpa.ide.idea.integration.openjpa.EnhancerDaemonClient;
 
 /**
  */
@@ -35,6 +37,17 @@ public abstract class AbstractEnhancerSupport implements EnhancerSupport {
         return annotationNames;
     }
 
+    /**
+     * Enhancer classes are part of the enhancer library, the first one is used by default.
+     *
+     * @return first of {@link #getEnhancerClassNames()}
+     */
+    @Override
+    @NotNull
+    public String getEnhancerLibraryClassName() {
+        return this.getEnhancerClassNames()[0];
+    }
+
     @Override
     @NotNull
     public PersistenceApi getDefaultPersistenceApi() {
@@ -59,4 +72,25 @@ public abstract class AbstractEnhancerSupport implements EnhancerSupport {
         return (EnhancerProxy) constructor.newInstance(api, compileCtx, module, persistenceUnitName);
     }
 
+    /**
+     * Enhancer integrations run in process by default.
+     *
+     * @return null
+     */
+    @Override
+    @Nullable
+    public EnhancerProxy newDaemonEnhancerProxy(final PersistenceApi api,
+                                                final CompileContext compileCtx,
+                                                final Module module,
+                                                final EnhancerDaemonClient daemonClient,
+                                                final String vmOptions)
+            throws IOException,
+            ClassNotFoundException,
+            NoSuchMethodException,
+            InvocationTargetException,
+            IllegalAccessException,
+            InstantiationException {
+        return null;
+    }
+
 }
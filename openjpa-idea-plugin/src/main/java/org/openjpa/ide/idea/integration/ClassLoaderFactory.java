@@ -0,0 +1,212 @@
+package org.openjpa.ide.idea.integration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.intellij.openapi.compiler.CompileContext;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.roots.*;
+import com.intellij.openapi.roots.libraries.Library;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.PathsList;
+import com.intellij.util.Processor;
+import com.intellij.util.lang.UrlClassLoader;
+
+import org.openjpa.ide.core.ClassLoaderPool;
+import org.openjpa.ide.idea.ProjectComponent;
+
+/**
+ * Factory for creating ClassLoaders restricted to each provided module's dependency scope.
+ */
+public abstract class ClassLoaderFactory {
+
+    private ClassLoaderFactory() {
+        // prohibit instantiation
+    }
+
+    /**
+     * Creates a new {@link ClassLoader} that includes only the dependencies
+     * and output dirs in the current module's compile context (includes module dependencies
+     * and external jar dependencies).<br/>
+     * <br/>
+     * Plugin and library classes are loaded by a pooled parent loader shared with all modules of the project having
+     * the same dependencies (see {@link ProjectComponent#getSharedClassLoaders()}), only the module's output
+     * directory is loaded by the returned loader. The returned loader has to be closed after use, which also
+     * releases the shared parent.<br/>
+     * As the module's classes are not visible to the parent, set the returned loader as thread context ClassLoader
+     * while enhancing.
+     *
+     * @param compileContext .
+     * @param module         .
+     * @param proxyClass     the class of the proxy instantiating a ClassLoader
+     * @return .
+     * @throws java.io.IOException .
+     */
+    public static URLClassLoader newClassLoader(final CompileContext compileContext, final Module module, final Class<?> proxyClass) throws IOException {
+        final ProjectComponent projectComponent = module.getProject().getComponent(ProjectComponent.class);
+        // without the project component nothing is shared
+        final ClassLoaderPool sharedLoaders = projectComponent == null ? new ClassLoaderPool() : projectComponent.getSharedClassLoaders();
+        return newClassLoader(sharedLoaders, compileContext, module, proxyClass);
+    }
+
+    /**
+     * Creates a new {@link ClassLoader} for a module whose plugin and library classes are loaded by a parent
+     * from the given pool, see {@link #newClassLoader(CompileContext, Module, Class)}.
+     *
+     * @param sharedLoaders  pool of the parent loaders, shared by the modules of a project
+     * @param compileContext .
+     * @param module         .
+     * @param proxyClass     the class of the proxy instantiating a ClassLoader
+     * @return .
+     * @throws java.io.IOException .
+     */
+    public static URLClassLoader newClassLoader(final ClassLoaderPool sharedLoaders,
+                                                final CompileContext compileContext,
+                                                final Module module,
+                                                final Class<?> proxyClass) throws IOException {
+        final URLClassLoader parent = sharedLoaders.acquire(getSharedClassPathUrls(module, proxyClass));
+        return new ModuleClassLoader(getModuleOutputUrl(compileContext, module), parent, sharedLoaders);
+    }
+
+    /**
+     * Collects the plugin and library urls, which are loaded by the shared parent of a ClassLoader created by
+     * {@link #newClassLoader(CompileContext, Module, Class)}.
+     *
+     * @param module     .
+     * @param proxyClass the class of the proxy instantiating a ClassLoader
+     * @return .
+     * @throws java.io.IOException .
+     */
+    public static List<URL> getSharedClassPathUrls(final Module module, final Class<?> proxyClass) throws IOException {
+        final List<URL> urls = new ArrayList<URL>();
+        urls.addAll(getPluginUrls(proxyClass));
+        urls.addAll(getLibraryUrls(module));
+        return urls;
+    }
+
+    /**
+     * Get the url of the module's output directory, which is loaded by a ClassLoader created by
+     * {@link #newClassLoader(CompileContext, Module, Class)} itself.
+     *
+     * @param compileContext .
+     * @param module         .
+     * @return .
+     * @throws java.io.IOException .
+     */
+    public static URL getModuleOutputUrl(final CompileContext compileContext, final Module module) throws IOException {
+        final VirtualFile outputDirectory = compileContext.getModuleOutputDirectory(module);
+        final File file = new File(outputDirectory.getPath());
+        final File canonicalFile = file.getCanonicalFile();
+        final URI uri = canonicalFile.toURI();
+        return uri.toURL();
+    }
+
+    /**
+     * Collects the urls a ClassLoader created by {@link #newClassLoader(CompileContext, Module, Class)} consists of
+     * (including its shared parent).
+     *
+     * @param compileContext .
+     * @param module         .
+     * @param proxyClass     the class of the proxy instantiating a ClassLoader
+     * @return .
+     * @throws java.io.IOException .
+     */
+    public static List<URL> getClassPathUrls(final CompileContext compileContext, final Module module, final Class<?> proxyClass) throws IOException {
+        final List<URL> urls = new ArrayList<URL>();
+        urls.addAll(getPluginUrls(proxyClass));
+        urls.add(getModuleOutputUrl(compileContext, module));
+        urls.addAll(getLibraryUrls(module));
+        return urls;
+    }
+
+    /**
+     * Creates a fingerprint of a classpath, see {@link ClassLoaderPool#fingerprint(java.util.Collection)}.
+     *
+     * @param urls the classpath
+     * @return .
+     */
+    public static String fingerprint(final Collection<URL> urls) {
+        return ClassLoaderPool.fingerprint(urls);
+    }
+
+    //
+    // Helper methods
+    //
+
+    /**
+     * get urls from actual class loader to be able to instantiate executors
+     */
+    @SuppressWarnings("deprecation") // want to stay backwards compatible at any cost
+    private static List<URL> getPluginUrls(final Class<?> proxyClass) {
+        final UrlClassLoader loader = (UrlClassLoader) (proxyClass == null ? ClassLoaderFactory.class.getClassLoader() : proxyClass.getClassLoader());
+        return new ArrayList<URL>(loader.getUrls());
+    }
+
+    private static List<URL> getLibraryUrls(final Module module) throws IOException {
+        final List<VirtualFile> jars = new ArrayList<VirtualFile>();
+
+        ModuleRootManager.getInstance(module).orderEntries().forEachLibrary(new Processor<Library>() {
+            @Override
+            public boolean process(Library library) {
+                VirtualFile[] files = library.getFiles(OrderRootType.CLASSES);
+                for (VirtualFile virtualFile : files) {
+                    jars.add(virtualFile);
+                }
+                return true;
+            }
+        });
+
+        final List<URL> urls = new ArrayList<URL>(jars.size());
+        for (final VirtualFile vf : jars) {
+            final File f = new File(vf.getPath().replace(".jar!", ".jar"));
+            final URI uri = f.toURI();
+            final URL url = uri.toURL();
+            urls.add(url);
+        }
+        return urls;
+    }
+
+    //
+    // Helper classes
+    //
+
+    /**
+     * Loads a module's output directory on top of a shared parent, releasing the parent on close.
+     */
+    private static class ModuleClassLoader extends URLClassLoader {
+
+        private final URLClassLoader sharedParent;
+
+        private final ClassLoaderPool sharedLoaders;
+
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private ModuleClassLoader(final URL outputDirectory,
+                                  final URLClassLoader sharedParent,
+                                  final ClassLoaderPool sharedLoaders) {
+            super(new URL[]{outputDirectory}, sharedParent);
+            this.sharedParent = sharedParent;
+            this.sharedLoaders = sharedLoaders;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed.compareAndSet(false, true)) {
+                try {
+                    super.close();
+                } finally {
+                    this.sharedLoaders.release(this.sharedParent);
+                }
+            }
+        }
+
+    }
+
+}
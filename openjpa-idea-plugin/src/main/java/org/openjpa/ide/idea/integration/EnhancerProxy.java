@@ -65,4 +65,16 @@ public interface EnhancerProxy {
      */
     int enhance() throws InvocationTargetException, IllegalAccessException, NoSuchMethodException, ClassNotFoundException, InstantiationException, NoSuchFieldException;
 
+    /**
+     * Forget all class- and metadata file names added so far, so the proxy (and it's already warmed up
+     * {@link java.lang.ClassLoader}) can be reused for another enhancement run, see {@link EnhancerProxyCache}.
+     */
+    void reset();
+
+    /**
+     * Release all resources held by this proxy (e.g. close it's {@link java.lang.ClassLoader}).<br/>
+     * The proxy must not be used afterwards.
+     */
+    void dispose();
+
 }
@@ -0,0 +1,147 @@
+package org.openjpa.ide.idea.integration;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.intellij.openapi.compiler.CompileContext;
+import com.intellij.openapi.module.Module;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjpa.ide.idea.PersistenceApi;
+
+/**
+ * Per project cache of warm enhancer proxies.<br/>
+ * <br/>
+ * Creating a proxy means creating a new {@link java.lang.ClassLoader} and loading the enhancer classes into it,
+ * so every build would pay the full class loading and JIT warm-up costs again. Cached proxies are keyed by
+ * module and reused as long as the module's classpath fingerprint (see {@link ClassLoaderFactory#fingerprint(java.util.Collection)}),
+ * the enhancer support and the persistence api stay the same. Outdated proxies are disposed as soon as a
+ * changed classpath is detected, all others when the project is closed ({@link #dispose()}).<br/>
+ * <br/>
+ * {@link #invalidate()} only marks the cached proxies as outdated, as a running build may still use them. They are
+ * replaced when requested again or disposed when the build ends ({@link #disposeInvalidated()}).<br/>
+ * <br/>
+ * A reused proxy is bound to the compile context of the build requesting it. Proxies not extending
+ * {@link AbstractEnhancerProxy} can't be rebound and are replaced on every request.<br/>
+ * <br/>
+ * Only use cached proxies with enhancers loading the classes to enhance through a temporary ClassLoader,
+ * otherwise classes from previous builds would be resolved.
+ */
+public class EnhancerProxyCache {
+
+    private final ConcurrentMap<String, CachedProxy> proxies = new ConcurrentHashMap<String, CachedProxy>();
+
+    /**
+     * Incremented by {@link #invalidate()}, proxies created before are outdated
+     */
+    private final AtomicInteger generation = new AtomicInteger(0);
+
+    /**
+     * Get a warm proxy for the module, creating (and caching) a new one if there's none or the module's classpath changed.<br/>
+     * The returned proxy is reset and must not be used by different threads at the same time.
+     *
+     * @param enhancerSupport Enhancer integration to create the proxy with
+     * @param api             Persistence API used to enhance classes with
+     * @param compileCtx      IntelliJ IDEA compile context
+     * @param module          Module to enhance in
+     * @return Proxy to the selected enhancer
+     * @throws IOException               .
+     * @throws NoSuchMethodException     .
+     * @throws InvocationTargetException .
+     * @throws IllegalAccessException    .
+     * @throws InstantiationException    .
+     */
+    @NotNull
+    public EnhancerProxy getEnhancerProxy(final EnhancerSupport enhancerSupport,
+                                          final PersistenceApi api,
+                                          final CompileContext compileCtx,
+                                          final Module module)
+            throws IOException,
+            NoSuchMethodException,
+            InvocationTargetException,
+            IllegalAccessException,
+            InstantiationException {
+
+        final List<URL> classPathUrls = ClassLoaderFactory.getClassPathUrls(compileCtx, module, enhancerSupport.getEnhancerProxyClass());
+        final String key = enhancerSupport.getId() + '|' + api + '|' + ClassLoaderFactory.fingerprint(classPathUrls);
+
+        final int currentGeneration = this.generation.get();
+        final CachedProxy cached = this.proxies.get(module.getName());
+        if (cached != null && cached.key.equals(key) && cached.generation == currentGeneration
+                && cached.proxy instanceof AbstractEnhancerProxy) {
+            // the proxy must report to the running build, not to the one that created it
+            ((AbstractEnhancerProxy) cached.proxy).setCompileContext(compileCtx);
+            cached.proxy.reset();
+            return cached.proxy;
+        }
+
+        final EnhancerProxy proxy = enhancerSupport.newEnhancerProxy(api, compileCtx, module, null);
+        final CachedProxy previous = this.proxies.put(module.getName(), new CachedProxy(key, currentGeneration, proxy));
+        if (previous != null) {
+            previous.proxy.dispose();
+        }
+        return proxy;
+    }
+
+    /**
+     * Mark all cached proxies as outdated (e.g. on module dependency changes) without disposing them, as they
+     * may still be in use by a running build.
+     */
+    public void invalidate() {
+        this.generation.incrementAndGet();
+    }
+
+    /**
+     * Dispose the proxies outdated by {@link #invalidate()}, must only be called while no build uses them
+     * (e.g. when a build ends).
+     */
+    public void disposeInvalidated() {
+        final int currentGeneration = this.generation.get();
+        for (final Map.Entry<String, CachedProxy> cachedProxy : this.proxies.entrySet()) {
+            if (cachedProxy.getValue().generation != currentGeneration
+                    && this.proxies.remove(cachedProxy.getKey(), cachedProxy.getValue())) {
+                cachedProxy.getValue().proxy.dispose();
+            }
+        }
+    }
+
+    /**
+     * Dispose all cached proxies (e.g. on project close).
+     */
+    public void dispose() {
+        final Collection<CachedProxy> cachedProxies = new ArrayList<CachedProxy>(this.proxies.values());
+        this.proxies.clear();
+        for (final CachedProxy cachedProxy : cachedProxies) {
+            cachedProxy.proxy.dispose();
+        }
+    }
+
+    //
+    // Helper classes
+    //
+
+    private static class CachedProxy {
+
+        private final String key;
+
+        private final int generation;
+
+        private final EnhancerProxy proxy;
+
+        private CachedProxy(final String key, final int generation, final EnhancerProxy proxy) {
+            this.key = key;
+            this.generation = generation;
+            this.proxy = proxy;
+        }
+
+    }
+
+}
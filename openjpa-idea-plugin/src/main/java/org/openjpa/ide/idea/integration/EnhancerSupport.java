@@ -1,5 +1,6 @@
 package org.openjpa.ide.idea.integration;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
@@ -9,6 +10,7 @@ import com.intellij.openapi.module.Module;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.openjpa.ide.idea.PersistenceApi;
+import org.openjpa.ide.idea.integration.openjpa.EnhancerDaemonClient;
 
 /**
  * Interface to implement for every new enhancer to support.<br/>
@@ -79,6 +81,16 @@ public interface EnhancerSupport {
     @NotNull
     String[] getEnhancerClassNames();
 
+    /**
+     * Fully qualified name of a class contained in the enhancer library.<br/>
+     * <br/>
+     * Used to find the enhancer library (and thereby it's version) in a module's classpath.
+     *
+     * @return Fully qualified class name
+     */
+    @NotNull
+    String getEnhancerLibraryClassName();
+
     /**
      * Annotations this enhancer implementation supports.
      *
@@ -111,4 +123,34 @@ public interface EnhancerSupport {
             IllegalAccessException,
             InstantiationException;
 
+    /**
+     * Create a proxy running the enhancer in a separate (long running) process, see
+     * {@link org.openjpa.ide.idea.integration.openjpa.EnhancerDaemonClient}.
+     *
+     * @param api          Persistence API used to enhance classes with
+     * @param compileCtx   IntelliJ IDEA compile context
+     * @param module       Module to enhance in
+     * @param daemonClient Project's enhancer daemon
+     * @param vmOptions    VM options to start the daemon with
+     * @return Proxy to the enhancer daemon, null if not supported by this enhancer integration
+     * @throws IOException               .
+     * @throws ClassNotFoundException    .
+     * @throws NoSuchMethodException     .
+     * @throws InvocationTargetException .
+     * @throws IllegalAccessException    .
+     * @throws InstantiationException    .
+     */
+    @Nullable
+    EnhancerProxy newDaemonEnhancerProxy(PersistenceApi api,
+                                         CompileContext compileCtx,
+                                         Module module,
+                                         EnhancerDaemonClient daemonClient,
+                                         String vmOptions)
+            throws IOException,
+            ClassNotFoundException,
+            NoSuchMethodException,
+            InvocationTargetException,
+            IllegalAccessException,
+            InstantiationException;
+
 }
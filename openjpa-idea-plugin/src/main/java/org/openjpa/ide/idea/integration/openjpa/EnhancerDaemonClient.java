@@ -0,0 +1,75 @@
+package org.openjpa.ide.idea.integration.openjpa;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.intellij.execution.configurations.ParametersList;
+import com.intellij.util.PathUtil;
+
+import org.openjpa.ide.core.openjpa.EnhanceRequest;
+import org.openjpa.ide.core.openjpa.EnhanceResponse;
+import org.openjpa.ide.core.openjpa.EnhancerDaemon;
+import org.openjpa.ide.core.openjpa.EnhancerDaemonMain;
+
+/**
+ * IDE side of the out-of-process enhancer, see {@link EnhancerDaemon}.<br/>
+ * <br/>
+ * One client per project. The daemon is started lazily on the first request and reused by all following builds,
+ * it's restarted if it died or the VM options changed. Every request uses its own loopback connection,
+ * so modules can be enhanced in parallel.
+ */
+public class EnhancerDaemonClient {
+
+    private EnhancerDaemon daemon = null;
+
+    private String vmOptions = null;
+
+    /**
+     * Enhance a batch in the daemon, starting it if necessary.
+     *
+     * @param vmOptions VM options to start the daemon with (e.g. "-Xmx512m")
+     * @param request   the batch
+     * @return per class results
+     * @throws IOException if the daemon can't be started or reached, or reports an error
+     */
+    EnhanceResponse enhance(final String vmOptions, final EnhanceRequest request) throws IOException {
+        final EnhancerDaemon started;
+        synchronized (this) {
+            started = this.ensureStarted(vmOptions);
+        }
+        return started.enhance(request);
+    }
+
+    /**
+     * Stop the daemon (if running), a following request starts a new one.
+     */
+    public synchronized void dispose() {
+        if (this.daemon != null) {
+            this.daemon.shutdown();
+            this.daemon = null;
+            this.vmOptions = null;
+        }
+    }
+
+    //
+    // Helper methods
+    //
+
+    private EnhancerDaemon ensureStarted(final String vmOptions) throws IOException {
+        final String options = vmOptions == null ? "" : vmOptions.trim();
+        if (this.daemon != null && this.daemon.isAlive() && options.equals(this.vmOptions)) {
+            return this.daemon;
+        }
+        this.dispose();
+
+        // the enhancer core is bundled with the plugin
+        this.daemon = EnhancerDaemon.start(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                Arrays.asList(ParametersList.parse(options)),
+                PathUtil.getJarPathForClass(EnhancerDaemonMain.class));
+        this.vmOptions = options;
+        return this.daemon;
+    }
+
+}
@@ -1,8 +1,16 @@
 package org.openjpa.ide.idea.integration.openjpa;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+
+import com.intellij.openapi.compiler.CompileContext;
+import com.intellij.openapi.module.Module;
+
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.openjpa.ide.idea.PersistenceApi;
 import org.openjpa.ide.idea.integration.AbstractEnhancerSupport;
+import org.openjpa.ide.idea.integration.EnhancerProxy;
 
 /**
  */
@@ -44,6 +52,12 @@ public class EnhancerSupportOpenJpa extends AbstractEnhancerSupport {
         return new String[]{OpenJpaEnhancerProxy.OPEN_JPA_ENHANCER_CLASS};
     }
 
+    @Override
+    @NotNull
+    public String getEnhancerLibraryClassName() {
+        return OpenJpaEnhancerProxy.OPEN_JPA_GENERIC_ENHANCER_CLASS_FQ;
+    }
+
     @Override
     @NotNull
     public PersistenceApi[] getPersistenceApis() {
@@ -56,4 +70,20 @@ public class EnhancerSupportOpenJpa extends AbstractEnhancerSupport {
         return OpenJpaEnhancerProxy.class;
     }
 
+    @Override
+    @Nullable
+    public EnhancerProxy newDaemonEnhancerProxy(final PersistenceApi api,
+                                                final CompileContext compileCtx,
+                                                final Module module,
+                                                final EnhancerDaemonClient daemonClient,
+                                                final String vmOptions)
+            throws IOException,
+            ClassNotFoundException,
+            NoSuchMethodException,
+            InvocationTargetException,
+            IllegalAccessException,
+            InstantiationException {
+        return new OpenJpaDaemonEnhancerProxy(api, compileCtx, module, null, daemonClient, vmOptions);
+    }
+
 }
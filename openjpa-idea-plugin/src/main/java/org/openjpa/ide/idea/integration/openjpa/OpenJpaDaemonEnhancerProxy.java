@@ -0,0 +1,146 @@
+package org.openjpa.ide.idea.integration.openjpa;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.intellij.openapi.compiler.CompileContext;
+import com.intellij.openapi.module.Module;
+
+import org.openjpa.ide.core.openjpa.ClassResult;
+import org.openjpa.ide.core.openjpa.EnhanceRequest;
+import org.openjpa.ide.core.openjpa.EnhanceResponse;
+import org.openjpa.ide.core.openjpa.OpenJpaEnhancerInvoker;
+import org.openjpa.ide.idea.PersistenceApi;
+import org.openjpa.ide.idea.integration.AbstractEnhancerProxy;
+import org.openjpa.ide.idea.integration.ClassLoaderFactory;
+
+/**
+ * Enhancer proxy delegating to the out-of-process enhancer, see {@link EnhancerDaemonClient}.<br/>
+ * <br/>
+ * No enhancer classes are loaded into the IDE, the module's classpath is passed to the daemon which keeps
+ * its own (shared) ClassLoaders.
+ */
+public class OpenJpaDaemonEnhancerProxy extends AbstractEnhancerProxy {
+
+    private final EnhancerDaemonClient daemonClient;
+
+    private final String vmOptions;
+
+    private final List<String> classPath;
+
+    private final String outputDirectory;
+
+    private boolean addDefaultConstructor;
+
+    private boolean enforcePropertyRestrictions;
+
+    private boolean tmpClassLoader = true;
+
+    private final List<String> classes = new ArrayList<String>();
+
+    public OpenJpaDaemonEnhancerProxy(final PersistenceApi api,
+                                      final CompileContext compileContext,
+                                      final Module module,
+                                      final String persistenceUnitName,
+                                      final EnhancerDaemonClient daemonClient,
+                                      final String vmOptions)
+            throws IOException,
+            ClassNotFoundException,
+            IllegalAccessException,
+            InstantiationException,
+            InvocationTargetException,
+            NoSuchMethodException {
+
+        super(api, compileContext, module, persistenceUnitName);
+        this.daemonClient = daemonClient;
+        this.vmOptions = vmOptions;
+
+        final List<URL> urls = ClassLoaderFactory.getSharedClassPathUrls(module, OpenJpaEnhancerProxy.class);
+        this.classPath = new ArrayList<String>(urls.size());
+        for (final URL url : urls) {
+            this.classPath.add(url.toExternalForm());
+        }
+        this.outputDirectory = ClassLoaderFactory.getModuleOutputUrl(compileContext, module).toExternalForm();
+    }
+
+    @Override
+    public void addClasses(final String... classNames) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
+        this.classes.addAll(Arrays.asList(classNames));
+    }
+
+    @Override
+    public void addMetadataFiles(final String... metadataFiles) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
+        // do nothing
+    }
+
+    /**
+     * Enhance in the daemon.
+     *
+     * @return number of classes enhanced by this run (classes enhanced before are not counted)
+     * @throws IllegalStateException if the daemon fails or classes could not be enhanced
+     */
+    @Override
+    public int enhance() throws InvocationTargetException, IllegalAccessException, NoSuchMethodException, InstantiationException, NoSuchFieldException, ClassNotFoundException {
+        if (this.classes.isEmpty()) {
+            return 0;
+        }
+
+        final EnhanceRequest request = new EnhanceRequest(this.classPath,
+                this.outputDirectory,
+                this.addDefaultConstructor,
+                this.enforcePropertyRestrictions,
+                this.tmpClassLoader,
+                this.classes);
+
+        final EnhanceResponse response;
+        try {
+            response = this.daemonClient.enhance(this.vmOptions, request);
+        } catch (IOException e) {
+            final String message = String.valueOf(e.getMessage());
+            if (message.contains(ClassNotFoundException.class.getName() + ": " + OpenJpaEnhancerInvoker.ENHANCER_CLASS_FQ)) {
+                // same as in-process: enhancer library not in the module's classpath
+                throw new ClassNotFoundException(OpenJpaEnhancerInvoker.ENHANCER_CLASS_FQ, e);
+            }
+            throw new IllegalStateException("Out-of-process enhancer failed: " + message, e);
+        }
+
+        final List<String> failed = response.getClassFiles(ClassResult.FAILED);
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Out-of-process enhancer could not enhance " + failed + ": " + response.getMessage());
+        }
+        return response.count(ClassResult.ENHANCED);
+    }
+
+    public void setAddDefaultConstructor(final boolean addDefaultConstructor) {
+        this.addDefaultConstructor = addDefaultConstructor;
+    }
+
+    public void setEnforcePropertyRestrictions(final boolean enforcePropertyRestrictions) {
+        this.enforcePropertyRestrictions = enforcePropertyRestrictions;
+    }
+
+    public void setTmpClassLoader(final boolean tmpClassLoader) {
+        this.tmpClassLoader = tmpClassLoader;
+    }
+
+    @Override
+    public void reset() {
+        this.classes.clear();
+    }
+
+    @Override
+    public void dispose() {
+        // the daemon is owned by the project
+        this.classes.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "OpenJpaDaemonEnhancerProxy";
+    }
+
+}
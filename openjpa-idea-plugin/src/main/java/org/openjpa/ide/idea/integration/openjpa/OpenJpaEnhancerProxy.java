@@ -1,8 +1,9 @@
 package org.openjpa.ide.idea.integration.openjpa;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -10,6 +11,7 @@ import java.util.List;
 import com.intellij.openapi.compiler.CompileContext;
 import com.intellij.openapi.module.Module;
 
+import org.openjpa.ide.core.openjpa.OpenJpaEnhancerInvoker;
 import org.openjpa.ide.idea.PersistenceApi;
 import org.openjpa.ide.idea.integration.AbstractEnhancerProxy;
 import org.openjpa.ide.idea.integration.ClassLoaderFactory;
@@ -19,22 +21,17 @@ public class OpenJpaEnhancerProxy extends AbstractEnhancerProxy {
 
 
     public static final String OPEN_JPA_ENHANCER_CLASS = "PCEnhancer";
-    public static final String OPEN_JPA_GENERIC_ENHANCER_CLASS_FQ = "org.apache.openjpa.enhance." + OPEN_JPA_ENHANCER_CLASS;
+    public static final String OPEN_JPA_GENERIC_ENHANCER_CLASS_FQ = OpenJpaEnhancerInvoker.ENHANCER_CLASS_FQ;
+    public static final String OPEN_JPA_PERSISTENCE_CAPABLE_CLASS_FQ = OpenJpaEnhancerInvoker.PERSISTENCE_CAPABLE_CLASS_FQ;
 
     private boolean addDefaultConstructor;
-    private static final String OPTION_ADD_DEFAULT_CONSTRUCTOR = "addDefaultConstructor";
     //
-    private static final String OPTION_ENFORCE_PROPERTY_RESTRICTION = "enforcePropertyRestrictions";
     private boolean enforcePropertyRestrictions;
     //
-    private static final String OPTION_USE_TMP_CLASSLOADER = "tcl";
     private boolean tmpClassLoader = true;
 
 
-    private final Class<?> configClass;
-    private final Class<?> enhancerClass;
-    private final Class<?> optionsClass;
-    private final Class<?> configParamClass;
+    private final OpenJpaEnhancerInvoker invoker;
 
     private List<String> classes = new ArrayList<String>();
 
@@ -55,31 +52,20 @@ public class OpenJpaEnhancerProxy extends AbstractEnhancerProxy {
         super(api, compileContext, module, persistenceUnitName);
 
 
-        classLoader = ClassLoaderFactory.newClassLoader(compileContext, module, OpenJpaEnhancerProxy.class);
-        enhancerClass = Class.forName(OPEN_JPA_GENERIC_ENHANCER_CLASS_FQ, true, classLoader);
-        optionsClass = Class.forName("org.apache.openjpa.lib.util.Options", true, classLoader);
-        configParamClass = Class.forName("org.apache.openjpa.conf.OpenJPAConfiguration", true, classLoader);
-        configClass = Class.forName("org.apache.openjpa.conf.OpenJPAConfigurationImpl", true, classLoader);
-
-
-    }
-
-
-    protected Object createOptions() throws IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
+        final URLClassLoader moduleClassLoader = ClassLoaderFactory.newClassLoader(compileContext, module, OpenJpaEnhancerProxy.class);
+        classLoader = moduleClassLoader;
+        boolean created = false;
+        try {
+            invoker = new OpenJpaEnhancerInvoker(classLoader);
+            created = true;
+        } finally {
+            if (!created) {
+                // release the shared enhancer loader
+                moduleClassLoader.close();
+            }
+        }
 
-        Object options = optionsClass.newInstance();
-        Method method = optionsClass.getMethod("setProperty", String.class, boolean.class);
-        method.invoke(options, OPTION_ADD_DEFAULT_CONSTRUCTOR, addDefaultConstructor);
-        method.invoke(options, OPTION_ENFORCE_PROPERTY_RESTRICTION, enforcePropertyRestrictions);
-        method.invoke(options, OPTION_USE_TMP_CLASSLOADER, tmpClassLoader);
-        return options;
-    }
 
-    private Object createConfig() throws IllegalAccessException, InstantiationException, NoSuchMethodException, InvocationTargetException {
-        Object config = configClass.newInstance();
-        Method setSpecification = configClass.getMethod("setSpecification", String.class);
-        setSpecification.invoke(config, "jpa");
-        return config;
     }
 
 
@@ -96,18 +82,18 @@ public class OpenJpaEnhancerProxy extends AbstractEnhancerProxy {
     @Override
     public int enhance() throws InvocationTargetException, IllegalAccessException, NoSuchMethodException, InstantiationException, NoSuchFieldException, ClassNotFoundException {
 
-        Object options = createOptions();
-        Object jpaConfig = createConfig();
-        String[] args = classes.toArray(new String[classes.size()]);
-        Method method = enhancerClass.getMethod("run", configParamClass, String[].class, options.getClass());
-
-        Boolean done = (Boolean) method.invoke(null, jpaConfig, args, options);
-        if (done) {
-            return classes.size();
+        // skip classes enhanced by an earlier run
+        final List<String> toEnhance = OpenJpaEnhancerInvoker.getUnenhancedClasses(classes);
+        if (toEnhance.isEmpty()) {
+            return 0;
         }
-        return 0;
-
 
+        final boolean done = invoker.run(toEnhance, addDefaultConstructor, enforcePropertyRestrictions, tmpClassLoader);
+        if (!done) {
+            // let the caller isolate the failing classes
+            throw new IllegalStateException("Enhancer reported failure for " + toEnhance);
+        }
+        return toEnhance.size();
     }
 
 
@@ -123,6 +109,23 @@ public class OpenJpaEnhancerProxy extends AbstractEnhancerProxy {
         this.tmpClassLoader = tmpClassLoader;
     }
 
+    @Override
+    public void reset() {
+        classes.clear();
+    }
+
+    @Override
+    public void dispose() {
+        classes.clear();
+        if (classLoader instanceof Closeable) {
+            try {
+                ((Closeable) classLoader).close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "OpenJpaEnhancerProxy";
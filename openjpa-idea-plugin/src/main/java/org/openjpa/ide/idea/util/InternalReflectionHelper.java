@@ -0,0 +1,62 @@
+package org.openjpa.ide.idea.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.openjpa.ide.core.util.MethodHandleCache;
+import org.openjpa.ide.core.util.ResolvedMethod;
+
+/**
+ * Most of the reflection/bean utils use caching of classes, which leads to ClassLoader memory leaks
+ * when accessing enhancer instances created by a different ClassLoader.<br/>
+ * Using our own reflection util seems to be the only solution, as it's not certain, that any
+ * utility used inside this plugin wouldn't switch to use caching.<br/>
+ * Methods are invoked through {@link MethodHandleCache}, which keeps its handles inside the target classes.
+ */
+public abstract class InternalReflectionHelper {
+
+    private InternalReflectionHelper() {
+        // prohibit instantiation
+    }
+
+    public static Method getDeclaredMethod(final Object object, final String name, final Class<?>... paramTypes)
+            throws NoSuchMethodException {
+        // compare declared methods instead of catching a NoSuchMethodException per class
+        for (Class<?> clazz = object.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+            for (final Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals(name) && Arrays.equals(method.getParameterTypes(), paramTypes)) {
+                    return method;
+                }
+            }
+        }
+        throw new NoSuchMethodException(object.getClass() + "." + name + '(' + Arrays.toString(paramTypes) + ')');
+    }
+
+    /**
+     * Invoke a (possibly non public) method, resolved once per class, see {@link MethodHandleCache}.<br/>
+     * The method is looked up by its exact signature, so the declared methods are never scanned per invocation.
+     *
+     * @param object     the target
+     * @param methodName method name
+     * @param returnType declared return type of the method
+     * @param paramTypes declared parameter types of the method
+     * @param parameters arguments (null for none)
+     * @return the result, null for void methods
+     */
+    public static Object invokeMethod(final Object object,
+                                      final String methodName,
+                                      final Class<?> returnType,
+                                      final Class<?>[] paramTypes,
+                                      final Object[] parameters)
+            throws NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException {
+        final ResolvedMethod resolved = MethodHandleCache.findVirtual(object.getClass(), methodName, returnType, paramTypes);
+        final Object[] arguments = new Object[paramTypes.length + 1];
+        arguments[0] = object;
+        if (parameters != null) {
+            System.arraycopy(parameters, 0, arguments, 1, parameters.length);
+        }
+        return resolved.invoke(arguments);
+    }
+
+}